@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.perf;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+/**
+ * Performance tests of the time partitioning core plug-in, run apart from the
+ * unit tests
+ */
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        XenHypercallEventKeyBenchmark.class
+})
+public class AllPerfTests {
+
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenHypercallEventMatching;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
+import org.eclipse.tracecompass.tmf.core.event.matching.IEventMatchingKey;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.junit.Test;
+
+/**
+ * Benchmark of the keys of the Xen version hypercalls, on a synthetic trace
+ * pair: the hypervisor sees every hypercall of the domain after a random lag.
+ * The key of every event is taken from
+ * {@link XenHypercallEventMatching#getEventKey} and the pending hypercalls are
+ * kept in a hash set like the unmatched events of the matching.
+ */
+public class XenHypercallEventKeyBenchmark {
+
+    private static final String TEST_ID = "org.eclipse.tracecompass.incubator#Xen hypercall matching#"; //$NON-NLS-1$
+    private static final String DOMAIN_EVENT = "xen_sync:hypercall_version_entry"; //$NON-NLS-1$
+    private static final String HYPERVISOR_EVENT = "hypercall_version"; //$NON-NLS-1$
+    private static final String ID_FIELD = "id"; //$NON-NLS-1$
+
+    private static final int HYPERCALLS = 500000;
+    /* Maximum number of hypercalls pending on the hypervisor side */
+    private static final int MAX_LAG = 64;
+    private static final int LOOP_COUNT = 10;
+    private static final long SEED = 0x58656eL;
+
+    /**
+     * Run the benchmark
+     */
+    @Test
+    public void testMatching() {
+        ITmfEvent[] events = createTracePair();
+        XenHypercallEventMatching definition = new XenHypercallEventMatching();
+
+        Performance perf = Performance.getDefault();
+        PerformanceMeter pm = perf.createPerformanceMeter(TEST_ID + "Event keys"); //$NON-NLS-1$
+        perf.tagAsSummary(pm, "Xen hypercall matching: event keys", Dimension.CPU_TIME); //$NON-NLS-1$
+        for (int i = 0; i < LOOP_COUNT; i++) {
+            pm.start();
+            int matches = match(definition, events);
+            pm.stop();
+            assertEquals(HYPERCALLS, matches);
+        }
+        pm.commit();
+    }
+
+    /**
+     * Interleave the events of the domain and of the hypervisor, by hypercall
+     * ID
+     */
+    private static ITmfEvent[] createTracePair() {
+        Random random = new Random(SEED);
+        ITmfEvent[] events = new ITmfEvent[2 * HYPERCALLS];
+        TmfEventType domainType = new TmfEventType(DOMAIN_EVENT, null);
+        TmfEventType hypervisorType = new TmfEventType(HYPERVISOR_EVENT, null);
+        int event = 0;
+        long hypervisorId = 0;
+        for (long domainId = 0; domainId < HYPERCALLS; domainId++) {
+            events[event] = createEvent(event, domainType, domainId);
+            event++;
+            long seen = domainId - random.nextInt(MAX_LAG);
+            while (hypervisorId <= seen) {
+                events[event] = createEvent(event, hypervisorType, hypervisorId++);
+                event++;
+            }
+        }
+        while (hypervisorId < HYPERCALLS) {
+            events[event] = createEvent(event, hypervisorType, hypervisorId++);
+            event++;
+        }
+        return events;
+    }
+
+    private static ITmfEvent createEvent(int rank, TmfEventType type, long id) {
+        ITmfEventField[] fields = new ITmfEventField[] { new TmfEventField(ID_FIELD, id, null) };
+        ITmfEventField content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, fields);
+        return new TmfEvent(null, rank, TmfTimestamp.fromNanos(rank), type, content);
+    }
+
+    private static int match(XenHypercallEventMatching definition, ITmfEvent[] events) {
+        Set<IEventMatchingKey> unmatched = new HashSet<>();
+        int matches = 0;
+        for (ITmfEvent event : events) {
+            IEventMatchingKey key = definition.getEventKey(event);
+            assertNotNull(key);
+            if (unmatched.remove(key)) {
+                matches++;
+            } else {
+                unmatched.add(key);
+            }
+        }
+        return matches;
+    }
+}
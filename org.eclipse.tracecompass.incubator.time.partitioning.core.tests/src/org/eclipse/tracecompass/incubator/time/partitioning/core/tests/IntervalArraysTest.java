@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IntervalArrays;
+import org.junit.Test;
+
+/**
+ * Test the {@link IntervalArrays}
+ */
+public class IntervalArraysTest {
+
+    /**
+     * Test the lookup of the intervals containing a time
+     */
+    @Test
+    public void testIndexOf() {
+        IntervalArrays intervals = new IntervalArrays();
+        assertEquals(-1, intervals.indexOf(0));
+
+        /* More intervals than the initial capacity, with gaps between them */
+        for (int i = 0; i < 100; i++) {
+            intervals.add(i * 10, i * 10 + 4, i);
+        }
+        assertEquals(100, intervals.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, intervals.indexOf(i * 10));
+            assertEquals(i, intervals.indexOf(i * 10 + 4));
+            assertEquals(-1, intervals.indexOf(i * 10 + 5));
+        }
+        assertEquals(-1, intervals.indexOf(-1));
+        assertEquals(99, intervals.getValue(intervals.indexOf(992)));
+    }
+
+    /**
+     * Test that the intervals added out of order are sorted with their end
+     * times and values
+     */
+    @Test
+    public void testSort() {
+        IntervalArrays intervals = new IntervalArrays();
+        int[] order = { 7, 3, 9, 0, 5, 1, 8, 2, 6, 4, 17, 13, 19, 10, 15, 11, 18, 12, 16, 14 };
+        for (int i : order) {
+            intervals.add(i * 10, i * 10 + 9, i);
+        }
+        intervals.sort();
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(i * 10, intervals.getStart(i));
+            assertEquals(i * 10 + 9, intervals.getEnd(i));
+            assertEquals(i, intervals.getValue(i));
+        }
+        assertEquals(13, intervals.indexOf(135));
+    }
+
+    /**
+     * Test that the intervals can be collected again after a clear
+     */
+    @Test
+    public void testClear() {
+        IntervalArrays intervals = new IntervalArrays();
+        intervals.add(10, 19, 1);
+        intervals.add(0, 9, 0);
+        intervals.clear();
+        assertEquals(0, intervals.size());
+        assertEquals(-1, intervals.indexOf(5));
+
+        intervals.add(20, 29, 2);
+        intervals.add(30, 39, 3);
+        intervals.sort();
+        assertEquals(20, intervals.getStart(0));
+        assertEquals(1, intervals.indexOf(30));
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.CgroupPathIndex;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link CgroupPathIndex}
+ */
+public class CgroupPathIndexTest {
+
+    private static final String CPU_ROOT = "/sys/fs/cgroup/cpu"; //$NON-NLS-1$
+    private static final String MEMORY_ROOT = "/sys/fs/cgroup/memory"; //$NON-NLS-1$
+    private static final String DOCKER = "docker"; //$NON-NLS-1$
+    private static final String APP = "app"; //$NON-NLS-1$
+
+    private ITmfStateSystemBuilder fSs;
+    private CgroupPathIndex fIndex;
+    private int fRoot;
+
+    /**
+     * Create the state system and register the cpu hierarchy
+     */
+    @Before
+    public void setUp() {
+        fSs = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("test", 0)); //$NON-NLS-1$
+        fIndex = new CgroupPathIndex();
+        fRoot = fIndex.addRoot(fSs, CPU_ROOT);
+    }
+
+    /**
+     * Test that a root is only added once
+     */
+    @Test
+    public void testAddRoot() {
+        assertEquals(fSs.optQuarkAbsolute(ContainerAttributes.CGROUPS_HIERARCHIES, CPU_ROOT), fRoot);
+        assertEquals(fRoot, fIndex.addRoot(fSs, CPU_ROOT));
+        assertEquals(fRoot, fIndex.getCgroupQuark(fSs, CPU_ROOT));
+    }
+
+    /**
+     * Test that the cgroups along a path are added under the children of
+     * their parents
+     */
+    @Test
+    public void testCgroupQuark() {
+        int app = fIndex.getCgroupQuark(fSs, CPU_ROOT + '/' + DOCKER + '/' + APP);
+        int docker = fSs.optQuarkRelative(fRoot, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, DOCKER);
+        assertEquals(fSs.optQuarkRelative(docker, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, APP), app);
+        assertEquals(docker, fIndex.getCgroupQuark(fSs, CPU_ROOT + '/' + DOCKER));
+
+        /* Paths with extra separators are the same cgroups */
+        assertEquals(docker, fIndex.getCgroupQuark(fSs, CPU_ROOT + '/' + DOCKER + '/'));
+        assertEquals(app, fIndex.getCgroupQuark(fSs, CPU_ROOT + "//" + DOCKER + '/' + APP)); //$NON-NLS-1$
+    }
+
+    /**
+     * Test the root of the paths, including paths of unknown hierarchies
+     */
+    @Test
+    public void testRootQuark() {
+        assertEquals(fRoot, fIndex.getRootQuark(fSs, CPU_ROOT + '/' + DOCKER + '/' + APP));
+        assertEquals(fRoot, fIndex.getRootQuark(fSs, CPU_ROOT));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, fIndex.getRootQuark(fSs, null));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, fIndex.getRootQuark(fSs, MEMORY_ROOT + '/' + DOCKER));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, fIndex.getCgroupQuark(fSs, MEMORY_ROOT + '/' + DOCKER));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, fIndex.getCgroupQuark(fSs, null));
+    }
+
+    /**
+     * Test that a hierarchy root already in the state system is found without
+     * being registered
+     */
+    @Test
+    public void testRootFromStateSystem() {
+        int memory = fSs.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_HIERARCHIES, MEMORY_ROOT);
+        assertEquals(memory, fIndex.getRootQuark(fSs, MEMORY_ROOT + '/' + DOCKER));
+        int docker = fIndex.getCgroupQuark(fSs, MEMORY_ROOT + '/' + DOCKER);
+        assertEquals(fSs.optQuarkRelative(memory, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, DOCKER), docker);
+    }
+
+    /**
+     * Test that a cgroup created again after being removed is resolved to its
+     * attribute, and that the roots are kept
+     */
+    @Test
+    public void testRemove() {
+        String dockerPath = CPU_ROOT + '/' + DOCKER;
+        String appPath = dockerPath + '/' + APP;
+        int app = fIndex.getCgroupQuark(fSs, appPath);
+        int docker = fIndex.getCgroupQuark(fSs, dockerPath + '/');
+
+        fIndex.remove(dockerPath);
+        fIndex.remove(CPU_ROOT);
+        fIndex.remove(null);
+        assertEquals(fRoot, fIndex.getRootQuark(fSs, appPath));
+        assertEquals(app, fIndex.getCgroupQuark(fSs, appPath));
+        assertEquals(docker, fIndex.getCgroupQuark(fSs, dockerPath + '/'));
+        assertEquals(docker, fIndex.getCgroupQuark(fSs, dockerPath));
+    }
+}
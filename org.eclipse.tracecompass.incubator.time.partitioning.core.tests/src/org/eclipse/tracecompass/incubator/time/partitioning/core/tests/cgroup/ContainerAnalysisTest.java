@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.CgroupLookupResult;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAnalysis;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the batch cgroup lookup of the {@link ContainerAnalysis} on a state
+ * system built like the analysis does.
+ */
+public class ContainerAnalysisTest {
+
+    private static final String CGROUP_A = "/a"; //$NON-NLS-1$
+    private static final String CGROUP_B = "/b"; //$NON-NLS-1$
+
+    private ITmfStateSystemBuilder fSs;
+
+    private static void setCgroup(ITmfStateSystemBuilder ss, long tid, long time, String cgroup) {
+        int quark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_PIDS, Long.toString(tid), "cpu"); //$NON-NLS-1$
+        ss.modifyAttribute(time, cgroup, quark);
+    }
+
+    /**
+     * Build the state system: thread 1 is in /a from 10 and in /b from 50,
+     * thread 2 is in /a from 20 and thread 3 is not known.
+     */
+    @Before
+    public void setUp() {
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("test", 0)); //$NON-NLS-1$
+        setCgroup(ss, 1, 10, CGROUP_A);
+        setCgroup(ss, 2, 20, CGROUP_A);
+        setCgroup(ss, 1, 50, CGROUP_B);
+        ss.closeHistory(100);
+        fSs = ss;
+    }
+
+    /**
+     * Test the cgroups of the queries and the table of the distinct cgroups
+     */
+    @Test
+    public void testLookup() {
+        long[] tids = { 1, 2, 1, 3, 2, 1, 1 };
+        long[] times = { 5, 15, 20, 25, 30, 60, 150 };
+        CgroupLookupResult result = ContainerAnalysis.getCpuControllerCgroups(fSs, tids, times);
+
+        assertEquals(tids.length, result.size());
+        assertArrayEquals(new String[] { CGROUP_A, CGROUP_B }, result.getCgroups());
+
+        /* Before the threads join their cgroups */
+        assertNull(result.getCgroup(0));
+        assertNull(result.getCgroup(1));
+        assertEquals(CGROUP_A, result.getCgroup(2));
+        /* Unknown thread */
+        assertEquals(CgroupLookupResult.UNKNOWN, result.getCgroupIndex(3));
+        assertEquals(CGROUP_A, result.getCgroup(4));
+        assertEquals(1, result.getCgroupIndex(5));
+        assertEquals(CGROUP_B, result.getCgroup(5));
+        /* After the end of the state system */
+        assertNull(result.getCgroup(6));
+    }
+
+    /**
+     * Test that every query is unknown without a state system
+     */
+    @Test
+    public void testNoStateSystem() {
+        CgroupLookupResult result = ContainerAnalysis.getCpuControllerCgroups(null, new long[] { 1, 2 }, new long[] { 20, 30 });
+        assertEquals(2, result.size());
+        assertEquals(CgroupLookupResult.UNKNOWN, result.getCgroupIndex(0));
+        assertEquals(CgroupLookupResult.UNKNOWN, result.getCgroupIndex(1));
+        assertEquals(0, result.getCgroups().length);
+    }
+
+    /**
+     * Test that the query times must be sorted
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedTimes() {
+        ContainerAnalysis.getCpuControllerCgroups(fSs, new long[] { 1, 1 }, new long[] { 60, 20 });
+    }
+
+    /**
+     * Test that there must be one time per thread
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedLengths() {
+        ContainerAnalysis.getCpuControllerCgroups(fSs, new long[] { 1, 2 }, new long[] { 20 });
+    }
+}
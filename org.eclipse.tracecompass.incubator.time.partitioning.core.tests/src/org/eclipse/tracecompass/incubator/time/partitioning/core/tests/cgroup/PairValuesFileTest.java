@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.PairValuesFile;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link PairValuesFile}, whose lines must be split like
+ * {@link String#split} would.
+ */
+public class PairValuesFileTest {
+
+    private ITmfStateSystemBuilder fSs;
+    private int fFileQuark;
+    private PairValuesFile fFile;
+
+    /**
+     * Create the state system and the file
+     */
+    @Before
+    public void setUp() {
+        fSs = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("test", 0)); //$NON-NLS-1$
+        fFileQuark = fSs.getQuarkAbsoluteAndAdd("cpu.stat"); //$NON-NLS-1$
+        fFile = new PairValuesFile(fFileQuark);
+    }
+
+    private Object getValue(long time, String key) throws StateSystemDisposedException {
+        int quark = fSs.optQuarkRelative(fFileQuark, key);
+        if (quark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            return null;
+        }
+        return fSs.querySingleState(time, quark).getValue();
+    }
+
+    /**
+     * Test the keys and values of the lines, and the lines that are ignored
+     *
+     * @throws StateSystemDisposedException
+     *             If the state system is disposed
+     */
+    @Test
+    public void testLines() throws StateSystemDisposedException {
+        fFile.update(fSs, 10, "nr_periods 5\nnr_throttled 2  \nc 1:3 rwm\none\na b c d\n\n"); //$NON-NLS-1$
+        fSs.closeHistory(100);
+
+        assertEquals(ContainerAttributes.CGROUPS_FILE_EMPTY_VALUE, fSs.querySingleState(10, fFileQuark).getValue());
+        assertEquals("5", getValue(10, "nr_periods")); //$NON-NLS-1$ //$NON-NLS-2$
+        /* Trailing separators are not tokens */
+        assertEquals("2", getValue(10, "nr_throttled")); //$NON-NLS-1$ //$NON-NLS-2$
+        /* Three tokens are a two token key and its value */
+        assertEquals("rwm", getValue(10, "c 1:3")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(null, getValue(10, "one")); //$NON-NLS-1$
+        assertEquals(null, getValue(10, "a b c")); //$NON-NLS-1$
+        assertEquals(null, getValue(10, "a b")); //$NON-NLS-1$
+        assertEquals(3, fSs.getSubAttributes(fFileQuark, false).size());
+    }
+
+    /**
+     * Test that the keys missing from a new content are emptied
+     *
+     * @throws StateSystemDisposedException
+     *             If the state system is disposed
+     */
+    @Test
+    public void testUpdate() throws StateSystemDisposedException {
+        fFile.update(fSs, 10, "nr_periods 5\nnr_throttled 2"); //$NON-NLS-1$
+        fFile.update(fSs, 20, "nr_periods 6"); //$NON-NLS-1$
+        fFile.update(fSs, 30, "nr_periods 7\nnr_throttled 3"); //$NON-NLS-1$
+        fSs.closeHistory(100);
+
+        assertEquals("5", getValue(15, "nr_periods")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("6", getValue(25, "nr_periods")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("7", getValue(35, "nr_periods")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("2", getValue(15, "nr_throttled")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(ContainerAttributes.CGROUPS_FILE_EMPTY_VALUE, getValue(25, "nr_throttled")); //$NON-NLS-1$
+        assertEquals("3", getValue(35, "nr_throttled")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Test a file with enough keys to grow the table of the keys
+     *
+     * @throws StateSystemDisposedException
+     *             If the state system is disposed
+     */
+    @Test
+    public void testManyKeys() throws StateSystemDisposedException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("key").append(i).append(' ').append(i).append('\n'); //$NON-NLS-1$
+        }
+        fFile.update(fSs, 10, content.toString());
+        fFile.update(fSs, 20, content.toString());
+        fSs.closeHistory(100);
+
+        assertEquals(100, fSs.getSubAttributes(fFileQuark, false).size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(String.valueOf(i), getValue(20, "key" + i)); //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.PartitionSchedule;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.PartitionSchedule.Window;
+import org.junit.Test;
+
+/**
+ * Test the parsing and the validation of the {@link PartitionSchedule}
+ */
+public class PartitionScheduleTest {
+
+    private static PartitionSchedule parse(String content) throws IOException {
+        return PartitionSchedule.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test a schedule of two cores
+     *
+     * @throws IOException
+     *             If the schedule is invalid
+     */
+    @Test
+    public void testParse() throws IOException {
+        PartitionSchedule schedule = parse("<schedule majorFrame=\"200\" tolerance=\"5\">" //$NON-NLS-1$
+                + "<window partition=\"p1\" core=\"0\" offset=\"100\" duration=\"100\"/>" //$NON-NLS-1$
+                + "<window partition=\"p2\" core=\"0\" offset=\"0\" duration=\"50\"/>" //$NON-NLS-1$
+                + "<window partition=\"p1\" core=\"1\" offset=\"0\" duration=\"20\"/>" //$NON-NLS-1$
+                + "</schedule>"); //$NON-NLS-1$
+
+        assertEquals(200, schedule.getMajorFrame());
+        assertEquals(5, schedule.getTolerance());
+        assertEquals(PartitionSchedule.NO_ORIGIN, schedule.getOrigin());
+        assertEquals(2, schedule.getNbCores());
+
+        /* The windows of a core are sorted by offset */
+        Window[] windows = schedule.getWindows(0);
+        assertEquals(2, windows.length);
+        assertEquals("p2", windows[0].getPartition()); //$NON-NLS-1$
+        assertEquals(0, windows[0].getOffset());
+        assertEquals(50, windows[0].getDuration());
+        assertEquals("p1", windows[1].getPartition()); //$NON-NLS-1$
+        assertEquals(100, windows[1].getOffset());
+        assertEquals(1, schedule.getWindows(1).length);
+        assertEquals(1, schedule.getWindows(1)[0].getCore());
+        assertEquals(0, schedule.getWindows(2).length);
+
+        /* The budget is the duration of the first window in the file */
+        assertArrayEquals(new String[] { "p1", "p2" }, schedule.getPartitions().toArray()); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(Long.valueOf(100), schedule.getBudget("p1")); //$NON-NLS-1$
+        assertEquals(Long.valueOf(50), schedule.getBudget("p2")); //$NON-NLS-1$
+        assertNull(schedule.getBudget("p3")); //$NON-NLS-1$
+    }
+
+    /**
+     * Test the optional attributes
+     *
+     * @throws IOException
+     *             If the schedule is invalid
+     */
+    @Test
+    public void testOptionalAttributes() throws IOException {
+        PartitionSchedule schedule = parse("<schedule majorFrame=\"100\" origin=\"1000\">" //$NON-NLS-1$
+                + "<window partition=\"p1\" offset=\"0\" duration=\"100\"/>" //$NON-NLS-1$
+                + "</schedule>"); //$NON-NLS-1$
+        assertEquals(0, schedule.getTolerance());
+        assertEquals(1000, schedule.getOrigin());
+        assertEquals(1, schedule.getNbCores());
+        assertEquals(0, schedule.getWindows(0)[0].getCore());
+    }
+
+    /**
+     * Test that overlapping windows of a core are rejected
+     *
+     * @throws IOException
+     *             Expected
+     */
+    @Test(expected = IOException.class)
+    public void testOverlappingWindows() throws IOException {
+        parse("<schedule majorFrame=\"200\">" //$NON-NLS-1$
+                + "<window partition=\"p1\" offset=\"0\" duration=\"100\"/>" //$NON-NLS-1$
+                + "<window partition=\"p2\" offset=\"50\" duration=\"100\"/>" //$NON-NLS-1$
+                + "</schedule>"); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that a window outside of the major frame is rejected
+     *
+     * @throws IOException
+     *             Expected
+     */
+    @Test(expected = IOException.class)
+    public void testWindowOutsideMajorFrame() throws IOException {
+        parse("<schedule majorFrame=\"100\">" //$NON-NLS-1$
+                + "<window partition=\"p1\" offset=\"50\" duration=\"100\"/>" //$NON-NLS-1$
+                + "</schedule>"); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that a window without a partition is rejected
+     *
+     * @throws IOException
+     *             Expected
+     */
+    @Test(expected = IOException.class)
+    public void testWindowWithoutPartition() throws IOException {
+        parse("<schedule majorFrame=\"100\"><window offset=\"0\" duration=\"100\"/></schedule>"); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that a file that is not a schedule is rejected
+     *
+     * @throws IOException
+     *             Expected
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidRoot() throws IOException {
+        parse("<windows majorFrame=\"100\"/>"); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that an invalid major frame is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMajorFrame() {
+        new PartitionSchedule(0, 0, PartitionSchedule.NO_ORIGIN, Collections.emptyList());
+    }
+}
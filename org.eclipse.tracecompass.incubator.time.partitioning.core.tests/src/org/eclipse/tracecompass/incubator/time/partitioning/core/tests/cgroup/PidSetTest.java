@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.PidSet;
+import org.junit.Test;
+
+/**
+ * Test the {@link PidSet}
+ */
+public class PidSetTest {
+
+    /**
+     * Test adding and removing threads
+     */
+    @Test
+    public void testAddRemove() {
+        PidSet set = new PidSet(0);
+        assertFalse(set.contains(42));
+
+        assertTrue(set.add(42));
+        assertTrue(set.add(0));
+        assertFalse(set.add(42));
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(0));
+        assertEquals(2, set.size());
+
+        /* Negative thread IDs are ignored */
+        assertFalse(set.add(-1));
+        assertFalse(set.contains(-1));
+
+        assertTrue(set.remove(42));
+        assertFalse(set.remove(42));
+        assertFalse(set.contains(42));
+        assertEquals(1, set.size());
+    }
+
+    /**
+     * Test that every thread of the set is visited once
+     */
+    @Test
+    public void testForEach() {
+        PidSet set = new PidSet(3);
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        set.remove(2);
+        Set<Long> visited = new HashSet<>();
+        set.forEach(tid -> assertTrue(visited.add(tid)));
+        assertEquals(2, visited.size());
+        assertTrue(visited.contains(1L));
+        assertTrue(visited.contains(3L));
+    }
+
+    /**
+     * Test that the set grows and that the removals keep the probe sequences
+     * of the other threads, against a {@link HashSet}
+     */
+    @Test
+    public void testRandomOperations() {
+        PidSet set = new PidSet(0);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            long tid = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(tid), set.remove(tid));
+            } else {
+                assertEquals(expected.add(tid), set.add(tid));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (long tid = 0; tid < 5000; tid++) {
+            assertEquals(expected.contains(tid), set.contains(tid));
+        }
+    }
+}
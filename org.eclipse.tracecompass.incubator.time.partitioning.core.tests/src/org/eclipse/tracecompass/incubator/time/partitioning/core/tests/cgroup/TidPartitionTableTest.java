@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.TidPartitionTable;
+import org.junit.Test;
+
+/**
+ * Test the {@link TidPartitionTable}
+ */
+public class TidPartitionTableTest {
+
+    private static final int DEFAULT_VALUE = -1;
+
+    /**
+     * Test the values of known and unknown threads
+     */
+    @Test
+    public void testPutGet() {
+        TidPartitionTable table = new TidPartitionTable(DEFAULT_VALUE);
+        assertEquals(DEFAULT_VALUE, table.get(42));
+
+        table.put(42, 1);
+        table.put(0, 2);
+        assertEquals(1, table.get(42));
+        assertEquals(2, table.get(0));
+        assertEquals(2, table.size());
+
+        /* Moving a thread to another partition does not add it again */
+        table.put(42, 3);
+        assertEquals(3, table.get(42));
+        assertEquals(2, table.size());
+
+        /* Negative thread IDs are ignored */
+        table.put(-1, 4);
+        assertEquals(DEFAULT_VALUE, table.get(-1));
+        assertEquals(2, table.size());
+    }
+
+    /**
+     * Test removing threads, including threads that are not in the table
+     */
+    @Test
+    public void testRemove() {
+        TidPartitionTable table = new TidPartitionTable(DEFAULT_VALUE);
+        table.put(1, 1);
+        table.put(2, 2);
+        table.remove(1);
+        table.remove(3);
+        assertEquals(DEFAULT_VALUE, table.get(1));
+        assertEquals(2, table.get(2));
+        assertEquals(1, table.size());
+    }
+
+    /**
+     * Test that the table grows and that the removals keep the probe
+     * sequences of the other threads, against a {@link HashMap}
+     */
+    @Test
+    public void testRandomOperations() {
+        TidPartitionTable table = new TidPartitionTable(DEFAULT_VALUE);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            long tid = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                table.remove(tid);
+                expected.remove(tid);
+            } else {
+                int partition = random.nextInt(10);
+                table.put(tid, partition);
+                expected.put(tid, partition);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (long tid = 0; tid < 5000; tid++) {
+            assertEquals(expected.getOrDefault(tid, DEFAULT_VALUE).intValue(), table.get(tid));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.cgroup.provider;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider.CgroupMembershipIndex;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.junit.Test;
+
+/**
+ * Test the {@link CgroupMembershipIndex} on a hierarchy built like the
+ * container analysis does: a forked thread is added to the root cgroup and
+ * then attached to its own cgroup, so its memberships overlap.
+ */
+public class CgroupMembershipIndexTest {
+
+    private static final String MOUNT = "/sys/fs/cgroup/cpu"; //$NON-NLS-1$
+    private static final long TID = 42;
+    private static final long OTHER_TID = 43;
+
+    private static void join(ITmfStateSystemBuilder ss, int cgroupQuark, long tid, long start, long end) {
+        int quark = ss.getQuarkRelativeAndAdd(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, Long.toString(tid));
+        ss.modifyAttribute(start, ContainerAttributes.CGROUPS_ACTIVE_VALUE, quark);
+        ss.removeAttribute(end, quark);
+    }
+
+    /**
+     * Test that the thread is in the deepest of its cgroups where its
+     * memberships overlap, and in the only one elsewhere.
+     *
+     * @throws StateSystemDisposedException
+     *             If the state system is disposed
+     */
+    @Test
+    public void testOverlappingMemberships() throws StateSystemDisposedException {
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("test", 0)); //$NON-NLS-1$
+        int root = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_HIERARCHIES, MOUNT);
+        int parent = ss.getQuarkRelativeAndAdd(root, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, "docker"); //$NON-NLS-1$
+        int child = ss.getQuarkRelativeAndAdd(parent, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, "app"); //$NON-NLS-1$
+
+        /* Forked at 10 and attached to app at 20, then moved to docker at 50 */
+        join(ss, root, TID, 10, 80);
+        join(ss, child, TID, 20, 50);
+        join(ss, parent, TID, 50, 70);
+        join(ss, root, OTHER_TID, 30, 60);
+        ss.closeHistory(100);
+
+        CgroupMembershipIndex index = CgroupMembershipIndex.build(ss, root);
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, index.getCgroupAt(TID, 5));
+        assertEquals(root, index.getCgroupAt(TID, 10));
+        assertEquals(root, index.getCgroupAt(TID, 19));
+        assertEquals(child, index.getCgroupAt(TID, 20));
+        assertEquals(child, index.getCgroupAt(TID, 49));
+        assertEquals(parent, index.getCgroupAt(TID, 50));
+        assertEquals(parent, index.getCgroupAt(TID, 69));
+        assertEquals(root, index.getCgroupAt(TID, 70));
+        assertEquals(root, index.getCgroupAt(TID, 79));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, index.getCgroupAt(TID, 80));
+
+        assertEquals(root, index.getCgroupAt(OTHER_TID, 45));
+        assertEquals(ITmfStateSystem.INVALID_ATTRIBUTE, index.getCgroupAt(OTHER_TID, 60));
+
+        /* The entries keep the lifetime of each membership */
+        int member = ss.optQuarkRelative(root, ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, Long.toString(TID));
+        assertEquals(10, index.getMemberStart(member));
+        assertEquals(79, index.getMemberEnd(member));
+    }
+}
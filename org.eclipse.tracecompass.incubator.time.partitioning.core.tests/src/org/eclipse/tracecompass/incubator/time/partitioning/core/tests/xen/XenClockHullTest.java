@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.tests.xen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenClockHull;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenSyncFormula;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenSyncFormula.Quality;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestampTransform;
+import org.junit.Test;
+
+/**
+ * Test the {@link XenClockHull} and the formulas it solves, on hypercalls
+ * generated from a known formula.
+ */
+public class XenClockHullTest {
+
+    private static final String HYPERVISOR = "hypervisor"; //$NON-NLS-1$
+    private static final String DOMAIN = "domain"; //$NON-NLS-1$
+
+    /* The clock of the domain is 50 ppm slow and 1 ms late */
+    private static final double FACTOR = 1.00005;
+    private static final long OFFSET = 1000000;
+    private static final double DRIFT = 50;
+
+    private static final long START = 1000000000000L;
+    private static final long PERIOD = 100000000;
+    private static final long DELAY = 10000;
+    private static final int EXCHANGES = 1000;
+
+    private static long toHypervisor(long domainTime) {
+        return Math.round(FACTOR * domainTime) + OFFSET;
+    }
+
+    /**
+     * Hypercalls and returns of the domain, as {domain time, hypervisor time,
+     * 1 for a hypercall or 0 for a return}
+     */
+    private static List<long[]> createExchanges(int count) {
+        List<long[]> exchanges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long sent = START + i * PERIOD;
+            exchanges.add(new long[] { sent, toHypervisor(sent) + DELAY + (i % 7) * 1000, 1 });
+            long returned = sent + PERIOD / 2;
+            exchanges.add(new long[] { returned, toHypervisor(returned) - DELAY - (i % 5) * 1000, 0 });
+        }
+        return exchanges;
+    }
+
+    private static XenClockHull createHull(List<long[]> exchanges) {
+        XenClockHull hull = new XenClockHull(HYPERVISOR, DOMAIN);
+        for (long[] exchange : exchanges) {
+            if (exchange[2] == 1) {
+                hull.addHypercall(exchange[0], exchange[1]);
+            } else {
+                hull.addReturn(exchange[0], exchange[1]);
+            }
+        }
+        return hull;
+    }
+
+    private static void assertFormula(XenSyncFormula.Domain domain) {
+        ITmfTimestampTransform transform = domain.getTransform();
+        for (long time = START; time < START + EXCHANGES * PERIOD; time += PERIOD * 10) {
+            long error = Math.abs(transform.transform(time) - toHypervisor(time));
+            assertTrue("Error of " + error + " ns", error <= domain.getAccuracy() + 1); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * Test the formula bounded by the hypercalls and their returns
+     */
+    @Test
+    public void testAccurate() {
+        XenSyncFormula.Domain domain = createHull(createExchanges(EXCHANGES)).solve(null);
+        assertEquals(DOMAIN, domain.getHost());
+        assertEquals(HYPERVISOR, domain.getReference());
+        assertEquals(Quality.ACCURATE, domain.getQuality());
+        assertEquals(2 * EXCHANGES, domain.getMatches());
+        assertEquals(DRIFT, domain.getDrift(), 1);
+        /* The band is as wide as the two delays, plus the slopes of its bounds */
+        assertTrue(domain.getAccuracy() < 3 * DELAY);
+        assertFormula(domain);
+    }
+
+    /**
+     * Test that the hulls do not depend on the order of the matches
+     */
+    @Test
+    public void testOutOfOrder() {
+        List<long[]> exchanges = createExchanges(EXCHANGES);
+        XenSyncFormula.Domain expected = createHull(exchanges).solve(null);
+        Collections.shuffle(exchanges, new Random(0));
+        XenSyncFormula.Domain domain = createHull(exchanges).solve(null);
+        assertEquals(Quality.ACCURATE, domain.getQuality());
+        assertEquals(expected.getDrift(), domain.getDrift(), 1e-6);
+        assertEquals(expected.getAccuracy(), domain.getAccuracy(), 1);
+        for (long time = START; time < START + EXCHANGES * PERIOD; time += PERIOD * 10) {
+            assertEquals(expected.getTransform().transform(time), domain.getTransform().transform(time), 1);
+        }
+    }
+
+    /**
+     * Test that only an offset is known without the returns of the hypercalls
+     */
+    @Test
+    public void testHypercallsOnly() {
+        XenClockHull hull = new XenClockHull(HYPERVISOR, DOMAIN);
+        for (long[] exchange : createExchanges(EXCHANGES)) {
+            if (exchange[2] == 1) {
+                hull.addHypercall(exchange[0], exchange[1]);
+            }
+        }
+        XenSyncFormula.Domain domain = hull.solve(null);
+        assertEquals(Quality.APPROXIMATE, domain.getQuality());
+        assertTrue(Double.isNaN(domain.getAccuracy()));
+        assertEquals(0, domain.getDrift(), 1e-6);
+    }
+
+    /**
+     * Test that the hulls crossing are reported as incorrect
+     */
+    @Test
+    public void testCrossing() {
+        XenClockHull hull = new XenClockHull(HYPERVISOR, DOMAIN);
+        for (int i = 0; i < 10; i++) {
+            long sent = START + i * PERIOD;
+            hull.addHypercall(sent, sent);
+            hull.addReturn(sent + PERIOD / 2, sent + PERIOD / 2 + DELAY);
+        }
+        assertEquals(Quality.INCORRECT, hull.solve(null).getQuality());
+    }
+
+    /**
+     * Test that the formula is approximate once a hull was decimated, since
+     * the dropped vertices no longer constrain it
+     */
+    @Test
+    public void testDecimation() {
+        /* Every hypercall is a vertex of the hull */
+        XenClockHull hull = new XenClockHull(HYPERVISOR, DOMAIN);
+        for (int i = 0; i < XenClockHull.MAX_POINTS; i++) {
+            long sent = START + i * PERIOD;
+            hull.addHypercall(sent, toHypervisor(sent) + DELAY + (long) i * i * 10);
+            hull.addReturn(sent + PERIOD / 2, toHypervisor(sent + PERIOD / 2) - DELAY);
+        }
+        assertEquals(Quality.ACCURATE, hull.solve(null).getQuality());
+
+        long sent = START + XenClockHull.MAX_POINTS * PERIOD;
+        hull.addHypercall(sent, toHypervisor(sent) + DELAY + (long) XenClockHull.MAX_POINTS * XenClockHull.MAX_POINTS * 10);
+        XenSyncFormula.Domain domain = hull.solve(null);
+        assertEquals(Quality.APPROXIMATE, domain.getQuality());
+        assertEquals(2 * XenClockHull.MAX_POINTS + 1, domain.getMatches());
+    }
+}
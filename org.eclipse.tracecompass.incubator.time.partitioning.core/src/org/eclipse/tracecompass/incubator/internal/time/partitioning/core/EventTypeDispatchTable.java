@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Dispatch table from event types to the handler of a state provider.
+ *
+ * Handlers are identified by integers chosen by the state provider. The event
+ * type name is resolved only the first time a type instance is seen, after
+ * which the handler is found by identity, so events that are not handled are
+ * rejected without any string comparison.
+ *
+ * This class is not thread safe, it is meant to be used only from the event
+ * handling thread of a state provider.
+ */
+public final class EventTypeDispatchTable {
+
+    /** Handler of the event types that are not in the table */
+    public static final int UNHANDLED = -1;
+
+    /*
+     * Traces are expected to share one event type instance per type. The cache
+     * is bounded in case a trace type creates a new instance per event.
+     */
+    private static final int MAX_CACHED_TYPES = 4096;
+
+    private final Map<String, Integer> fHandlersByName;
+    private final Map<ITmfEventType, Integer> fHandlersByType = new IdentityHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param handlersByName
+     *            The handler of each event type name.
+     */
+    public EventTypeDispatchTable(Map<String, Integer> handlersByName) {
+        fHandlersByName = ImmutableMap.copyOf(handlersByName);
+    }
+
+    /**
+     * Get the handler of an event.
+     *
+     * @param event
+     *            The event to dispatch.
+     * @return The handler of the event type, or {@link #UNHANDLED}.
+     */
+    public int getHandler(ITmfEvent event) {
+        ITmfEventType type = event.getType();
+        Integer handler = fHandlersByType.get(type);
+        if (handler == null) {
+            handler = fHandlersByName.getOrDefault(type.getName(), UNHANDLED);
+            if (fHandlersByType.size() < MAX_CACHED_TYPES) {
+                fHandlersByType.put(type, handler);
+            }
+        }
+        return handler;
+    }
+}
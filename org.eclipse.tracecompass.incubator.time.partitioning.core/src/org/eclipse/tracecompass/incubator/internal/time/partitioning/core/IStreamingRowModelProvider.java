@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphModel;
+import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
+
+/**
+ * A time graph data provider that queries the requested times in
+ * time-ordered chunks, whose size is chosen by the implementation. It checks
+ * the monitor between the chunks, so a stale query is abandoned quickly, and
+ * it can publish the rows of the chunks already queried while it fetches the
+ * next ones.
+ */
+public interface IStreamingRowModelProvider {
+
+    /**
+     * Fetch the rows of the selected entries, publishing the partial rows
+     * after each chunk of requested times.
+     *
+     * @param fetchParameters
+     *            The query parameters, as for
+     *            {@link org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphDataProvider#fetchRowModel(Map, IProgressMonitor)}
+     * @param monitor
+     *            The progress monitor, checked between the chunks.
+     * @param partialModels
+     *            Called, on the fetching thread, with the rows of the requested
+     *            times queried so far when more chunks remain. The states of a
+     *            row are in time order.
+     * @return The response with the complete rows, the status is CANCELLED if
+     *         the monitor was cancelled.
+     */
+    TmfModelResponse<TimeGraphModel> fetchRowModel(Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor, Consumer<TimeGraphModel> partialModels);
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.util.Arrays;
+
+/**
+ * Intervals as growable primitive arrays of their start time, end time and an
+ * integer value, to collect the results of state system queries without a
+ * node and boxing per interval. They are sorted by start time only if they
+ * were not added in order.
+ */
+public final class IntervalArrays {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] fStarts = new long[INITIAL_CAPACITY];
+    private long[] fEnds = new long[INITIAL_CAPACITY];
+    private int[] fValues = new int[INITIAL_CAPACITY];
+    private int fSize = 0;
+    private boolean fSorted = true;
+
+    /**
+     * Add an interval.
+     *
+     * @param start
+     *            The start time.
+     * @param end
+     *            The end time.
+     * @param value
+     *            The value.
+     */
+    public void add(long start, long end, int value) {
+        if (fSize == fStarts.length) {
+            int capacity = fSize * 2;
+            fStarts = Arrays.copyOf(fStarts, capacity);
+            fEnds = Arrays.copyOf(fEnds, capacity);
+            fValues = Arrays.copyOf(fValues, capacity);
+        }
+        if (fSize > 0 && start < fStarts[fSize - 1]) {
+            fSorted = false;
+        }
+        fStarts[fSize] = start;
+        fEnds[fSize] = end;
+        fValues[fSize] = value;
+        fSize++;
+    }
+
+    /**
+     * Remove all the intervals, keeping the capacity for the next ones.
+     */
+    public void clear() {
+        fSize = 0;
+        fSorted = true;
+    }
+
+    /**
+     * @return The number of intervals.
+     */
+    public int size() {
+        return fSize;
+    }
+
+    /**
+     * @param index
+     *            The index of the interval.
+     * @return Its start time.
+     */
+    public long getStart(int index) {
+        return fStarts[index];
+    }
+
+    /**
+     * @param index
+     *            The index of the interval.
+     * @return Its end time.
+     */
+    public long getEnd(int index) {
+        return fEnds[index];
+    }
+
+    /**
+     * @param index
+     *            The index of the interval.
+     * @return Its value.
+     */
+    public int getValue(int index) {
+        return fValues[index];
+    }
+
+    /**
+     * Find the interval containing a time, in O(log n). The intervals must be
+     * sorted and must not overlap.
+     *
+     * @param time
+     *            The time.
+     * @return The index of the interval, or -1 if no interval contains the
+     *         time.
+     */
+    public int indexOf(long time) {
+        int low = 0;
+        int high = fSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (fStarts[mid] > time) {
+                high = mid - 1;
+            } else if (fEnds[mid] < time) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sort the intervals by start time, in place with a heap sort.
+     */
+    public void sort() {
+        if (fSorted) {
+            return;
+        }
+        for (int i = fSize / 2 - 1; i >= 0; i--) {
+            siftDown(i, fSize);
+        }
+        for (int end = fSize - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        fSorted = true;
+    }
+
+    private void siftDown(int index, int size) {
+        int root = index;
+        int child = 2 * root + 1;
+        while (child < size) {
+            if (child + 1 < size && fStarts[child + 1] > fStarts[child]) {
+                child++;
+            }
+            if (fStarts[root] >= fStarts[child]) {
+                return;
+            }
+            swap(root, child);
+            root = child;
+            child = 2 * root + 1;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long start = fStarts[i];
+        fStarts[i] = fStarts[j];
+        fStarts[j] = start;
+        long end = fEnds[i];
+        fEnds[i] = fEnds[j];
+        fEnds[j] = end;
+        int value = fValues[i];
+        fValues[i] = fValues[j];
+        fValues[j] = value;
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.Activator;
+
+/**
+ * Runs the fetches of the data providers of a view concurrently, on a bounded
+ * pool shared by the partition views, so that the latency of a zoom is the one
+ * of the slowest provider rather than their sum.
+ *
+ * The results are applied on the calling thread as each fetch completes, so
+ * the views keep updating their entries from their own zoom or build thread.
+ */
+public final class ParallelFetcher {
+
+    private static final int POOL_SIZE = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /* Time between the checks of the monitor while waiting for a fetch */
+    private static final long CANCEL_POLL_MS = 50;
+
+    private static final ThreadPoolExecutor EXECUTOR;
+    static {
+        AtomicInteger threadNumber = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Partition view fetcher " + threadNumber.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private ParallelFetcher() {
+        // Do nothing
+    }
+
+    /**
+     * Fetch from many sources concurrently and apply the results as they
+     * complete. The fetches should stop by themselves when the monitor is
+     * cancelled; the ones that did not start yet are not run.
+     *
+     * @param sources
+     *            The sources to fetch from, typically data providers.
+     * @param fetcher
+     *            The function fetching the result of a source.
+     * @param consumer
+     *            The function applying a result, called on the calling thread.
+     * @param monitor
+     *            The monitor to cancel the fetches.
+     */
+    public static <S, R> void fetch(Collection<S> sources, Function<S, R> fetcher, BiConsumer<S, R> consumer, IProgressMonitor monitor) {
+        if (sources.size() <= 1) {
+            /* Nothing to run concurrently */
+            for (S source : sources) {
+                if (monitor.isCanceled()) {
+                    return;
+                }
+                consumer.accept(source, fetcher.apply(source));
+            }
+            return;
+        }
+
+        CompletionService<Runnable> completionService = new ExecutorCompletionService<>(EXECUTOR);
+        List<Future<Runnable>> futures = new ArrayList<>(sources.size());
+        for (S source : sources) {
+            futures.add(completionService.submit(() -> {
+                R result = fetcher.apply(source);
+                return () -> consumer.accept(source, result);
+            }));
+        }
+
+        try {
+            int remaining = futures.size();
+            while (remaining > 0) {
+                if (monitor.isCanceled()) {
+                    return;
+                }
+                Future<Runnable> done = completionService.poll(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    continue;
+                }
+                remaining--;
+                try {
+                    done.get().run();
+                } catch (ExecutionException e) {
+                    Activator.getInstance().logError("Failed to fetch from a data provider", e); //$NON-NLS-1$
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<Runnable> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+}
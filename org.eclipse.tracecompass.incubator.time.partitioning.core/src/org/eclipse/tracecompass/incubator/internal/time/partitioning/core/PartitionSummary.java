@@ -0,0 +1,598 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.Activator;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+
+/**
+ * Multi-resolution summary of the partition attributes of an analysis, e.g.
+ * CurrentPartition/CPU* or Partition/CPU*. Each row is cut in buckets of
+ * increasing widths, and each bucket keeps the partition that ran the longest
+ * in it, the number of partition switches and the smallest and largest
+ * deviation from the budget.
+ *
+ * The summary is built once the state system is complete and saved next to
+ * it, so the zoomed-out views are served in a time proportional to their
+ * width in pixels rather than to the number of intervals. The intervals are
+ * streamed into the time spent by each partition in the buckets of the finest
+ * level, and each coarser level is merged from the level below it, so the
+ * build uses a memory proportional to the number of buckets rather than to
+ * the length of the trace.
+ */
+public final class PartitionSummary {
+
+    /**
+     * Value of the buckets in which no partition ran.
+     */
+    public static final int NO_VALUE = -1;
+
+    private static final int MAGIC = 0x50534d59;
+    private static final int FORMAT_VERSION = 2;
+
+    /* Buckets of the finest level, and number of buckets merged per level */
+    private static final int MAX_BUCKETS = 1 << 14;
+    private static final int FANOUT = 4;
+    private static final int MIN_BUCKETS = 16;
+
+    /**
+     * A level of the summary of a row: buckets of the same width from the
+     * start of the state system.
+     */
+    public static final class Level {
+        private final long fStart;
+        private final long fEnd;
+        private final long fBucketWidth;
+        private final int[] fDominants;
+        private final int[] fSwitches;
+        private final long[] fMinDeviations;
+        private final long[] fMaxDeviations;
+
+        private Level(long start, long end, long bucketWidth, int size) {
+            this(start, end, bucketWidth, new int[size], new int[size], new long[size], new long[size]);
+            Arrays.fill(fDominants, NO_VALUE);
+            Arrays.fill(fMinDeviations, Long.MAX_VALUE);
+            Arrays.fill(fMaxDeviations, Long.MIN_VALUE);
+        }
+
+        private Level(long start, long end, long bucketWidth, int[] dominants, int[] switches, long[] minDeviations, long[] maxDeviations) {
+            fStart = start;
+            fEnd = end;
+            fBucketWidth = bucketWidth;
+            fDominants = dominants;
+            fSwitches = switches;
+            fMinDeviations = minDeviations;
+            fMaxDeviations = maxDeviations;
+        }
+
+        /**
+         * @return The duration of the buckets.
+         */
+        public long getBucketWidth() {
+            return fBucketWidth;
+        }
+
+        /**
+         * @return The number of buckets.
+         */
+        public int size() {
+            return fDominants.length;
+        }
+
+        /**
+         * @param time
+         *            The time.
+         * @return The index of the bucket containing the time, or -1 if it
+         *         is outside the state system.
+         */
+        public int indexOf(long time) {
+            if (time < fStart || time > fEnd) {
+                return -1;
+            }
+            return (int) Math.min((time - fStart) / fBucketWidth, fDominants.length - 1);
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return Its start time.
+         */
+        public long getBucketStart(int index) {
+            return fStart + index * fBucketWidth;
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return Its end time, inclusive.
+         */
+        public long getBucketEnd(int index) {
+            return Math.min(fEnd, getBucketStart(index) + fBucketWidth - 1);
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return The partition that ran the longest in the bucket, or
+         *         {@link #NO_VALUE}.
+         */
+        public int getDominant(int index) {
+            return fDominants[index];
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return The number of partition switches in the bucket.
+         */
+        public int getSwitchCount(int index) {
+            return fSwitches[index];
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return Whether a deviation from the budget is known in the bucket.
+         */
+        public boolean hasDeviation(int index) {
+            return fMinDeviations[index] <= fMaxDeviations[index];
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return The smallest deviation from the budget in the bucket.
+         */
+        public long getMinDeviation(int index) {
+            return fMinDeviations[index];
+        }
+
+        /**
+         * @param index
+         *            The index of the bucket.
+         * @return The largest deviation from the budget in the bucket.
+         */
+        public long getMaxDeviation(int index) {
+            return fMaxDeviations[index];
+        }
+
+        /**
+         * Find the end of a run of buckets with the same dominant partition,
+         * to show them as a single state.
+         *
+         * @param first
+         *            The index of the first bucket of the run.
+         * @param last
+         *            The index of the last bucket to consider.
+         * @return The index of the last bucket of the run.
+         */
+        public int getRunEnd(int first, int last) {
+            int index = first;
+            while (index < last && fDominants[index + 1] == fDominants[first]) {
+                index++;
+            }
+            return index;
+        }
+
+        private int bucketOf(long time) {
+            return (int) Math.max(0, Math.min((time - fStart) / fBucketWidth, fDominants.length - 1));
+        }
+
+        private void addSwitch(long time) {
+            fSwitches[bucketOf(time)]++;
+        }
+
+        private void addDeviation(long start, long end, long deviation) {
+            for (int i = bucketOf(start); i <= bucketOf(end); i++) {
+                fMinDeviations[i] = Math.min(fMinDeviations[i], deviation);
+                fMaxDeviations[i] = Math.max(fMaxDeviations[i], deviation);
+            }
+        }
+
+        /**
+         * Add the time spent by a partition in the buckets of this level.
+         */
+        private void addDuration(BucketTotals totals, long start, long end, int value) {
+            for (int bucket = bucketOf(start); bucket <= bucketOf(end); bucket++) {
+                long duration = Math.min(end, getBucketEnd(bucket)) - Math.max(start, getBucketStart(bucket)) + 1;
+                if (duration > 0) {
+                    totals.add(bucket, value, duration);
+                }
+            }
+        }
+
+        /**
+         * Create the next coarser level, each of its buckets merging
+         * {@link #FANOUT} buckets of this level.
+         */
+        private Level merge() {
+            Level coarser = new Level(fStart, fEnd, fBucketWidth * FANOUT, (size() + FANOUT - 1) / FANOUT);
+            for (int i = 0; i < size(); i++) {
+                int bucket = i / FANOUT;
+                coarser.fSwitches[bucket] += fSwitches[i];
+                coarser.fMinDeviations[bucket] = Math.min(coarser.fMinDeviations[bucket], fMinDeviations[i]);
+                coarser.fMaxDeviations[bucket] = Math.max(coarser.fMaxDeviations[bucket], fMaxDeviations[i]);
+            }
+            return coarser;
+        }
+
+        private void setDominants(BucketTotals totals) {
+            for (int i = 0; i < size(); i++) {
+                fDominants[i] = totals.getDominant(i);
+            }
+        }
+    }
+
+    /**
+     * Time spent by each partition in the buckets of a level, kept only while
+     * the summary is built. A bucket holds few partitions, they are searched
+     * linearly.
+     */
+    private static final class BucketTotals {
+        private final int[][] fValues;
+        private final long[][] fDurations;
+        private final int[] fCounts;
+
+        private BucketTotals(int size) {
+            fValues = new int[size][];
+            fDurations = new long[size][];
+            fCounts = new int[size];
+        }
+
+        private void add(int bucket, int value, long duration) {
+            int count = fCounts[bucket];
+            int[] values = fValues[bucket];
+            int slot = 0;
+            while (slot < count && values[slot] != value) {
+                slot++;
+            }
+            if (slot == count) {
+                if (count == 0) {
+                    fValues[bucket] = new int[2];
+                    fDurations[bucket] = new long[2];
+                } else if (count == values.length) {
+                    fValues[bucket] = Arrays.copyOf(values, count * 2);
+                    fDurations[bucket] = Arrays.copyOf(fDurations[bucket], count * 2);
+                }
+                fValues[bucket][slot] = value;
+                fCounts[bucket]++;
+            }
+            fDurations[bucket][slot] += duration;
+        }
+
+        /**
+         * Merge the totals of {@link #FANOUT} buckets into each bucket of the
+         * next coarser level.
+         */
+        private BucketTotals merge() {
+            BucketTotals merged = new BucketTotals((fCounts.length + FANOUT - 1) / FANOUT);
+            for (int i = 0; i < fCounts.length; i++) {
+                for (int slot = 0; slot < fCounts[i]; slot++) {
+                    merged.add(i / FANOUT, fValues[i][slot], fDurations[i][slot]);
+                }
+            }
+            return merged;
+        }
+
+        /**
+         * @return The partition that ran the longest in the bucket, the
+         *         smallest value on a tie, or {@link #NO_VALUE}
+         */
+        private int getDominant(int bucket) {
+            int dominant = NO_VALUE;
+            long longest = -1;
+            for (int slot = 0; slot < fCounts[bucket]; slot++) {
+                int value = fValues[bucket][slot];
+                long duration = fDurations[bucket][slot];
+                if (duration > longest || (duration == longest && value < dominant)) {
+                    longest = duration;
+                    dominant = value;
+                }
+            }
+            return dominant;
+        }
+    }
+
+    private final long fStart;
+    private final long fEnd;
+    private final Map<String, Level[]> fRows;
+    private final List<String> fNames;
+
+    private PartitionSummary(long start, long end, Map<String, Level[]> rows, List<String> names) {
+        fStart = start;
+        fEnd = end;
+        fRows = rows;
+        fNames = names;
+    }
+
+    /**
+     * Get the level to draw a row at a resolution: the coarsest one whose
+     * buckets are not wider than the resolution.
+     *
+     * @param row
+     *            The name of the row attribute, e.g. CPU0.
+     * @param resolution
+     *            The duration of a pixel.
+     * @return The level, or null if the resolution is finer than the summary
+     *         or the row is not summarized.
+     */
+    public @Nullable Level getLevel(String row, long resolution) {
+        Level[] levels = fRows.get(row);
+        if (levels == null || levels.length == 0 || levels[0].getBucketWidth() > resolution) {
+            return null;
+        }
+        int index = 0;
+        while (index + 1 < levels.length && levels[index + 1].getBucketWidth() <= resolution) {
+            index++;
+        }
+        return levels[index];
+    }
+
+    /**
+     * Get the name of a partition of the summary of an attribute with string
+     * values. The partitions of integer attributes are their own value.
+     *
+     * @param value
+     *            The value of a bucket.
+     * @return The name of the partition, or null if the value is not a name.
+     */
+    public @Nullable String getName(int value) {
+        return (value >= 0 && value < fNames.size()) ? fNames.get(value) : null;
+    }
+
+    /**
+     * Get the stamp of the sources of a state system: the version of its state
+     * provider and the size and modification time of its files, typically the
+     * state history file and the configuration files of the provider. The
+     * state history is written again when the analysis is rebuilt, so a
+     * summary of the previous build is not reused.
+     *
+     * @param providerVersion
+     *            The version of the state provider.
+     * @param sources
+     *            The files the state system is built from or saved to.
+     * @return The stamp.
+     */
+    public static long getStamp(int providerVersion, @Nullable File... sources) {
+        long stamp = providerVersion;
+        for (File source : sources) {
+            stamp = 31 * stamp + ((source == null) ? 0 : source.length());
+            stamp = 31 * stamp + ((source == null) ? 0 : source.lastModified());
+        }
+        return stamp;
+    }
+
+    /**
+     * Load the summary of an analysis, or build and save it if there is none
+     * for this state system.
+     *
+     * @param ss
+     *            The state system, completely built.
+     * @param file
+     *            The file of the summary.
+     * @param stamp
+     *            The stamp of the sources of the state system, see
+     *            {@link #getStamp(int, File...)}. A saved summary with another
+     *            stamp is built again.
+     * @param rowQuarks
+     *            The quarks of the partition attributes to summarize.
+     * @param deviationQuarks
+     *            The quarks of the deviations from the budget of the rows, by
+     *            row quark, if any.
+     * @param monitor
+     *            The monitor to cancel the build.
+     * @return The summary, or null if the build was cancelled or failed.
+     */
+    public static @Nullable PartitionSummary loadOrBuild(ITmfStateSystem ss, File file, long stamp, Collection<Integer> rowQuarks,
+            Map<Integer, Integer> deviationQuarks, @Nullable IProgressMonitor monitor) {
+        List<String> rows = new ArrayList<>();
+        for (Integer quark : rowQuarks) {
+            rows.add(ss.getAttributeName(quark));
+        }
+        if (file.exists()) {
+            PartitionSummary summary = read(file, ss.getStartTime(), ss.getCurrentEndTime(), stamp);
+            if (summary != null && summary.fRows.keySet().containsAll(rows)) {
+                return summary;
+            }
+        }
+        try {
+            PartitionSummary summary = build(ss, rowQuarks, deviationQuarks, monitor);
+            if (summary != null) {
+                summary.write(file, stamp);
+            }
+            return summary;
+        } catch (StateSystemDisposedException e) {
+            return null;
+        } catch (IOException e) {
+            Activator.getInstance().logError("Failed to save the partition summary", e); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    private static @Nullable PartitionSummary build(ITmfStateSystem ss, Collection<Integer> rowQuarks, Map<Integer, Integer> deviationQuarks,
+            @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        long start = ss.getStartTime();
+        long end = ss.getCurrentEndTime();
+        Map<String, Level[]> rows = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        if (rowQuarks.isEmpty() || end < start) {
+            return new PartitionSummary(start, end, rows, names);
+        }
+
+        /* Finest level of each row, indexed by the row and deviation quarks */
+        long width = Math.max(1, (end - start + MAX_BUCKETS) / MAX_BUCKETS);
+        int size = (int) ((end - start + width) / width);
+        Map<Integer, Level> finestByQuark = new HashMap<>();
+        Map<Integer, BucketTotals> totalsByQuark = new HashMap<>();
+        List<Integer> quarks = new ArrayList<>(rowQuarks);
+        for (Integer quark : rowQuarks) {
+            Level finest = new Level(start, end, width, size);
+            finestByQuark.put(quark, finest);
+            totalsByQuark.put(quark, new BucketTotals(size));
+            Integer deviationQuark = deviationQuarks.get(quark);
+            if (deviationQuark != null) {
+                finestByQuark.put(deviationQuark, finest);
+                quarks.add(deviationQuark);
+            }
+        }
+
+        /* The totals do not depend on the order of the intervals */
+        Map<String, Integer> nameValues = new HashMap<>();
+        for (ITmfStateInterval interval : ss.query2D(quarks, start, end)) {
+            if (monitor != null && monitor.isCanceled()) {
+                return null;
+            }
+            int quark = interval.getAttribute();
+            Object value = interval.getValue();
+            Level finest = finestByQuark.get(quark);
+            BucketTotals totals = totalsByQuark.get(quark);
+            if (finest == null || value == null) {
+                continue;
+            }
+            if (totals == null) {
+                if (value instanceof Long) {
+                    finest.addDeviation(interval.getStartTime(), interval.getEndTime(), (Long) value);
+                }
+                continue;
+            }
+            int rowValue;
+            if (value instanceof Integer) {
+                rowValue = (Integer) value;
+            } else if (value instanceof String) {
+                rowValue = nameValues.computeIfAbsent((String) value, name -> {
+                    names.add(name);
+                    return names.size() - 1;
+                });
+            } else {
+                continue;
+            }
+            finest.addDuration(totals, interval.getStartTime(), interval.getEndTime(), rowValue);
+            finest.addSwitch(interval.getStartTime());
+        }
+
+        /* Merge each level from the one below it */
+        for (Integer quark : rowQuarks) {
+            Level level = finestByQuark.get(quark);
+            BucketTotals totals = totalsByQuark.get(quark);
+            if (level == null || totals == null) {
+                continue;
+            }
+            List<Level> levels = new ArrayList<>();
+            while (true) {
+                level.setDominants(totals);
+                levels.add(level);
+                if (level.size() <= MIN_BUCKETS || level.getBucketWidth() > Long.MAX_VALUE / FANOUT) {
+                    break;
+                }
+                level = level.merge();
+                totals = totals.merge();
+            }
+            rows.put(ss.getAttributeName(quark), levels.toArray(new Level[levels.size()]));
+        }
+        return new PartitionSummary(start, end, rows, names);
+    }
+
+    // ------------------------------------------------------------------------
+    // Persistence
+    // ------------------------------------------------------------------------
+
+    private void write(File file, long stamp) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(stamp);
+            out.writeLong(fStart);
+            out.writeLong(fEnd);
+            out.writeInt(fNames.size());
+            for (String name : fNames) {
+                out.writeUTF(name);
+            }
+            out.writeInt(fRows.size());
+            for (Map.Entry<String, Level[]> row : fRows.entrySet()) {
+                out.writeUTF(row.getKey());
+                out.writeInt(row.getValue().length);
+                for (Level level : row.getValue()) {
+                    out.writeLong(level.fBucketWidth);
+                    out.writeInt(level.size());
+                    for (int i = 0; i < level.size(); i++) {
+                        out.writeInt(level.fDominants[i]);
+                        out.writeInt(level.fSwitches[i]);
+                        out.writeLong(level.fMinDeviations[i]);
+                        out.writeLong(level.fMaxDeviations[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a saved summary, if it was built for a state system with the same
+     * sources and time range.
+     */
+    private static @Nullable PartitionSummary read(File file, long start, long end, long stamp) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != stamp
+                    || in.readLong() != start || in.readLong() != end) {
+                return null;
+            }
+            int nameCount = in.readInt();
+            List<String> names = new ArrayList<>(nameCount);
+            for (int i = 0; i < nameCount; i++) {
+                names.add(in.readUTF());
+            }
+            int rowCount = in.readInt();
+            Map<String, Level[]> rows = new LinkedHashMap<>();
+            for (int i = 0; i < rowCount; i++) {
+                String row = in.readUTF();
+                Level[] levels = new Level[in.readInt()];
+                for (int l = 0; l < levels.length; l++) {
+                    long width = in.readLong();
+                    int size = in.readInt();
+                    int[] dominants = new int[size];
+                    int[] switches = new int[size];
+                    long[] minDeviations = new long[size];
+                    long[] maxDeviations = new long[size];
+                    for (int b = 0; b < size; b++) {
+                        dominants[b] = in.readInt();
+                        switches[b] = in.readInt();
+                        minDeviations[b] = in.readLong();
+                        maxDeviations[b] = in.readLong();
+                    }
+                    levels[l] = new Level(start, end, width, dominants, switches, minDeviations, maxDeviations);
+                }
+                rows.put(row, levels);
+            }
+            return new PartitionSummary(start, end, rows, names);
+        } catch (IOException e) {
+            /* A truncated or older file is built again */
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Bounded LRU cache of the responses of a data provider, for the views that
+ * request the same windows again while navigating.
+ *
+ * The responses are only valid for the state system they were computed from:
+ * the cache is cleared when a different state system is given, i.e. when the
+ * analysis was rebuilt. Callers should only store responses computed from a
+ * completed state system.
+ *
+ * @param <V>
+ *            The type of the responses.
+ */
+public final class ResponseCache<V> {
+
+    /**
+     * Key of a response, made of the requested entries, the sample times,
+     * which give the time range and the resolution, and the regex filters.
+     */
+    public static final class Key {
+        private final long[] fIds;
+        private final long[] fTimes;
+        private final Multimap<Integer, String> fRegexes;
+        private final int fHashCode;
+
+        /**
+         * Constructor
+         *
+         * @param ids
+         *            The requested entry IDs, in any order.
+         * @param times
+         *            The requested sample times.
+         * @param regexes
+         *            The regex filters of the request, or null.
+         */
+        public Key(Collection<Long> ids, long[] times, @Nullable Multimap<Integer, String> regexes) {
+            long[] sortedIds = new long[ids.size()];
+            int i = 0;
+            for (Long id : ids) {
+                sortedIds[i++] = id;
+            }
+            Arrays.sort(sortedIds);
+            fIds = sortedIds;
+            fTimes = times.clone();
+            fRegexes = (regexes == null) ? ImmutableSetMultimap.of() : ImmutableSetMultimap.copyOf(regexes);
+            fHashCode = Objects.hash(Arrays.hashCode(fIds), Arrays.hashCode(fTimes), fRegexes);
+        }
+
+        @Override
+        public int hashCode() {
+            return fHashCode;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return fHashCode == other.fHashCode
+                    && Arrays.equals(fIds, other.fIds)
+                    && Arrays.equals(fTimes, other.fTimes)
+                    && fRegexes.equals(other.fRegexes);
+        }
+    }
+
+    private final Map<Key, V> fResponses;
+    private @Nullable ITmfStateSystem fStateSystem = null;
+
+    /**
+     * Constructor
+     *
+     * @param capacity
+     *            The maximum number of responses kept.
+     */
+    public ResponseCache(int capacity) {
+        fResponses = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.@Nullable Entry<Key, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get a cached response.
+     *
+     * @param ss
+     *            The state system the response is queried from.
+     * @param key
+     *            The key of the request.
+     * @return The response, or null if it is not cached.
+     */
+    public synchronized @Nullable V get(ITmfStateSystem ss, Key key) {
+        return (ss == fStateSystem) ? fResponses.get(key) : null;
+    }
+
+    /**
+     * Cache a response, evicting the least recently used one if the cache is
+     * full.
+     *
+     * @param ss
+     *            The completed state system the response was computed from.
+     * @param key
+     *            The key of the request.
+     * @param response
+     *            The response.
+     */
+    public synchronized void put(ITmfStateSystem ss, Key key, V response) {
+        if (ss != fStateSystem) {
+            fResponses.clear();
+            fStateSystem = ss;
+        }
+        fResponses.put(key, response);
+    }
+
+    /**
+     * Remove all the cached responses.
+     */
+    public synchronized void clear() {
+        fResponses.clear();
+        fStateSystem = null;
+    }
+}
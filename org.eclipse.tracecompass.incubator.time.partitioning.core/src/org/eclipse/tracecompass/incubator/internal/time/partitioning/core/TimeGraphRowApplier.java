@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphDataProvider;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphRowModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphEntryModel;
+import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.ITimeEvent;
+import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.TimeGraphEntry;
+import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.TimeGraphEntry.Sampling;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Applies the rows fetched by the partition views with
+ * {@link ParallelFetcher} to their entries, the partial rows of an
+ * {@link IStreamingRowModelProvider} as well as the complete ones.
+ *
+ * The view gives the lock of its entry table, the factory of its time events
+ * and the way it applies results to the UI, which are protected members of
+ * the time graph views.
+ */
+public final class TimeGraphRowApplier {
+
+    private final Object fLock;
+    private final BiFunction<TimeGraphEntry, List<ITimeGraphState>, List<ITimeEvent>> fEventFactory;
+    private final Consumer<Runnable> fResultApplier;
+
+    /**
+     * Constructor
+     *
+     * @param lock
+     *            The lock of the entry table of the view.
+     * @param eventFactory
+     *            Creates the time events of an entry from its states.
+     * @param resultApplier
+     *            Applies a result to the view from the zoom thread.
+     */
+    public TimeGraphRowApplier(Object lock, BiFunction<TimeGraphEntry, List<ITimeGraphState>, List<ITimeEvent>> eventFactory, Consumer<Runnable> resultApplier) {
+        fLock = lock;
+        fEventFactory = eventFactory;
+        fResultApplier = resultApplier;
+    }
+
+    /**
+     * Apply the complete rows of a provider to its entries.
+     *
+     * @param map
+     *            The entries of the provider, by model ID.
+     * @param model
+     *            The rows.
+     * @param isZoomThread
+     *            Whether the rows are applied from the zoom thread, which
+     *            sets the zoomed event lists, rather than the build thread.
+     * @param completed
+     *            Whether the rows are complete, so the sampling of the entries
+     *            is updated.
+     * @param sampling
+     *            The sampling of the rows.
+     */
+    public void applyRows(Map<Long, TimeGraphEntry> map, List<ITimeGraphRowModel> model, boolean isZoomThread, boolean completed, Sampling sampling) {
+        for (ITimeGraphRowModel rowModel : model) {
+            TimeGraphEntry entry;
+            synchronized (fLock) {
+                entry = map.get(rowModel.getEntryID());
+            }
+
+            if (entry != null) {
+                List<ITimeEvent> events = fEventFactory.apply(entry, rowModel.getStates());
+                if (isZoomThread) {
+                    fResultApplier.accept(() -> {
+                        entry.setZoomedEventList(events);
+                        if (completed) {
+                            entry.setSampling(sampling);
+                        }
+                    });
+                } else {
+                    entry.setEventList(events);
+                }
+            }
+        }
+    }
+
+    /**
+     * Show the rows of the chunks already fetched, called from the fetching
+     * thread while the zoom thread waits for the complete rows.
+     *
+     * @param map
+     *            The entries of the provider, by model ID.
+     * @param model
+     *            The rows fetched so far.
+     * @param monitor
+     *            The monitor of the zoom.
+     */
+    public void applyPartialRows(Map<Long, TimeGraphEntry> map, List<ITimeGraphRowModel> model, IProgressMonitor monitor) {
+        for (ITimeGraphRowModel rowModel : model) {
+            if (monitor.isCanceled()) {
+                return;
+            }
+            TimeGraphEntry entry;
+            synchronized (fLock) {
+                entry = map.get(rowModel.getEntryID());
+            }
+            if (entry != null) {
+                List<ITimeEvent> events = fEventFactory.apply(entry, rowModel.getStates());
+                fResultApplier.accept(() -> entry.setZoomedEventList(events));
+            }
+        }
+    }
+
+    /**
+     * Filter the entries to return only the Non Null {@link TimeGraphEntry}
+     * which intersect the time range.
+     *
+     * @param visible
+     *            the input list of visible entries
+     * @param zoomStartTime
+     *            the leftmost time bound of the view
+     * @param zoomEndTime
+     *            the rightmost time bound of the view
+     * @param providers
+     *            Gives the data provider of an entry.
+     * @param alwaysFetched
+     *            Whether the row of an entry is fetched even if it does not
+     *            intersect the time range.
+     * @return A Multimap of data providers to their visible entries' model IDs.
+     */
+    public static Multimap<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Long> filterGroupEntries(Iterable<TimeGraphEntry> visible,
+            long zoomStartTime, long zoomEndTime, Function<TimeGraphEntry, @Nullable ITimeGraphDataProvider<? extends TimeGraphEntryModel>> providers,
+            Predicate<TimeGraphEntry> alwaysFetched) {
+        Multimap<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Long> providersToModelIds = HashMultimap.create();
+        for (TimeGraphEntry entry : visible) {
+            if ((zoomStartTime <= entry.getEndTime() && zoomEndTime >= entry.getStartTime() && entry.hasTimeEvents()) || alwaysFetched.test(entry)) {
+                ITimeGraphDataProvider<? extends TimeGraphEntryModel> provider = providers.apply(entry);
+                if (provider != null) {
+                    providersToModelIds.put(provider, entry.getModel().getId());
+                }
+            }
+        }
+        return providersToModelIds;
+    }
+}
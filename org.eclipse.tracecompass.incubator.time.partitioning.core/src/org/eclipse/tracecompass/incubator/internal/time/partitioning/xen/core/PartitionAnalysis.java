@@ -2,10 +2,19 @@ package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
+import java.io.File;
+import java.util.Collections;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.PartitionSummary;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.TmfStateSystemAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
  *
@@ -18,9 +27,38 @@ public class PartitionAnalysis extends TmfStateSystemAnalysisModule {
      */
     public static final @NonNull String ID = "org.eclipse.tracecompass.incubator.internal.time.partitioning.core.PartitionAnalysis"; //$NON-NLS-1$
 
+    private static final String SUMMARY_FILE_EXTENSION = ".summary"; //$NON-NLS-1$
+
+    private volatile @Nullable PartitionSummary fPartitionSummary = null;
+
     @Override
     protected ITmfStateProvider createStateProvider() {
         ITmfTrace trace = checkNotNull(getTrace());
         return new PartitionStateProvider(trace);
     }
+
+    @Override
+    protected boolean executeAnalysis(@Nullable IProgressMonitor monitor) throws TmfAnalysisException {
+        boolean built = super.executeAnalysis(monitor);
+        ITmfStateSystem ss = getStateSystem();
+        ITmfTrace trace = getTrace();
+        if (!built || ss == null || trace == null) {
+            return built;
+        }
+
+        /* Summarize the running partitions for the zoomed-out views */
+        String directory = TmfTraceManager.getSupplementaryFileDir(trace);
+        File file = new File(directory + getId() + SUMMARY_FILE_EXTENSION);
+        long stamp = PartitionSummary.getStamp(PartitionStateProvider.VERSION, new File(directory + getSsFileName()));
+        fPartitionSummary = PartitionSummary.loadOrBuild(ss, file, stamp, ss.getQuarks(XenAttributes.PARTITION, "*"), Collections.emptyMap(), monitor); //$NON-NLS-1$
+        return built;
+    }
+
+    /**
+     * @return The summary of the Partition/CPU* attributes, or null until the
+     *         analysis and its summary are complete.
+     */
+    public @Nullable PartitionSummary getPartitionSummary() {
+        return fPartitionSummary;
+    }
 }
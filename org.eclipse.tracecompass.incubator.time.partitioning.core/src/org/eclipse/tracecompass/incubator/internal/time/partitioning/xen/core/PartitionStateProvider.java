@@ -1,14 +1,23 @@
 package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
 
+import java.util.Arrays;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.EventTypeDispatchTable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
 import org.eclipse.tracecompass.tmf.core.event.aspect.TmfCpuAspect;
 import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
-import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
+import org.eclipse.tracecompass.tmf.ctf.core.event.CtfTmfEvent;
+
+import com.google.common.collect.ImmutableMap;
 
 /**
  *
@@ -17,6 +26,56 @@ import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
  */
 public class PartitionStateProvider extends AbstractTmfStateProvider {
 
+    /* Version of the state system, bumped when its attributes change */
+    static final int VERSION = 2;
+
+    /* Event handlers, see eventHandle */
+    private static final int HANDLER_INFNEXT = 0;
+    private static final int HANDLER_INFPREV = 1;
+    private static final int HANDLER_INFCONT = 2;
+    private static final int HANDLER_RUNNING_TO_RUNNABLE = 3;
+    private static final int HANDLER_RUNNABLE_TO_RUNNING = 4;
+    private static final int HANDLER_RUNNING_TO_BLOCKED = 5;
+    private static final int HANDLER_BLOCKED_TO_RUNNABLE = 6;
+
+    private static final Map<String, Integer> HANDLERS = ImmutableMap.<String, Integer> builder()
+            .put(XenEventNames.SWITCH_INFNEXT, HANDLER_INFNEXT)
+            .put(XenEventNames.SWITCH_INFPREV, HANDLER_INFPREV)
+            .put(XenEventNames.SWITCH_INFCONT, HANDLER_INFCONT)
+            .put(XenEventNames.RUNNING_TO_RUNNABLE, HANDLER_RUNNING_TO_RUNNABLE)
+            .put(XenEventNames.RUNNABLE_TO_RUNNING, HANDLER_RUNNABLE_TO_RUNNING)
+            .put(XenEventNames.RUNNING_TO_BLOCKED, HANDLER_RUNNING_TO_BLOCKED)
+            .put(XenEventNames.BLOCKED_TO_RUNNABLE, HANDLER_BLOCKED_TO_RUNNABLE)
+            .build();
+
+    private static final int NO_QUARK = ITmfStateSystem.INVALID_ATTRIBUTE;
+    private static final int UNKNOWN_CPU = -1;
+
+    /* Values of the Domain/<dom> attributes */
+    private static final Integer DOMAIN_RUNNING = 1;
+    private static final Integer DOMAIN_STOPPED = 0;
+
+    /* Values of the Domain/<dom>/vCPU/<n> attributes */
+    private static final Integer VCPU_RUNNING = XenAttributes.VCPU_RUNNING;
+    private static final Integer VCPU_RUNNABLE = XenAttributes.VCPU_RUNNABLE;
+    private static final Integer VCPU_BLOCKED = XenAttributes.VCPU_BLOCKED;
+
+    private final EventTypeDispatchTable fDispatchTable = new EventTypeDispatchTable(HANDLERS);
+
+    /* CPU aspect of the trace, for the events that are not CTF events */
+    private @Nullable TmfCpuAspect fCpuAspect = null;
+    private boolean fCpuAspectResolved = false;
+
+    /* Quarks of Partition/CPU<n>, indexed by CPU */
+    private int[] fCpuQuarks = new int[0];
+
+    /* Quarks of Domain/<dom> and the state value of each domain, indexed by domain */
+    private int[] fDomainQuarks = new int[0];
+    private Integer[] fDomainValues = new Integer[0];
+
+    /* Quarks of Domain/<dom>/vCPU/<n>, indexed by domain then vCPU */
+    private int[][] fVcpuQuarks = new int[0][];
+
     /**
      *
      * @param trace The trace
@@ -27,7 +86,7 @@ public class PartitionStateProvider extends AbstractTmfStateProvider {
 
     @Override
     public int getVersion() {
-        return 0;
+        return VERSION;
     }
 
     @Override
@@ -37,58 +96,158 @@ public class PartitionStateProvider extends AbstractTmfStateProvider {
 
     @Override
     protected void eventHandle(ITmfEvent event) {
-        final ITmfStateSystemBuilder ss = NonNullUtils.checkNotNull(getStateSystemBuilder());
-        String name = event.getName();
-        if (name.equals("switch_infnext")) { //$NON-NLS-1$
-            handle_infnext(event, ss);
-        } else if (name.equals("switch_infprev")) { //$NON-NLS-1$
-            handle_infprev(event ,ss);
-        } else if (name.equals("switch_infcont")) { //$NON-NLS-1$
-            handle_infcont(event ,ss);
+        int handler = fDispatchTable.getHandler(event);
+        if (handler == EventTypeDispatchTable.UNHANDLED) {
+            return;
         }
-    }
 
-    private static void handle_infcont(ITmfEvent event, ITmfStateSystemBuilder ss) {
-        ITmfEventField content = event.getContent();
-        Integer dom = content.getFieldValue(Integer.class, "dom"); //$NON-NLS-1$
-        // Integer vpcu = content.getFieldValue(Integer.class, "vcpu");
-
-        Integer cpu = TmfTraceUtils.resolveIntEventAspectOfClassForEvent(event.getTrace(), TmfCpuAspect.class, event);
-
-        int pQuark = ss.getQuarkAbsoluteAndAdd("Partition", "CPU" + String.valueOf(cpu)); //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), dom, pQuark);
+        int domain = getIntField(event, XenEventNames.DOM_FIELD);
+        if (domain < 0) {
+            return;
+        }
 
-        pQuark = ss.getQuarkAbsoluteAndAdd("Domain", String.valueOf(dom)); //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), 1, pQuark);
-        /*pQuark = ss.getQuarkAbsoluteAndAdd("Partition");  //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), dom, pQuark); */
+        final ITmfStateSystemBuilder ss = NonNullUtils.checkNotNull(getStateSystemBuilder());
+        long ts = event.getTimestamp().toNanos();
+        switch (handler) {
+            case HANDLER_INFNEXT:
+            case HANDLER_INFCONT: {
+                /* The domain is scheduled in, or keeps running, on the CPU */
+                int cpu = getCpu(event);
+                if (cpu != UNKNOWN_CPU) {
+                    ss.modifyAttribute(ts, getDomainValue(domain), getCpuQuark(ss, cpu));
+                }
+                ss.modifyAttribute(ts, DOMAIN_RUNNING, getDomainQuark(ss, domain));
+                break;
+            }
+            case HANDLER_INFPREV: {
+                int cpu = getCpu(event);
+                if (cpu != UNKNOWN_CPU) {
+                    ss.modifyAttribute(ts, DOMAIN_STOPPED, getCpuQuark(ss, cpu));
+                }
+                ss.modifyAttribute(ts, DOMAIN_STOPPED, getDomainQuark(ss, domain));
+                break;
+            }
+            case HANDLER_RUNNABLE_TO_RUNNING:
+                setVcpuState(ss, event, ts, domain, VCPU_RUNNING);
+                break;
+            case HANDLER_RUNNING_TO_RUNNABLE:
+            case HANDLER_BLOCKED_TO_RUNNABLE:
+                setVcpuState(ss, event, ts, domain, VCPU_RUNNABLE);
+                break;
+            case HANDLER_RUNNING_TO_BLOCKED:
+                setVcpuState(ss, event, ts, domain, VCPU_BLOCKED);
+                break;
+            default:
+                break;
+        }
     }
 
-    private static void handle_infprev(ITmfEvent event, ITmfStateSystemBuilder ss) {
-        ITmfEventField content = event.getContent();
-        Integer dom = content.getFieldValue(Integer.class, "dom"); //$NON-NLS-1$
-        // Integer vpcu = content.getFieldValue(Integer.class, "vcpu");
-        Integer cpu = TmfTraceUtils.resolveIntEventAspectOfClassForEvent(event.getTrace(), TmfCpuAspect.class, event);
+    private void setVcpuState(ITmfStateSystemBuilder ss, ITmfEvent event, long ts, int domain, Integer state) {
+        int vcpu = getIntField(event, XenEventNames.VCPU_FIELD);
+        if (vcpu >= 0) {
+            ss.modifyAttribute(ts, state, getVcpuQuark(ss, domain, vcpu));
+        }
+    }
 
-        int pQuark = ss.getQuarkAbsoluteAndAdd("Partition", "CPU" + String.valueOf(cpu)); //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), 0, pQuark);
+    /**
+     * Get an integer field of the event, whatever its width in the converted
+     * trace.
+     *
+     * @return The value, or -1 if the event has no such field.
+     */
+    private static int getIntField(ITmfEvent event, String name) {
+        ITmfEventField field = event.getContent().getField(name);
+        Object value = (field == null) ? null : field.getValue();
+        return (value instanceof Number) ? ((Number) value).intValue() : -1;
+    }
 
-        pQuark = ss.getQuarkAbsoluteAndAdd("Domain", String.valueOf(dom)); //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), 0, pQuark);
+    /**
+     * Get the CPU of an event, from the packet context of CTF events, or from
+     * the CPU aspect of the trace, looked up once, for the other events.
+     */
+    private int getCpu(ITmfEvent event) {
+        if (event instanceof CtfTmfEvent) {
+            int cpu = ((CtfTmfEvent) event).getCPU();
+            if (cpu >= 0) {
+                return cpu;
+            }
+        }
+        if (!fCpuAspectResolved) {
+            fCpuAspectResolved = true;
+            for (ITmfEventAspect<?> aspect : event.getTrace().getEventAspects()) {
+                if (aspect instanceof TmfCpuAspect) {
+                    fCpuAspect = (TmfCpuAspect) aspect;
+                    break;
+                }
+            }
+        }
+        TmfCpuAspect aspect = fCpuAspect;
+        Integer cpu = (aspect == null) ? null : aspect.resolve(event);
+        return (cpu == null || cpu < 0) ? UNKNOWN_CPU : cpu;
     }
 
-    private static void handle_infnext(ITmfEvent event, ITmfStateSystemBuilder ss) {
-        ITmfEventField content = event.getContent();
-        Integer dom = content.getFieldValue(Integer.class, "dom"); //$NON-NLS-1$
-        // Integer vpcu = content.getFieldValue(Integer.class, "vcpu");
+    private int getCpuQuark(ITmfStateSystemBuilder ss, int cpu) {
+        fCpuQuarks = ensureCapacity(fCpuQuarks, cpu);
+        int quark = fCpuQuarks[cpu];
+        if (quark == NO_QUARK) {
+            quark = ss.getQuarkAbsoluteAndAdd(XenAttributes.PARTITION, XenAttributes.CPU_PREFIX + cpu);
+            fCpuQuarks[cpu] = quark;
+        }
+        return quark;
+    }
 
-        Integer cpu = TmfTraceUtils.resolveIntEventAspectOfClassForEvent(event.getTrace(), TmfCpuAspect.class, event);
+    private int getDomainQuark(ITmfStateSystemBuilder ss, int domain) {
+        fDomainQuarks = ensureCapacity(fDomainQuarks, domain);
+        int quark = fDomainQuarks[domain];
+        if (quark == NO_QUARK) {
+            quark = ss.getQuarkAbsoluteAndAdd(XenAttributes.DOMAIN, String.valueOf(domain));
+            fDomainQuarks[domain] = quark;
+        }
+        return quark;
+    }
 
-        int pQuark = ss.getQuarkAbsoluteAndAdd("Partition", "CPU" + String.valueOf(cpu)); //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), dom, pQuark);
+    private int getVcpuQuark(ITmfStateSystemBuilder ss, int domain, int vcpu) {
+        if (domain >= fVcpuQuarks.length) {
+            fVcpuQuarks = Arrays.copyOf(fVcpuQuarks, Math.max(domain + 1, fVcpuQuarks.length * 2));
+        }
+        int[] quarks = fVcpuQuarks[domain];
+        quarks = ensureCapacity((quarks == null) ? new int[0] : quarks, vcpu);
+        fVcpuQuarks[domain] = quarks;
+        int quark = quarks[vcpu];
+        if (quark == NO_QUARK) {
+            quark = ss.getQuarkRelativeAndAdd(getDomainQuark(ss, domain), XenAttributes.VCPU, String.valueOf(vcpu));
+            quarks[vcpu] = quark;
+        }
+        return quark;
+    }
 
-        pQuark = ss.getQuarkAbsoluteAndAdd("Domain", String.valueOf(dom)); //$NON-NLS-1$
-        ss.modifyAttribute(event.getTimestamp().toNanos(), 1, pQuark);
+    /**
+     * The value of the domain is boxed once, the state system builder only
+     * takes objects.
+     */
+    private Integer getDomainValue(int domain) {
+        if (domain >= fDomainValues.length) {
+            fDomainValues = Arrays.copyOf(fDomainValues, Math.max(domain + 1, fDomainValues.length * 2));
+        }
+        Integer value = fDomainValues[domain];
+        if (value == null) {
+            value = domain;
+            fDomainValues[domain] = value;
+        }
+        return value;
     }
 
+    /**
+     * Grow a quark array so that it contains the given index, filling the new
+     * slots with NO_QUARK.
+     */
+    private static int[] ensureCapacity(int[] array, int index) {
+        if (index < array.length) {
+            return array;
+        }
+        int oldLength = array.length;
+        int[] newArray = Arrays.copyOf(array, Math.max(index + 1, oldLength * 2));
+        Arrays.fill(newArray, oldLength, newArray.length, NO_QUARK);
+        return newArray;
+    }
 }
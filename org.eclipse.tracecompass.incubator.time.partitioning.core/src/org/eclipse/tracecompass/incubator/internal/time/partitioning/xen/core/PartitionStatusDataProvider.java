@@ -3,19 +3,25 @@ package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IStreamingRowModelProvider;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IntervalArrays;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.PartitionSummary;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.ResponseCache;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
 import org.eclipse.tracecompass.internal.tmf.core.model.timegraph.AbstractTimeGraphDataProvider;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
 import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
 import org.eclipse.tracecompass.tmf.core.model.CommonStatusMessage;
@@ -33,16 +39,33 @@ import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
 import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.TreeMultimap;
 
-public class PartitionStatusDataProvider  extends AbstractTimeGraphDataProvider<@NonNull PartitionAnalysis, @NonNull TimeGraphEntryModel> {
+public class PartitionStatusDataProvider  extends AbstractTimeGraphDataProvider<@NonNull PartitionAnalysis, @NonNull TimeGraphEntryModel> implements IStreamingRowModelProvider {
 
     /**
      * Extension point ID.
      */
     public static final @NonNull String ID = "org.eclipse.tracecompass.incubator.internal.time.partitioning.PartitionStatusDataProvider"; //$NON-NLS-1$
 
+    /* Number of row models kept for the navigation back and forth */
+    private static final int RESPONSE_CACHE_SIZE = 32;
+
+    /* Number of requested times queried at once by the streamed fetches */
+    private static final int CHUNK_SIZE = 256;
+
+    /* Labels of the partition states, the state 255 has no label */
+    private static final String[] STATE_LABELS = new String[256];
+    static {
+        for (int i = 0; i < STATE_LABELS.length - 1; i++) {
+            STATE_LABELS[i] = String.valueOf(i);
+        }
+        STATE_LABELS[255] = ""; //$NON-NLS-1$
+    }
+
+    private final ResponseCache<TimeGraphModel> fResponses = new ResponseCache<>(RESPONSE_CACHE_SIZE);
+
     public PartitionStatusDataProvider(@NonNull ITmfTrace trace, PartitionAnalysis module) {
         super(trace, module);
     }
@@ -66,53 +89,210 @@ public class PartitionStatusDataProvider  extends AbstractTimeGraphDataProvider<
 
     @Override
     protected @Nullable TimeGraphModel getRowModel(ITmfStateSystem ss, Map<String, Object> parameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
-        TreeMultimap<Integer, ITmfStateInterval> intervals = TreeMultimap.create(Comparator.naturalOrder(),
-                Comparator.comparing(ITmfStateInterval::getStartTime));
+        return getRowModel(ss, parameters, monitor, null);
+    }
+
+    @Override
+    public TmfModelResponse<TimeGraphModel> fetchRowModel(Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor, Consumer<TimeGraphModel> partialModels) {
+        PartitionAnalysis module = getAnalysisModule();
+        if (!module.waitForInitialization()) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
+        }
+        ITmfStateSystem ss = module.getStateSystem();
+        SelectionTimeQueryFilter filter = FetchParametersUtils.createSelectionTimeQuery(fetchParameters);
+        if (ss == null || filter == null) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+        }
+
+        /* Same statuses as the rows fetched through the base class */
+        boolean complete = ss.waitUntilBuilt(0) || filter.getEnd() <= ss.getCurrentEndTime();
+        try {
+            TimeGraphModel model = getRowModel(ss, fetchParameters, monitor, partialModels);
+            if (model == null) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
+            }
+            return new TmfModelResponse<>(model, complete ? ITmfResponse.Status.COMPLETED : ITmfResponse.Status.RUNNING,
+                    complete ? CommonStatusMessage.COMPLETED : CommonStatusMessage.RUNNING);
+        } catch (StateSystemDisposedException | TimeRangeException | IndexOutOfBoundsException e) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private @Nullable TimeGraphModel getRowModel(ITmfStateSystem ss, Map<String, Object> parameters, @Nullable IProgressMonitor monitor,
+            @Nullable Consumer<TimeGraphModel> partialModels) throws StateSystemDisposedException {
         SelectionTimeQueryFilter filter = FetchParametersUtils.createSelectionTimeQuery(parameters);
-        Map<@NonNull Long, @NonNull Integer> entries = getSelectedEntries(filter);
-        Collection<Long> times = getTimes(filter, ss.getStartTime(), ss.getCurrentEndTime());
-        /* Do the actual query */
-        for (ITmfStateInterval interval : ss.query2D(entries.values(), times)) {
-            if (monitor != null && monitor.isCanceled()) {
-                return new TimeGraphModel(Collections.emptyList());
+        if (filter == null) {
+            return null;
+        }
+        Multimap<@NonNull Integer, @NonNull String> regexesMap = DataProviderParameterUtils.extractRegexFilter(parameters);
+
+        /* The states of a completed analysis do not change anymore */
+        ResponseCache.Key key = null;
+        if (ss.waitUntilBuilt(0)) {
+            key = new ResponseCache.Key(filter.getSelectedItems(), filter.getTimesRequested(), regexesMap);
+            TimeGraphModel cached = fResponses.get(ss, key);
+            if (cached != null) {
+                return cached;
             }
-            intervals.put(interval.getAttribute(), interval);
+        }
+
+        Map<@NonNull Long, @NonNull Integer> entries = getSelectedEntries(filter);
+        List<Long> times = new ArrayList<>(getTimes(filter, ss.getStartTime(), ss.getCurrentEndTime()));
+        Collections.sort(times);
+
+        /* Intervals of each queried quark, indexed by quark */
+        int maxQuark = -1;
+        for (Integer quark : entries.values()) {
+            maxQuark = Math.max(maxQuark, quark);
+        }
+        IntervalArrays[] intervals = new IntervalArrays[maxQuark + 1];
+        long[] lastEnds = new long[maxQuark + 1];
+        for (Integer quark : entries.values()) {
+            intervals[quark] = new IntervalArrays();
+            lastEnds[quark] = Long.MIN_VALUE;
+        }
+        Map<@NonNull Long, List<ITimeGraphState>> eventLists = new LinkedHashMap<>();
+        for (Long id : entries.keySet()) {
+            eventLists.put(id, new ArrayList<>());
         }
         Map<@NonNull Integer, @NonNull Predicate<@NonNull Multimap<@NonNull String, @NonNull Object>>> predicates = new HashMap<>();
-        Multimap<@NonNull Integer, @NonNull String> regexesMap = DataProviderParameterUtils.extractRegexFilter(parameters);
         if (regexesMap != null) {
             predicates.putAll(computeRegexPredicate(regexesMap));
         }
-        List<@NonNull ITimeGraphRowModel> rows = new ArrayList<>();
-        for (Map.Entry<@NonNull Long, @NonNull Integer> entry : entries.entrySet()) {
+
+        /* Zoomed out, the rows of a completed analysis come from its summary */
+        PartitionSummary summary = getAnalysisModule().getPartitionSummary();
+        long[] requestedTimes = filter.getTimesRequested();
+        if (key != null && summary != null && requestedTimes.length > 1 && !times.isEmpty()) {
+            long resolution = (requestedTimes[requestedTimes.length - 1] - requestedTimes[0]) / (requestedTimes.length - 1);
+            if (resolution > 0 && addSummaryStates(ss, summary, entries, eventLists, times.get(0), times.get(times.size() - 1), resolution, predicates, monitor)) {
+                TimeGraphModel model = new TimeGraphModel(getRows(eventLists, false));
+                if (monitor == null || !monitor.isCanceled()) {
+                    fResponses.put(ss, key, model);
+                }
+                return model;
+            }
+        }
+
+        /*
+         * Query the times in chunks, in time order. An interval spanning many
+         * chunks is returned by each of them, it is only added by the first.
+         */
+        List<List<Long>> chunks = Lists.partition(times, CHUNK_SIZE);
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
             if (monitor != null && monitor.isCanceled()) {
-                return new TimeGraphModel(Collections.emptyList());
+                return null;
+            }
+            for (ITmfStateInterval interval : ss.query2D(entries.values(), chunks.get(chunk))) {
+                int quark = interval.getAttribute();
+                IntervalArrays quarkIntervals = (quark < intervals.length) ? intervals[quark] : null;
+                if (quarkIntervals != null && interval.getStartTime() > lastEnds[quark]) {
+                    quarkIntervals.add(interval.getStartTime(), interval.getEndTime(), interval.getValueInt());
+                }
             }
 
-            List<ITimeGraphState> eventList = new ArrayList<>();
-            for (ITmfStateInterval interval : intervals.get(entry.getValue())) {
-                long startTime = interval.getStartTime();
-                long duration = interval.getEndTime() - startTime + 1;
-                int state = interval.getValueInt();
-                TimeGraphState value = new TimeGraphState(startTime, duration, state, state == 255 ? "" : String.valueOf(state));
-                applyFilterAndAddState(eventList, value, entry.getKey(), predicates, monitor);
+            for (Map.Entry<@NonNull Long, @NonNull Integer> entry : entries.entrySet()) {
+                if (monitor != null && monitor.isCanceled()) {
+                    return null;
+                }
+                int quark = entry.getValue();
+                IntervalArrays quarkIntervals = intervals[quark];
+                quarkIntervals.sort();
+                List<ITimeGraphState> eventList = eventLists.get(entry.getKey());
+                for (int i = 0; i < quarkIntervals.size(); i++) {
+                    long startTime = quarkIntervals.getStart(i);
+                    if (i > 0 && startTime == quarkIntervals.getStart(i - 1)) {
+                        /* The same interval may be returned for many times */
+                        continue;
+                    }
+                    long duration = quarkIntervals.getEnd(i) - startTime + 1;
+                    int state = quarkIntervals.getValue(i);
+                    TimeGraphState value = new TimeGraphState(startTime, duration, state, getLabel(state));
+                    applyFilterAndAddState(eventList, value, entry.getKey(), predicates, monitor);
+                }
+                if (quarkIntervals.size() > 0) {
+                    lastEnds[quark] = quarkIntervals.getEnd(quarkIntervals.size() - 1);
+                }
+                quarkIntervals.clear();
             }
-            rows.add(new TimeGraphRowModel(entry.getKey(), eventList));
 
+            if (partialModels != null && chunk < chunks.size() - 1) {
+                /* The lists keep growing, the partial rows get a copy */
+                partialModels.accept(new TimeGraphModel(getRows(eventLists, true)));
+            }
+        }
+
+        TimeGraphModel model = new TimeGraphModel(getRows(eventLists, false));
+        if (key != null && (monitor == null || !monitor.isCanceled())) {
+            fResponses.put(ss, key, model);
         }
-        return new TimeGraphModel(rows);
+        return model;
+    }
+
+    /**
+     * Add the states of the rows from the level of the summary matching the
+     * resolution, merging the buckets with the same dominant partition.
+     *
+     * @return false if the summary is not fine enough for the resolution, no
+     *         state is added then.
+     */
+    private boolean addSummaryStates(ITmfStateSystem ss, PartitionSummary summary, Map<Long, Integer> entries, Map<Long, List<ITimeGraphState>> eventLists,
+            long start, long end, long resolution, Map<Integer, Predicate<Multimap<String, Object>>> predicates, @Nullable IProgressMonitor monitor) {
+        Map<Long, PartitionSummary.Level> levels = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+            PartitionSummary.Level level = summary.getLevel(ss.getAttributeName(entry.getValue()), resolution);
+            if (level == null) {
+                return false;
+            }
+            levels.put(entry.getKey(), level);
+        }
+
+        for (Map.Entry<Long, PartitionSummary.Level> entry : levels.entrySet()) {
+            PartitionSummary.Level level = entry.getValue();
+            int first = level.indexOf(start);
+            int last = level.indexOf(end);
+            List<ITimeGraphState> eventList = eventLists.get(entry.getKey());
+            if (eventList == null || first < 0 || last < 0) {
+                continue;
+            }
+            int index = first;
+            while (index <= last) {
+                int runEnd = level.getRunEnd(index, last);
+                int dominant = level.getDominant(index);
+                long startTime = level.getBucketStart(index);
+                long duration = level.getBucketEnd(runEnd) - startTime + 1;
+                if (dominant != PartitionSummary.NO_VALUE) {
+                    TimeGraphState value = new TimeGraphState(startTime, duration, dominant, getLabel(dominant));
+                    applyFilterAndAddState(eventList, value, entry.getKey(), predicates, monitor);
+                }
+                index = runEnd + 1;
+            }
+        }
+        return true;
+    }
+
+    private static List<ITimeGraphRowModel> getRows(Map<Long, List<ITimeGraphState>> eventLists, boolean copy) {
+        List<ITimeGraphRowModel> rows = new ArrayList<>(eventLists.size());
+        for (Map.Entry<Long, List<ITimeGraphState>> eventList : eventLists.entrySet()) {
+            rows.add(new TimeGraphRowModel(eventList.getKey(), copy ? new ArrayList<>(eventList.getValue()) : eventList.getValue()));
+        }
+        return rows;
+    }
+
+    private static String getLabel(int state) {
+        return (state >= 0 && state < STATE_LABELS.length) ? STATE_LABELS[state] : String.valueOf(state);
     }
 
     @Override
     protected boolean isCacheable() {
-        // TODO Auto-generated method stub
-        return false;
+        /* The tree is only cached by the base class once the analysis is complete */
+        return true;
     }
 
     @Override
     protected TmfTreeModel<TimeGraphEntryModel> getTree(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
 
-        List<Integer> quarks = new ArrayList<>(ss.getQuarks("Partition", "*"));
+        List<Integer> quarks = new ArrayList<>(ss.getQuarks(XenAttributes.PARTITION, "*")); //$NON-NLS-1$
         @NonNull List<@NonNull TimeGraphEntryModel> list = new ArrayList<>();
         for (Integer pQuark : quarks) {
             String name = ss.getAttributeName(pQuark);
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
+import org.eclipse.tracecompass.internal.tmf.core.model.xy.AbstractTreeCommonXDataProvider;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.tmf.core.model.YModel;
+import org.eclipse.tracecompass.tmf.core.model.filters.SelectionTimeQueryFilter;
+import org.eclipse.tracecompass.tmf.core.model.tree.TmfTreeDataModel;
+import org.eclipse.tracecompass.tmf.core.model.tree.TmfTreeModel;
+import org.eclipse.tracecompass.tmf.core.model.xy.IYModel;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * XY data provider of the time the vCPUs of each Xen domain spent runnable,
+ * i.e. waiting for a physical CPU. A domain with runnable vCPUs at the end of
+ * its window is starved, while a window without runnable nor running vCPUs is
+ * wasted.
+ *
+ * The value at each requested time is the runnable time of all the vCPUs of
+ * the domain since the previous requested time, in nanoseconds.
+ */
+@SuppressWarnings("restriction")
+public class VcpuRunnableWaitDataProvider extends AbstractTreeCommonXDataProvider<@NonNull PartitionAnalysis, @NonNull TmfTreeDataModel> {
+
+    /**
+     * Extension point ID.
+     */
+    public static final @NonNull String ID = "org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.VcpuRunnableWaitDataProvider"; //$NON-NLS-1$
+
+    private static final String TITLE = "vCPU runnable wait"; //$NON-NLS-1$
+    private static final String WILDCARD = "*"; //$NON-NLS-1$
+
+    /* Entry ID to quark of the domains of the last tree */
+    private final Map<Long, Integer> fDomainQuarks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            The trace on which the data provider applies.
+     * @param module
+     *            The {@link PartitionAnalysis} to access the underlying
+     *            {@link ITmfStateSystem}
+     */
+    public VcpuRunnableWaitDataProvider(ITmfTrace trace, PartitionAnalysis module) {
+        super(trace, module);
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    protected String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    protected boolean isCacheable() {
+        /* The tree is only cached by the base class once the analysis is complete */
+        return true;
+    }
+
+    @Override
+    protected TmfTreeModel<TmfTreeDataModel> getTree(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        List<TmfTreeDataModel> entries = new ArrayList<>();
+        long rootId = getId(ITmfStateSystem.ROOT_ATTRIBUTE);
+        entries.add(new TmfTreeDataModel(rootId, -1, getTrace().getName()));
+
+        /* Only the domains for which vCPU events were traced */
+        for (Integer domainQuark : ss.getQuarks(XenAttributes.DOMAIN, WILDCARD)) {
+            if (ss.optQuarkRelative(domainQuark, XenAttributes.VCPU) == ITmfStateSystem.INVALID_ATTRIBUTE) {
+                continue;
+            }
+            long id = getId(domainQuark);
+            fDomainQuarks.put(id, domainQuark);
+            entries.add(new TmfTreeDataModel(id, rootId, ss.getAttributeName(domainQuark)));
+        }
+        return new TmfTreeModel<>(Arrays.asList(TITLE), entries);
+    }
+
+    @Override
+    protected @Nullable Map<String, IYModel> getYModels(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        SelectionTimeQueryFilter filter = FetchParametersUtils.createSelectionTimeQuery(fetchParameters);
+        if (filter == null) {
+            return null;
+        }
+        long[] times = filter.getTimesRequested();
+
+        /* Runnable time of each selected domain, and the domain of each vCPU */
+        Map<Integer, double[]> values = new HashMap<>();
+        Map<Integer, Long> ids = new HashMap<>();
+        Map<Integer, double[]> vcpuValues = new HashMap<>();
+        for (Long id : filter.getSelectedItems()) {
+            Integer domainQuark = fDomainQuarks.get(id);
+            if (domainQuark == null) {
+                continue;
+            }
+            double[] yValues = new double[times.length];
+            values.put(domainQuark, yValues);
+            ids.put(domainQuark, id);
+            for (Integer vcpuQuark : ss.getQuarks(domainQuark, XenAttributes.VCPU, WILDCARD)) {
+                vcpuValues.put(vcpuQuark, yValues);
+            }
+        }
+
+        long start = (times.length == 0) ? 0 : Math.max(times[0], ss.getStartTime());
+        long end = (times.length == 0) ? -1 : Math.min(times[times.length - 1], ss.getCurrentEndTime());
+        if (!vcpuValues.isEmpty() && start <= end) {
+            for (ITmfStateInterval interval : ss.query2D(vcpuValues.keySet(), start, end)) {
+                if (monitor != null && monitor.isCanceled()) {
+                    return null;
+                }
+                Object value = interval.getValue();
+                double[] yValues = vcpuValues.get(interval.getAttribute());
+                if (yValues == null || !(value instanceof Integer) || (Integer) value != XenAttributes.VCPU_RUNNABLE) {
+                    continue;
+                }
+                addDuration(times, yValues, Math.max(start, interval.getStartTime()), Math.min(end, interval.getEndTime()));
+            }
+        }
+
+        Map<String, IYModel> models = new HashMap<>();
+        for (Map.Entry<Integer, double[]> entry : values.entrySet()) {
+            String name = getTrace().getName() + '/' + ss.getFullAttributePath(entry.getKey());
+            models.put(name, new YModel(ids.get(entry.getKey()), name, entry.getValue()));
+        }
+        return models;
+    }
+
+    /**
+     * Add the duration of an interval to the values of the requested times,
+     * the value of a time covering the duration since the previous one.
+     */
+    private static void addDuration(long[] times, double[] yValues, long start, long end) {
+        int index = Arrays.binarySearch(times, start);
+        index = Math.max(1, (index >= 0) ? index : -index - 1);
+        for (; index < times.length && times[index - 1] < end; index++) {
+            long overlap = Math.min(end, times[index]) - Math.max(start, times[index - 1]);
+            if (overlap > 0) {
+                yValues[index] += overlap;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+/**
+ * This file defines the attribute names and state values of the Xen partition
+ * analysis.
+ */
+@SuppressWarnings({"nls"})
+final class XenAttributes {
+
+    /* First-level attributes */
+    static final String PARTITION = "Partition";
+    static final String DOMAIN = "Domain";
+
+    /* Partition/CPU<n> */
+    static final String CPU_PREFIX = "CPU";
+
+    /* Domain/<dom>/vCPU/<n> */
+    static final String VCPU = "vCPU";
+
+    /* Values of the Domain/<dom>/vCPU/<n> attributes */
+    static final int VCPU_RUNNING = 1;
+    static final int VCPU_RUNNABLE = 2;
+    static final int VCPU_BLOCKED = 3;
+
+    private XenAttributes() {}
+
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenSyncFormula.Quality;
+
+/**
+ * Convex hulls of the version hypercalls exchanged between a hypervisor and a
+ * domain, giving the linear formula from the clock of the domain to the one of
+ * the hypervisor.
+ *
+ * A hypercall of the domain is a point, in (domain time, hypervisor time),
+ * above the formula, since it is received after it is sent, and the return of
+ * the hypercall is a point below it. Only the lower hull of the points above
+ * and the upper hull of the points below constrain the formula, and only they
+ * are kept. They are updated as the matches are read and are bounded to
+ * {@link #MAX_POINTS} vertices, past which every other vertex is dropped
+ * rather than growing with the trace. The dropped vertices no longer
+ * constrain the formula, which may then violate them, so the formula of a
+ * decimated hull is {@link Quality#APPROXIMATE}.
+ */
+public final class XenClockHull {
+
+    /** Maximum number of vertices of a hull */
+    public static final int MAX_POINTS = 128;
+
+    /* Tolerance of the constraints, the coordinates being exact nanoseconds */
+    private static final double EPSILON = 0.5;
+
+    private static final BigDecimal PPM = BigDecimal.valueOf(1000000);
+
+    private final String fReference;
+    private final String fHost;
+
+    /* The points are relative to the first one, to keep the doubles precise */
+    private boolean fHasOrigin = false;
+    private long fX0;
+    private long fY0;
+
+    private final Chain fAbove = new Chain(true);
+    private final Chain fBelow = new Chain(false);
+    private long fMatches;
+
+    /**
+     * Constructor
+     *
+     * @param reference
+     *            The host ID of the hypervisor
+     * @param host
+     *            The host ID of the domain
+     */
+    public XenClockHull(String reference, String host) {
+        fReference = reference;
+        fHost = host;
+    }
+
+    /**
+     * @return The host ID of the domain
+     */
+    public String getHost() {
+        return fHost;
+    }
+
+    /**
+     * Add a hypercall of the domain, received by the hypervisor
+     *
+     * @param domainTime
+     *            The time of the hypercall in the domain
+     * @param hypervisorTime
+     *            The time of the hypercall in the hypervisor
+     */
+    public void addHypercall(long domainTime, long hypervisorTime) {
+        setOrigin(domainTime, hypervisorTime);
+        fAbove.add(domainTime - fX0, hypervisorTime - fY0);
+        fMatches++;
+    }
+
+    /**
+     * Add the return of a hypercall of the domain
+     *
+     * @param domainTime
+     *            The time of the return in the domain
+     * @param hypervisorTime
+     *            The time of the return in the hypervisor
+     */
+    public void addReturn(long domainTime, long hypervisorTime) {
+        setOrigin(domainTime, hypervisorTime);
+        fBelow.add(domainTime - fX0, hypervisorTime - fY0);
+        fMatches++;
+    }
+
+    private void setOrigin(long x, long y) {
+        if (!fHasOrigin) {
+            fX0 = x;
+            fY0 = y;
+            fHasOrigin = true;
+        }
+    }
+
+    /**
+     * Compute the formula of the domain from its hulls: the middle of the lines
+     * of minimum and maximum slopes between the two hulls.
+     *
+     * @param counters
+     *            The counters of the matching of the domain, if any
+     * @return The formula of the domain
+     */
+    public XenSyncFormula.Domain solve(XenHypercallMatcher.@Nullable Counters counters) {
+        double minSlope = Double.POSITIVE_INFINITY;
+        double minIntercept = 0;
+        double maxSlope = Double.NEGATIVE_INFINITY;
+        double maxIntercept = 0;
+        for (int i = 0; i < fAbove.fSize; i++) {
+            for (int j = 0; j < fBelow.fSize; j++) {
+                long dx = fAbove.fXs[i] - fBelow.fXs[j];
+                if (dx == 0) {
+                    continue;
+                }
+                double slope = (double) (fAbove.fYs[i] - fBelow.fYs[j]) / dx;
+                double intercept = fAbove.fYs[i] - slope * fAbove.fXs[i];
+                if ((slope < minSlope || slope > maxSlope) && isBetween(slope, intercept)) {
+                    if (slope < minSlope) {
+                        minSlope = slope;
+                        minIntercept = intercept;
+                    }
+                    if (slope > maxSlope) {
+                        maxSlope = slope;
+                        maxIntercept = intercept;
+                    }
+                }
+            }
+        }
+
+        Quality quality;
+        double slope;
+        double intercept;
+        double accuracy;
+        if (minSlope <= maxSlope) {
+            /* The width of the band of the possible formulas over the trace */
+            quality = (fAbove.fDecimated || fBelow.fDecimated) ? Quality.APPROXIMATE : Quality.ACCURATE;
+            slope = (minSlope + maxSlope) / 2;
+            intercept = (minIntercept + maxIntercept) / 2;
+            double first = Math.min(fAbove.fXs[0], fBelow.fXs[0]);
+            double last = Math.max(fAbove.fXs[fAbove.fSize - 1], fBelow.fXs[fBelow.fSize - 1]);
+            accuracy = Math.max(Math.abs((maxSlope - minSlope) * first + maxIntercept - minIntercept),
+                    Math.abs((maxSlope - minSlope) * last + maxIntercept - minIntercept));
+        } else {
+            /* Fall back to an offset, no drift can be estimated */
+            double minAbove = fAbove.minOffset();
+            double maxBelow = fBelow.maxOffset();
+            slope = 1;
+            if (fAbove.fSize > 0 && fBelow.fSize > 0) {
+                /* The hulls cross, the clocks did not drift linearly */
+                quality = Quality.INCORRECT;
+                intercept = (minAbove + maxBelow) / 2;
+                accuracy = maxBelow - minAbove;
+            } else {
+                quality = Quality.APPROXIMATE;
+                intercept = (fAbove.fSize > 0) ? minAbove : (fBelow.fSize > 0) ? maxBelow : 0;
+                accuracy = Double.NaN;
+            }
+        }
+
+        /* Back to absolute times: y = slope * x + y0 + intercept - slope * x0 */
+        BigDecimal factor = new BigDecimal(slope);
+        BigDecimal offset = BigDecimal.valueOf(fY0).add(new BigDecimal(intercept)).subtract(factor.multiply(BigDecimal.valueOf(fX0)));
+        double drift = factor.subtract(BigDecimal.ONE).multiply(PPM).doubleValue();
+        return new XenSyncFormula.Domain(fHost, fReference, factor, offset, quality, accuracy, drift, fMatches,
+                (counters == null) ? 0 : counters.getRejected(), (counters == null) ? 0 : counters.getEvicted(),
+                (counters == null) ? 0 : counters.getUnmatched());
+    }
+
+    /**
+     * Get whether a line is below the points above and above the points below
+     */
+    private boolean isBetween(double slope, double intercept) {
+        for (int k = 0; k < fAbove.fSize; k++) {
+            if (fAbove.fYs[k] < slope * fAbove.fXs[k] + intercept - EPSILON) {
+                return false;
+            }
+        }
+        for (int k = 0; k < fBelow.fSize; k++) {
+            if (fBelow.fYs[k] > slope * fBelow.fXs[k] + intercept + EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower or upper convex hull of points, sorted by x
+     */
+    private static final class Chain {
+        private final boolean fLower;
+        private long[] fXs = new long[16];
+        private long[] fYs = new long[16];
+        private int fSize = 0;
+        private boolean fDecimated = false;
+
+        Chain(boolean lower) {
+            fLower = lower;
+        }
+
+        void add(long x, long y) {
+            if (fSize > 0 && x < fXs[fSize - 1]) {
+                /* Out of order, rebuild from the vertices, which are the hull */
+                long[][] points = new long[fSize + 1][];
+                for (int i = 0; i < fSize; i++) {
+                    points[i] = new long[] { fXs[i], fYs[i] };
+                }
+                points[fSize] = new long[] { x, y };
+                Arrays.sort(points, (p1, p2) -> (p1[0] != p2[0]) ? Long.compare(p1[0], p2[0]) : Long.compare(p1[1], p2[1]));
+                fSize = 0;
+                for (long[] point : points) {
+                    push(point[0], point[1]);
+                }
+            } else {
+                push(x, y);
+            }
+            if (fSize > MAX_POINTS) {
+                decimate();
+            }
+        }
+
+        private void push(long x, long y) {
+            while (fSize >= 2) {
+                double cross = (double) (fXs[fSize - 1] - fXs[fSize - 2]) * (y - fYs[fSize - 2])
+                        - (double) (fYs[fSize - 1] - fYs[fSize - 2]) * (x - fXs[fSize - 2]);
+                if (fLower ? cross > 0 : cross < 0) {
+                    break;
+                }
+                fSize--;
+            }
+            if (fSize == fXs.length) {
+                fXs = Arrays.copyOf(fXs, fSize * 2);
+                fYs = Arrays.copyOf(fYs, fSize * 2);
+            }
+            fXs[fSize] = x;
+            fYs[fSize] = y;
+            fSize++;
+        }
+
+        /**
+         * Drop every other vertex but the first and last ones
+         */
+        private void decimate() {
+            int size = 1;
+            for (int i = 2; i < fSize - 1; i += 2) {
+                fXs[size] = fXs[i];
+                fYs[size] = fYs[i];
+                size++;
+            }
+            fXs[size] = fXs[fSize - 1];
+            fYs[size] = fYs[fSize - 1];
+            fSize = size + 1;
+            fDecimated = true;
+        }
+
+        double minOffset() {
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < fSize; i++) {
+                min = Math.min(min, fYs[i] - fXs[i]);
+            }
+            return min;
+        }
+
+        double maxOffset() {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < fSize; i++) {
+                max = Math.max(max, fYs[i] - fXs[i]);
+            }
+            return max;
+        }
+    }
+}
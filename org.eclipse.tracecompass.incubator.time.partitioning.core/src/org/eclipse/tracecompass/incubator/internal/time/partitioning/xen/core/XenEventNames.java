@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+/**
+ * This file defines the event and field names of the Xentrace traces converted
+ * to CTF by the convert_to_ctf.py script.
+ */
+@SuppressWarnings({"nls"})
+final class XenEventNames {
+
+    /* Scheduler events */
+    static final String SWITCH_INFNEXT = "switch_infnext";
+    static final String SWITCH_INFPREV = "switch_infprev";
+    static final String SWITCH_INFCONT = "switch_infcont";
+
+    /* vCPU run state events */
+    static final String RUNNING_TO_RUNNABLE = "running_to_runnable";
+    static final String RUNNABLE_TO_RUNNING = "runnable_to_running";
+    static final String RUNNING_TO_BLOCKED = "running_to_blocked";
+    static final String BLOCKED_TO_RUNNABLE = "blocked_to_runnable";
+
+    static final String DOM_FIELD = "dom";
+    static final String VCPU_FIELD = "vcpu";
+
+    private XenEventNames() {}
+
+}
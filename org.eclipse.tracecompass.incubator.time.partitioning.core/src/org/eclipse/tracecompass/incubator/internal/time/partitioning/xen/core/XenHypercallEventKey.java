@@ -10,38 +10,51 @@
 
 package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
 
-import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
-
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.tmf.core.event.matching.IEventMatchingKey;
 
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
-
 /**
+ * Key of a version hypercall, matched with the sync event of the other side by
+ * its ID. A key is created and hashed for every hypercall of the traces, so its
+ * hash is mixed once, without allocation.
+ *
  * @author Guillaume Champagne
  */
 @NonNullByDefault
-public class XenHypercallEventKey implements IEventMatchingKey {
+public final class XenHypercallEventKey implements IEventMatchingKey {
 
-    private static final HashFunction HF = checkNotNull(Hashing.goodFastHash(32));
     private final long fId;
+    private final int fHash;
 
     /**
      * Constructor
      *
-     * @param Id
+     * @param id
      *            ID
      */
     public XenHypercallEventKey(long id) {
         fId = id;
+        fHash = mix(id);
+    }
+
+    /**
+     * 64-bit finalizer of MurmurHash3. The IDs are mostly sequential, so every
+     * bit of the ID must affect the bucket of the key.
+     */
+    private static int mix(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (h ^ (h >>> 32));
     }
 
     @Override
     public int hashCode() {
-        return HF.newHasher()
-                .putLong(fId).hash().asInt();
+        return fHash;
     }
 
     @Override
@@ -34,6 +34,7 @@ public class XenHypercallEventMatching implements ITmfMatchEventDefinition {
     private static String HYPERCALL_VERSION_RETURN = "hypercall_version_return"; //$NON-NLS-1$
     private static String XEN_SYNC_HYPERCALL_VERSION = "xen_sync:hypercall_version_entry"; //$NON-NLS-1$
     private static String XEN_SYNC_HYPERCALL_VERSION_RETURN = "xen_sync:hypercall_version_exit"; //$NON-NLS-1$
+    private static final String ID_FIELD = "id"; //$NON-NLS-1$
 
     private static final ImmutableSet<String> REQUIRED_EVENTS = ImmutableSet.of(
             HYPERCALL_VERSION,
@@ -71,15 +72,31 @@ public class XenHypercallEventMatching implements ITmfMatchEventDefinition {
             return null;
         }
 
-        ITmfEventField content = event.getContent();
-        Long fId = content.getFieldValue(Long.class, "id"); //$NON-NLS-1$
+        /*
+         * Unbox the ID in place, the key is the only allocation of the
+         * matching of an event
+         */
+        ITmfEventField field = event.getContent().getField(ID_FIELD);
+        Object id = (field == null) ? null : field.getValue();
 
-        if (fId == null) {
+        if (!(id instanceof Number)) {
             throw new IllegalArgumentException("Event does not have expected fields"); //$NON-NLS-1$
         }
 
-        IEventMatchingKey key = new XenHypercallEventKey(fId);
-        return key;
+        return new XenHypercallEventKey(((Number) id).longValue());
+    }
+
+    /**
+     * Get whether an event of a version hypercall was traced by the
+     * hypervisor, rather than by the xen-sync program of a domain.
+     *
+     * @param event
+     *            The matched event
+     * @return True for the hypercall events of the hypervisor
+     */
+    static boolean isHypervisorEvent(ITmfEvent event) {
+        String evname = event.getName();
+        return evname.equals(HYPERCALL_VERSION) || evname.equals(HYPERCALL_VERSION_RETURN);
     }
 
     @Override
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.matching.IEventMatchingKey;
+import org.eclipse.tracecompass.tmf.core.event.matching.TmfEventMatching.Direction;
+
+/**
+ * Matches the version hypercalls of the hypervisor with the sync events of the
+ * domains, keeping the unmatched events of a bounded time window only.
+ *
+ * An event of the hypervisor is only matched with an event of a domain and
+ * the other way around. Two domains, or two hypervisors, can make hypercalls
+ * with the same key, those pairs are rejected and counted apart.
+ *
+ * The events must be given in time order. An unmatched event older than the
+ * window, relative to the last event, is evicted: its counterpart was not
+ * traced, for instance in a domain that was not traced or that stopped
+ * tracing early. The memory used is thus proportional to the number of events
+ * in the window rather than in the traces. The window must be larger than the
+ * offset between the clocks of the traces, otherwise the events are evicted
+ * before their counterpart is read.
+ *
+ * The counters of the events matched, rejected, evicted and left unmatched
+ * are kept per host, a host being identified by the host ID of its trace.
+ */
+public final class XenHypercallMatcher {
+
+    /**
+     * Default time window of the unmatched events, in nanoseconds
+     */
+    public static final long DEFAULT_WINDOW = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Counters of the matching of the events of a domain
+     */
+    public static final class Counters {
+        private long fMatched;
+        private long fRejected;
+        private long fEvicted;
+        private long fUnmatched;
+
+        /**
+         * @return The number of events matched with an event of the other
+         *         side, hypervisor or domain
+         */
+        public long getMatched() {
+            return fMatched;
+        }
+
+        /**
+         * @return The number of events whose key was only pending on another
+         *         host of the same side
+         */
+        public long getRejected() {
+            return fRejected;
+        }
+
+        /**
+         * @return The number of events evicted from the window before being
+         *         matched
+         */
+        public long getEvicted() {
+            return fEvicted;
+        }
+
+        /**
+         * @return The number of events still unmatched when the matching was
+         *         finished
+         */
+        public long getUnmatched() {
+            return fUnmatched;
+        }
+    }
+
+    private final XenHypercallEventMatching fDefinition = new XenHypercallEventMatching();
+    private final long fWindow;
+    private final BiConsumer<ITmfEvent, ITmfEvent> fListener;
+
+    /* Unmatched events of each host, in time order, by side and direction */
+    private final Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> fHypervisorCauses = new HashMap<>();
+    private final Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> fHypervisorEffects = new HashMap<>();
+    private final Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> fDomainCauses = new HashMap<>();
+    private final Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> fDomainEffects = new HashMap<>();
+    private final List<Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>>> fUnmatched = Arrays.asList(
+            fHypervisorCauses, fHypervisorEffects, fDomainCauses, fDomainEffects);
+
+    private final Map<String, Counters> fCounters = new TreeMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param window
+     *            The time window of the unmatched events, in nanoseconds
+     * @param listener
+     *            Called with the cause and the effect of each match
+     */
+    public XenHypercallMatcher(long window, BiConsumer<ITmfEvent, ITmfEvent> listener) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The window must be positive: " + window); //$NON-NLS-1$
+        }
+        fWindow = window;
+        fListener = listener;
+    }
+
+    /**
+     * Match an event, the events must be given in time order. Events that are
+     * not version hypercalls are ignored.
+     *
+     * @param event
+     *            The event to match
+     */
+    public void matchEvent(ITmfEvent event) {
+        Direction direction = fDefinition.getDirection(event);
+        if (direction == null) {
+            return;
+        }
+        IEventMatchingKey key = fDefinition.getEventKey(event);
+        if (key == null) {
+            return;
+        }
+        String host = event.getTrace().getHostId();
+        evict(event.getTimestamp().toNanos() - fWindow);
+
+        boolean isCause = (direction == Direction.CAUSE);
+        boolean isHypervisor = XenHypercallEventMatching.isHypervisorEvent(event);
+        Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> counterparts = getUnmatched(!isHypervisor, !isCause);
+        for (Entry<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> entry : counterparts.entrySet()) {
+            /* The entry and return of a hypercall of a host share their key */
+            if (entry.getKey().equals(host)) {
+                continue;
+            }
+            ITmfEvent counterpart = entry.getValue().remove(key);
+            if (counterpart != null) {
+                getCounters(host).fMatched++;
+                getCounters(entry.getKey()).fMatched++;
+                if (isCause) {
+                    fListener.accept(event, counterpart);
+                } else {
+                    fListener.accept(counterpart, event);
+                }
+                return;
+            }
+        }
+
+        /* A hypercall with the same key on another host of the same side */
+        for (Entry<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> entry : getUnmatched(isHypervisor, !isCause).entrySet()) {
+            if (!entry.getKey().equals(host) && entry.getValue().containsKey(key)) {
+                getCounters(host).fRejected++;
+                break;
+            }
+        }
+
+        LinkedHashMap<IEventMatchingKey, ITmfEvent> events = getUnmatched(isHypervisor, isCause).computeIfAbsent(host, h -> new LinkedHashMap<>());
+        /* Keep the events in time order if a key is reused */
+        events.remove(key);
+        events.put(key, event);
+    }
+
+    private Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> getUnmatched(boolean hypervisor, boolean cause) {
+        if (hypervisor) {
+            return cause ? fHypervisorCauses : fHypervisorEffects;
+        }
+        return cause ? fDomainCauses : fDomainEffects;
+    }
+
+    /**
+     * Finish the matching, the events still buffered are counted as
+     * unmatched and released.
+     */
+    public void finish() {
+        for (Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> unmatched : fUnmatched) {
+            for (Entry<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> entry : unmatched.entrySet()) {
+                getCounters(entry.getKey()).fUnmatched += entry.getValue().size();
+            }
+            unmatched.clear();
+        }
+    }
+
+    /**
+     * Get the counters of the matching, by host ID
+     *
+     * @return The counters of each hypervisor and domain
+     */
+    public Map<String, Counters> getCounters() {
+        return Collections.unmodifiableMap(fCounters);
+    }
+
+    /**
+     * Get the number of unmatched events currently buffered
+     *
+     * @return The number of events in the window
+     */
+    public int getBufferedCount() {
+        int count = 0;
+        for (Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> unmatched : fUnmatched) {
+            for (LinkedHashMap<IEventMatchingKey, ITmfEvent> events : unmatched.values()) {
+                count += events.size();
+            }
+        }
+        return count;
+    }
+
+    private void evict(long threshold) {
+        for (Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> unmatched : fUnmatched) {
+            evict(unmatched, threshold);
+        }
+    }
+
+    private void evict(Map<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> unmatched, long threshold) {
+        for (Entry<String, LinkedHashMap<IEventMatchingKey, ITmfEvent>> entry : unmatched.entrySet()) {
+            /* The events of a host are in time order, stop at the first recent one */
+            Iterator<ITmfEvent> events = entry.getValue().values().iterator();
+            @Nullable Counters counters = null;
+            while (events.hasNext()) {
+                ITmfEvent event = events.next();
+                if (event.getTimestamp().toNanos() >= threshold) {
+                    break;
+                }
+                events.remove();
+                if (counters == null) {
+                    counters = getCounters(entry.getKey());
+                }
+                counters.fEvicted++;
+            }
+        }
+    }
+
+    private Counters getCounters(String host) {
+        return fCounters.computeIfAbsent(host, h -> new Counters());
+    }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.timestamp.ITmfTimestampTransform;
+import org.eclipse.tracecompass.tmf.core.timestamp.TimestampTransformFactory;
+
+/**
+ * Formulas converting the clocks of the Xen domains of an experiment to the
+ * clock of their hypervisor, with the metrics of their synchronization.
+ */
+public final class XenSyncFormula {
+
+    /**
+     * Quality of the formula of a domain
+     */
+    public enum Quality {
+        /** The hypercalls and their returns bound the formula */
+        ACCURATE,
+        /**
+         * The hypercalls or their returns are missing, only an offset is
+         * known, or the hulls were decimated and the formula may violate
+         * some hypercalls
+         */
+        APPROXIMATE,
+        /** The bounds cross, the clocks did not drift linearly */
+        INCORRECT
+    }
+
+    /**
+     * Formula and metrics of a domain
+     */
+    public static final class Domain {
+        private final String fHost;
+        private final String fReference;
+        private final BigDecimal fFactor;
+        private final BigDecimal fOffset;
+        private final Quality fQuality;
+        private final double fAccuracy;
+        private final double fDrift;
+        private final long fMatches;
+        private final long fRejected;
+        private final long fEvicted;
+        private final long fUnmatched;
+
+        Domain(String host, String reference, BigDecimal factor, BigDecimal offset, Quality quality, double accuracy, double drift,
+                long matches, long rejected, long evicted, long unmatched) {
+            fHost = host;
+            fReference = reference;
+            fFactor = factor;
+            fOffset = offset;
+            fQuality = quality;
+            fAccuracy = accuracy;
+            fDrift = drift;
+            fMatches = matches;
+            fRejected = rejected;
+            fEvicted = evicted;
+            fUnmatched = unmatched;
+        }
+
+        /**
+         * @return The host ID of the domain
+         */
+        public String getHost() {
+            return fHost;
+        }
+
+        /**
+         * @return The host ID of the hypervisor the domain is synchronized
+         *         with
+         */
+        public String getReference() {
+            return fReference;
+        }
+
+        /**
+         * @return The transform of the timestamps of the domain to the clock
+         *         of the hypervisor
+         */
+        public ITmfTimestampTransform getTransform() {
+            return TimestampTransformFactory.createLinearTransform(fFactor, fOffset);
+        }
+
+        /**
+         * @return The quality of the formula
+         */
+        public Quality getQuality() {
+            return fQuality;
+        }
+
+        /**
+         * @return The width, in nanoseconds, of the band of the formulas
+         *         satisfying all the hypercalls, or NaN when it is unknown
+         */
+        public double getAccuracy() {
+            return fAccuracy;
+        }
+
+        /**
+         * @return The drift of the clock of the domain relative to the
+         *         hypervisor, in parts per million
+         */
+        public double getDrift() {
+            return fDrift;
+        }
+
+        /**
+         * @return The number of hypercalls and returns matched
+         */
+        public long getMatches() {
+            return fMatches;
+        }
+
+        /**
+         * @return The number of events of the domain whose key was only
+         *         pending in another domain
+         */
+        public long getRejected() {
+            return fRejected;
+        }
+
+        /**
+         * @return The number of events evicted before being matched
+         */
+        public long getEvicted() {
+            return fEvicted;
+        }
+
+        /**
+         * @return The number of events left unmatched
+         */
+        public long getUnmatched() {
+            return fUnmatched;
+        }
+
+        @Override
+        public String toString() {
+            return fHost + " -> " + fReference + ": " + fQuality + //$NON-NLS-1$ //$NON-NLS-2$
+                    ", accuracy " + fAccuracy + " ns, drift " + fDrift + " ppm, " + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    fMatches + " matches, " + fRejected + " rejected, " + fEvicted + " evicted, " + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    fUnmatched + " unmatched"; //$NON-NLS-1$
+        }
+    }
+
+    private final Map<String, Domain> fDomains = new TreeMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param domains
+     *            The formulas of the hypervisor and domain pairs
+     */
+    XenSyncFormula(Collection<Domain> domains) {
+        for (Domain domain : domains) {
+            /* A domain seen by several hypervisors follows the one it matched most */
+            Domain other = fDomains.get(domain.getHost());
+            if (other == null || other.getMatches() < domain.getMatches()) {
+                fDomains.put(domain.getHost(), domain);
+            }
+        }
+    }
+
+    /**
+     * Get the formula of a domain
+     *
+     * @param host
+     *            The host ID of the domain
+     * @return The formula, or null if the host is not a synchronized domain
+     */
+    public @Nullable Domain getDomain(String host) {
+        return fDomains.get(host);
+    }
+
+    /**
+     * @return The formulas of the domains, by host ID
+     */
+    public Map<String, Domain> getDomains() {
+        return Collections.unmodifiableMap(fDomains);
+    }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.ParallelFetcher;
+import org.eclipse.tracecompass.tmf.core.analysis.TmfAbstractAnalysisModule;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
+import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+
+/**
+ * Computes the formulas converting the clocks of the Xen domains of an
+ * experiment to the clock of their hypervisor, from the version hypercalls of
+ * the xen-sync program.
+ *
+ * All the domains are synchronized by a single pass over the experiment,
+ * matching the hypercalls in a bounded window and keeping the convex hulls of
+ * each hypervisor and domain pair, whose formulas are then computed
+ * concurrently. The window is set by the {@link #WINDOW_PARAMETER} parameter
+ * and a warning is logged for the hosts whose events were mostly evicted. The formulas relate the timestamps of the traces as they are
+ * opened, so they are composed with the current transforms of the traces.
+ *
+ * This analysis does not change the transforms of the traces, other analyses
+ * may be reading them. They are applied through the trace resources and the
+ * experiment is opened again, like the synchronization of TMF.
+ */
+public class XenSynchronizationAnalysis extends TmfAbstractAnalysisModule {
+
+    /**
+     * The ID of this analysis
+     */
+    public static final String ID = "org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.synchronization"; //$NON-NLS-1$
+
+    /**
+     * Parameter of the time window of the unmatched hypercalls, in
+     * milliseconds. It must be larger than the offset between the clocks of
+     * the hypervisor and of the domains.
+     */
+    public static final String WINDOW_PARAMETER = "window"; //$NON-NLS-1$
+
+    private volatile @Nullable XenSyncFormula fFormula = null;
+    private @Nullable ITmfEventRequest fRequest = null;
+
+    @Override
+    protected boolean executeAnalysis(IProgressMonitor monitor) throws TmfAnalysisException {
+        ITmfTrace experiment = getTrace();
+        if (!(experiment instanceof TmfExperiment)) {
+            return false;
+        }
+
+        /* Without version hypercalls in the traces, there is nothing to read */
+        XenHypercallEventMatching definition = new XenHypercallEventMatching();
+        boolean canMatch = false;
+        for (ITmfTrace trace : TmfTraceManager.getTraceSet(experiment)) {
+            canMatch |= definition.canMatchTrace(trace);
+        }
+        if (!canMatch) {
+            fFormula = new XenSyncFormula(Collections.emptyList());
+            return true;
+        }
+
+        XenSyncFormula formula = synchronize(experiment, monitor);
+        if (formula == null) {
+            return false;
+        }
+        for (XenSyncFormula.Domain domain : formula.getDomains().values()) {
+            Activator.getInstance().logInfo("Xen synchronization of " + domain); //$NON-NLS-1$
+        }
+        fFormula = formula;
+        return true;
+    }
+
+    private @Nullable XenSyncFormula synchronize(ITmfTrace experiment, IProgressMonitor monitor) {
+        /* Hulls by host ID of the hypervisor and of the domain */
+        Table<String, String, XenClockHull> hulls = HashBasedTable.create();
+        long window = getWindow();
+        XenHypercallMatcher matcher = new XenHypercallMatcher(window, (cause, effect) -> {
+            /* The matcher only pairs a hypervisor event with a domain event */
+            boolean fromDomain = XenHypercallEventMatching.isHypervisorEvent(effect);
+            ITmfEvent domainEvent = fromDomain ? cause : effect;
+            ITmfEvent hypervisorEvent = fromDomain ? effect : cause;
+            String reference = hypervisorEvent.getTrace().getHostId();
+            String host = domainEvent.getTrace().getHostId();
+            XenClockHull hull = hulls.get(reference, host);
+            if (hull == null) {
+                hull = new XenClockHull(reference, host);
+                hulls.put(reference, host, hull);
+            }
+            if (fromDomain) {
+                hull.addHypercall(domainEvent.getTimestamp().toNanos(), hypervisorEvent.getTimestamp().toNanos());
+            } else {
+                hull.addReturn(domainEvent.getTimestamp().toNanos(), hypervisorEvent.getTimestamp().toNanos());
+            }
+        });
+
+        TmfEventRequest request = new TmfEventRequest(ITmfEvent.class, TmfTimeRange.ETERNITY, 0,
+                ITmfEventRequest.ALL_DATA, ITmfEventRequest.ExecutionType.BACKGROUND) {
+            @Override
+            public void handleData(ITmfEvent event) {
+                super.handleData(event);
+                if (monitor.isCanceled()) {
+                    cancel();
+                    return;
+                }
+                matcher.matchEvent(event);
+            }
+        };
+        fRequest = request;
+        experiment.sendRequest(request);
+        try {
+            request.waitForCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            fRequest = null;
+        }
+        if (request.isCancelled() || monitor.isCanceled()) {
+            return null;
+        }
+        matcher.finish();
+
+        /* The counterparts of most events were not read within the window */
+        Map<String, XenHypercallMatcher.Counters> counters = matcher.getCounters();
+        for (Map.Entry<String, XenHypercallMatcher.Counters> entry : counters.entrySet()) {
+            XenHypercallMatcher.Counters hostCounters = entry.getValue();
+            if (hostCounters.getEvicted() > hostCounters.getMatched()) {
+                Activator.getInstance().logWarning("Xen synchronization of " + entry.getKey() + ": " + hostCounters.getEvicted() + //$NON-NLS-1$ //$NON-NLS-2$
+                        " events evicted for " + hostCounters.getMatched() + " matched, the window of " + //$NON-NLS-1$ //$NON-NLS-2$
+                        TimeUnit.NANOSECONDS.toMillis(window) + " ms may be shorter than the offset of its clock"); //$NON-NLS-1$
+            }
+        }
+
+        /* The hulls of the pairs are independent, solve them concurrently */
+        List<XenSyncFormula.Domain> domains = new ArrayList<>();
+        ParallelFetcher.fetch(hulls.values(), hull -> hull.solve(counters.get(hull.getHost())), (hull, domain) -> domains.add(domain), monitor);
+        if (monitor.isCanceled()) {
+            return null;
+        }
+        return new XenSyncFormula(domains);
+    }
+
+    /**
+     * @return The window of the matching in nanoseconds, from the parameter of
+     *         the analysis
+     */
+    private long getWindow() {
+        Object value = getParameter(WINDOW_PARAMETER);
+        if (value instanceof Number && ((Number) value).longValue() > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            try {
+                long window = Long.parseLong(((String) value).trim());
+                if (window > 0) {
+                    return TimeUnit.MILLISECONDS.toNanos(window);
+                }
+            } catch (NumberFormatException e) {
+                /* Fall back to the default window */
+            }
+        }
+        if (value != null) {
+            Activator.getInstance().logWarning("Invalid Xen synchronization window, the default one is used: " + value); //$NON-NLS-1$
+        }
+        return XenHypercallMatcher.DEFAULT_WINDOW;
+    }
+
+    @Override
+    protected void canceling() {
+        ITmfEventRequest request = fRequest;
+        if (request != null && !request.isCompleted()) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * @return The formulas of the domains of the experiment, or null until the
+     *         analysis is complete
+     */
+    public @Nullable XenSyncFormula getFormula() {
+        return fFormula;
+    }
+}
@@ -9,6 +9,11 @@
 
 package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
@@ -35,6 +40,12 @@ public class CgroupAspect implements ITmfEventAspect<String> {
 
     private static final IProgressMonitor NULL_MONITOR = new NullProgressMonitor();
 
+    /*
+     * Resolver of each experiment. The resolvers belong to the analysis
+     * modules, so both keys and values are weak.
+     */
+    private static final Map<ITmfTrace, WeakReference<CgroupResolver>> RESOLVERS = Collections.synchronizedMap(new WeakHashMap<>());
+
     // ------------------------------------------------------------------------
     // Constructor
     // ------------------------------------------------------------------------\
@@ -80,26 +91,7 @@ public class CgroupAspect implements ITmfEventAspect<String> {
             return null;
         }
 
-        /* Find the container analysis module for the trace. Normally, the trace to resolve this aspect
-         * is part of an experiment, so we check if the parent provides the container analysis. */
-        ITmfTrace parent = (ITmfTrace)event.getTrace().getParent();
-        if (parent == null) {
-            return null;
-        }
-
-        ContainerAnalysis analysis = TmfTraceUtils.getAnalysisModuleOfClass(parent,
-                ContainerAnalysis.class, ContainerAnalysis.ID);
-
-        if (analysis == null) {
-            return null;
-        }
-
-        long ts = event.getTimestamp().toNanos();
-        while (block && !analysis.isQueryable(ts) && !monitor.isCanceled()) {
-            Thread.sleep(100);
-        }
-
-        return analysis.getCpuControllerCgroup(tid, ts);
+        return resolve(tid, event, block, monitor);
     }
 
     /**
@@ -125,18 +117,25 @@ public class CgroupAspect implements ITmfEventAspect<String> {
             return null;
         }
 
-        ContainerAnalysis analysis = TmfTraceUtils.getAnalysisModuleOfClass(parent,
-                ContainerAnalysis.class, ContainerAnalysis.ID);
-
-        if (analysis == null) {
+        CgroupResolver resolver = getResolver(parent);
+        if (resolver == null) {
             return null;
         }
+        return resolver.resolve(tid, event.getTimestamp().toNanos(), block, monitor);
+    }
 
-        long ts = event.getTimestamp().toNanos();
-        while (block && !analysis.isQueryable(ts) && !monitor.isCanceled()) {
-            Thread.sleep(100);
+    private static @Nullable CgroupResolver getResolver(ITmfTrace experiment) {
+        WeakReference<CgroupResolver> reference = RESOLVERS.get(experiment);
+        CgroupResolver resolver = (reference == null) ? null : reference.get();
+        if (resolver == null) {
+            ContainerAnalysis analysis = TmfTraceUtils.getAnalysisModuleOfClass(experiment,
+                    ContainerAnalysis.class, ContainerAnalysis.ID);
+            if (analysis == null) {
+                return null;
+            }
+            resolver = analysis.getCgroupResolver();
+            RESOLVERS.put(experiment, new WeakReference<>(resolver));
         }
-
-        return analysis.getCpuControllerCgroup(tid, ts);
+        return resolver;
     }
 }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Result of a batch cgroup lookup, see
+ * {@link ContainerAnalysis#getCpuControllerCgroups(long[], long[])}.
+ *
+ * The result of each query is an index in the table of the distinct cgroups
+ * found, or {@link #UNKNOWN}.
+ */
+public final class CgroupLookupResult {
+
+    /** Index of the queries whose cgroup is not known */
+    public static final int UNKNOWN = -1;
+
+    private final int[] fIndexes;
+    private final String[] fCgroups;
+
+    /**
+     * Constructor
+     *
+     * @param indexes
+     *            The cgroup index of each query.
+     * @param cgroups
+     *            The distinct cgroups.
+     */
+    CgroupLookupResult(int[] indexes, String[] cgroups) {
+        fIndexes = indexes;
+        fCgroups = cgroups;
+    }
+
+    /**
+     * @return The number of queries.
+     */
+    public int size() {
+        return fIndexes.length;
+    }
+
+    /**
+     * @param query
+     *            The index of the query.
+     * @return The index of the cgroup in {@link #getCgroups()}, or
+     *         {@link #UNKNOWN}.
+     */
+    public int getCgroupIndex(int query) {
+        return fIndexes[query];
+    }
+
+    /**
+     * @param query
+     *            The index of the query.
+     * @return The cgroup path, or null if not known.
+     */
+    public @Nullable String getCgroup(int query) {
+        int index = fIndexes[query];
+        return (index == UNKNOWN) ? null : fCgroups[index];
+    }
+
+    /**
+     * @return The distinct cgroups found by the queries. The array must not be
+     *         modified.
+     */
+    public String[] getCgroups() {
+        return fCgroups;
+    }
+}
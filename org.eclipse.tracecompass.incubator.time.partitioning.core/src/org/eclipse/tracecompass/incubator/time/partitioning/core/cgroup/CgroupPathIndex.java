@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+
+/**
+ * Index of the cgroup paths seen by the {@link ContainerStateProvider}.
+ *
+ * The index is a trie of path segments rooted at the hierarchy roots (the
+ * mount points of the subsystems). Every resolved path is also cached as a
+ * whole, so resolving a path that was already seen is a single hash lookup.
+ * Segments are interned since the same names (e.g. partition names) appear in
+ * every hierarchy.
+ *
+ * This class is not thread safe, it is meant to be used only from the event
+ * handling thread of the state provider.
+ */
+public final class CgroupPathIndex {
+
+    private static final char SEPARATOR = '/';
+
+    /**
+     * A cgroup in the trie.
+     */
+    private static final class Node {
+        private final @Nullable Node fParent;
+        private final String fSegment;
+        private final String fPath;
+        private final int fRootQuark;
+        private final int fQuark;
+        private final Map<String, Node> fChildren = new HashMap<>();
+        /* Non canonical paths cached for this node, e.g. with a trailing separator */
+        private @Nullable List<String> fAliases = null;
+
+        public Node(@Nullable Node parent, String segment, String path, int rootQuark, int quark) {
+            fParent = parent;
+            fSegment = segment;
+            fPath = path;
+            fRootQuark = rootQuark;
+            fQuark = quark;
+        }
+    }
+
+    /* Full path to node, for every path resolved so far */
+    private final Map<String, Node> fPaths = new HashMap<>();
+
+    /* Root path to root node */
+    private final Map<String, Node> fRoots = new HashMap<>();
+
+    /* Interned path segments */
+    private final Map<String, String> fSegments = new HashMap<>();
+
+    /**
+     * Register the root of a hierarchy. The root attribute is created if it
+     * does not exist.
+     *
+     * @param ss
+     *            The state system.
+     * @param rootPath
+     *            The mount point of the hierarchy.
+     * @return The quark of the hierarchy root.
+     */
+    public int addRoot(ITmfStateSystemBuilder ss, String rootPath) {
+        Node root = fRoots.get(rootPath);
+        if (root == null) {
+            int quark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_HIERARCHIES, rootPath);
+            root = new Node(null, rootPath, rootPath, quark, quark);
+            fRoots.put(rootPath, root);
+            fPaths.put(rootPath, root);
+        }
+        return root.fQuark;
+    }
+
+    /**
+     * Get the quark of the root cgroup of the hierarchy a path belongs to.
+     *
+     * @param ss
+     *            The state system.
+     * @param path
+     *            The path to the cgroup in the cgroup virtual filesystem.
+     * @return The quark of the root cgroup, or
+     *         {@link ITmfStateSystem#INVALID_ATTRIBUTE} if no root is found.
+     */
+    public int getRootQuark(ITmfStateSystemBuilder ss, @Nullable String path) {
+        if (path == null) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        Node node = fPaths.get(path);
+        if (node != null) {
+            return node.fRootQuark;
+        }
+        Node root = findRoot(ss, path);
+        return (root == null) ? ITmfStateSystem.INVALID_ATTRIBUTE : root.fQuark;
+    }
+
+    /**
+     * Get the quark of the cgroup at a given path. The attributes of the
+     * cgroups along the path are created if they do not exist.
+     *
+     * @param ss
+     *            The state system.
+     * @param path
+     *            The path to the cgroup in the cgroup virtual filesystem.
+     * @return The quark of the cgroup, or
+     *         {@link ITmfStateSystem#INVALID_ATTRIBUTE} if the path does not
+     *         belong to a known hierarchy.
+     */
+    public int getCgroupQuark(ITmfStateSystemBuilder ss, @Nullable String path) {
+        if (path == null) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        Node node = fPaths.get(path);
+        if (node != null) {
+            return node.fQuark;
+        }
+
+        Node root = findRoot(ss, path);
+        if (root == null) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+
+        /* Walk down the trie from the root, adding the missing cgroups */
+        node = root;
+        int start = root.fPath.length();
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = getOrAddChild(ss, node, path, start, end);
+            }
+            start = end + 1;
+        }
+        if (!path.equals(node.fPath)) {
+            List<String> aliases = node.fAliases;
+            if (aliases == null) {
+                aliases = new ArrayList<>(1);
+                node.fAliases = aliases;
+            }
+            aliases.add(path);
+        }
+        fPaths.put(path, node);
+        return node.fQuark;
+    }
+
+    /**
+     * Forget a cgroup and all its descendants, for instance when the cgroup is
+     * destroyed. Hierarchy roots are never removed.
+     *
+     * @param path
+     *            The path to the cgroup in the cgroup virtual filesystem.
+     */
+    public void remove(@Nullable String path) {
+        if (path == null) {
+            return;
+        }
+        Node node = fPaths.get(path);
+        if (node == null) {
+            node = findNode(path);
+        }
+        Node parent = (node == null) ? null : node.fParent;
+        if (node == null || parent == null) {
+            return;
+        }
+        parent.fChildren.remove(node.fSegment);
+
+        /*
+         * Evict every path cached for the subtree, so that a cgroup created
+         * later at the same path is resolved from the trie again
+         */
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(node);
+        while (!toVisit.isEmpty()) {
+            Node current = toVisit.pop();
+            fPaths.remove(current.fPath, current);
+            List<String> aliases = current.fAliases;
+            if (aliases != null) {
+                for (String alias : aliases) {
+                    fPaths.remove(alias, current);
+                }
+            }
+            toVisit.addAll(current.fChildren.values());
+        }
+        fPaths.remove(path);
+    }
+
+    /**
+     * Find the node of a path in the trie, without adding the missing cgroups.
+     */
+    private @Nullable Node findNode(String path) {
+        Node node = null;
+        String prefix = path;
+        while (node == null && !prefix.isEmpty()) {
+            node = fRoots.get(prefix);
+            int last = prefix.lastIndexOf(SEPARATOR);
+            if (node != null || last < 0) {
+                break;
+            }
+            prefix = (last == 0 && prefix.length() > 1) ? String.valueOf(SEPARATOR) : prefix.substring(0, last);
+        }
+        if (node == null) {
+            return null;
+        }
+        int start = node.fPath.length();
+        int length = path.length();
+        while (node != null && start < length) {
+            int end = path.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.fChildren.get(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private Node getOrAddChild(ITmfStateSystemBuilder ss, Node parent, String path, int start, int end) {
+        String segment = path.substring(start, end);
+        Node child = parent.fChildren.get(segment);
+        if (child == null) {
+            String interned = fSegments.putIfAbsent(segment, segment);
+            if (interned != null) {
+                segment = interned;
+            }
+            int quark = ss.getQuarkRelativeAndAdd(parent.fQuark, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, segment);
+            child = new Node(parent, segment, path.substring(0, end), parent.fRootQuark, quark);
+            parent.fChildren.put(segment, child);
+            fPaths.putIfAbsent(child.fPath, child);
+        }
+        return child;
+    }
+
+    /**
+     * Find the longest registered hierarchy root that is a prefix of the path.
+     * Roots present in the state system but not yet in the index are added.
+     */
+    private @Nullable Node findRoot(ITmfStateSystemBuilder ss, String path) {
+        int hierarchiesQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_HIERARCHIES);
+        String prefix = path;
+        while (!prefix.isEmpty()) {
+            Node root = fRoots.get(prefix);
+            if (root != null) {
+                return root;
+            }
+            int quark = ss.optQuarkRelative(hierarchiesQuark, prefix);
+            if (quark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                root = new Node(null, prefix, prefix, quark, quark);
+                fRoots.put(prefix, root);
+                fPaths.put(prefix, root);
+                return root;
+            }
+            int last = prefix.lastIndexOf(SEPARATOR);
+            if (last < 0) {
+                break;
+            }
+            prefix = (last == 0 && prefix.length() > 1) ? String.valueOf(SEPARATOR) : prefix.substring(0, last);
+        }
+        return null;
+    }
+}
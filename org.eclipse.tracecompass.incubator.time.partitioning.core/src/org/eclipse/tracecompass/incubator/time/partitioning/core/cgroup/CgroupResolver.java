@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+
+/**
+ * Resolves the cpu controller cgroup of threads for the events of an
+ * experiment, for the {@link CgroupAspect}. There is one resolver per
+ * {@link ContainerAnalysis}.
+ *
+ * The last interval of the cgroup attribute of every thread is kept, since
+ * consecutive events of a thread usually fall in the same interval.
+ */
+final class CgroupResolver {
+
+    /* Time to wait for the analysis at once, before checking its progress */
+    private static final long WAIT_TIMEOUT_MS = 100;
+
+    /* Number of threads above which the cache is cleared */
+    private static final int MAX_CACHED_TIDS = 1 << 16;
+
+    /**
+     * The cgroup attribute of a thread and its last queried interval.
+     */
+    private static final class TidEntry {
+        private final int fQuark;
+        private final @Nullable ITmfStateInterval fInterval;
+
+        public TidEntry(int quark, @Nullable ITmfStateInterval interval) {
+            fQuark = quark;
+            fInterval = interval;
+        }
+    }
+
+    private final ContainerAnalysis fModule;
+    private final Map<Long, TidEntry> fTids = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param module
+     *            The analysis module.
+     */
+    public CgroupResolver(ContainerAnalysis module) {
+        fModule = module;
+    }
+
+    /**
+     * Get the cpu controller cgroup of a thread at a given time.
+     *
+     * @param tid
+     *            The thread ID.
+     * @param ts
+     *            The time in nanoseconds.
+     * @param block
+     *            Whether to wait for the analysis to reach the time.
+     * @param monitor
+     *            The monitor to cancel the wait.
+     * @return The cgroup path, or null if not known.
+     * @throws InterruptedException
+     *             If the thread is interrupted while waiting.
+     */
+    public @Nullable String resolve(long tid, long ts, boolean block, IProgressMonitor monitor) throws InterruptedException {
+        ContainerAnalysis analysis = fModule;
+        if (block) {
+            analysis.waitForInitialization();
+        }
+        ITmfStateSystem ss = analysis.getStateSystem();
+        if (ss == null) {
+            return null;
+        }
+        while (block && !analysis.isQueryable(ts) && !monitor.isCanceled()) {
+            /* Returns as soon as the analysis completes */
+            ss.waitUntilBuilt(WAIT_TIMEOUT_MS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        if (ts < ss.getStartTime() || ts > ss.getCurrentEndTime()) {
+            return null;
+        }
+
+        TidEntry entry = fTids.get(tid);
+        ITmfStateInterval interval = (entry == null) ? null : entry.fInterval;
+        if (interval != null && interval.intersects(ts)) {
+            return toCgroup(interval);
+        }
+
+        int quark = (entry == null) ? ITmfStateSystem.INVALID_ATTRIBUTE : entry.fQuark;
+        if (quark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            quark = ss.optQuarkAbsolute(ContainerAttributes.CGROUPS_PIDS, Long.toString(tid), "cpu"); //$NON-NLS-1$
+            if (quark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+                return null;
+            }
+        }
+
+        try {
+            interval = ss.querySingleState(ts, quark);
+        } catch (StateSystemDisposedException e) {
+            return null;
+        }
+        if (fTids.size() >= MAX_CACHED_TIDS) {
+            fTids.clear();
+        }
+        fTids.put(tid, new TidEntry(quark, interval));
+        return toCgroup(interval);
+    }
+
+    private static @Nullable String toCgroup(ITmfStateInterval interval) {
+        Object value = interval.getValue();
+        return (value instanceof String) ? (String) value : null;
+    }
+}
@@ -9,18 +9,32 @@
 
 package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.PartitionSummary;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
 import org.eclipse.tracecompass.tmf.core.analysis.requirements.TmfAbstractAnalysisRequirement;
+import org.eclipse.tracecompass.tmf.core.analysis.requirements.TmfAbstractAnalysisRequirement.PriorityLevel;
+import org.eclipse.tracecompass.tmf.core.analysis.requirements.TmfAnalysisEventRequirement;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.TmfStateSystemAnalysisModule;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 
 /**
@@ -34,9 +48,63 @@ public class ContainerAnalysis extends TmfStateSystemAnalysisModule {
     /** The ID of this analysis module */
     public static final String ID = "org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.analysis"; //$NON-NLS-1$
 
+    private static final String SUMMARY_FILE_EXTENSION = ".summary"; //$NON-NLS-1$
+
+    private final CgroupResolver fCgroupResolver = new CgroupResolver(this);
+
+    private volatile @Nullable PartitionSummary fPartitionSummary = null;
+
+    /* Whether a partition schedule file was found for the experiment */
+    private volatile boolean fHasSchedule = false;
+
     @Override
     protected @NonNull ITmfStateProvider createStateProvider() {
-        return new ContainerStateProvider((TmfExperiment) checkNotNull(getTrace()));
+        TmfExperiment experiment = (TmfExperiment) checkNotNull(getTrace());
+        PartitionSchedule schedule = PartitionSchedule.load(experiment);
+        fHasSchedule = (schedule != null);
+        return new ContainerStateProvider(experiment, schedule);
+    }
+
+    @Override
+    protected boolean executeAnalysis(@Nullable IProgressMonitor monitor) throws TmfAnalysisException {
+        boolean built = super.executeAnalysis(monitor);
+        ITmfStateSystem ss = getStateSystem();
+        ITmfTrace trace = getTrace();
+        if (!built || ss == null || trace == null) {
+            return built;
+        }
+
+        /* Summarize the running partitions for the zoomed-out views */
+        List<@NonNull Integer> cpuQuarks = ss.getQuarks(ContainerAttributes.CURRENT_PARTITION, "*"); //$NON-NLS-1$
+        Map<Integer, Integer> diffQuarks = new HashMap<>();
+        for (Integer cpuQuark : cpuQuarks) {
+            int diffQuark = ss.optQuarkRelative(cpuQuark, ContainerAttributes.CURRENT_PARTITION_DIFF);
+            if (diffQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                diffQuarks.put(cpuQuark, diffQuark);
+            }
+        }
+        String directory = TmfTraceManager.getSupplementaryFileDir(trace);
+        File file = new File(directory + getId() + SUMMARY_FILE_EXTENSION);
+        long stamp = PartitionSummary.getStamp(ContainerStateProvider.VERSION, new File(directory + getSsFileName()),
+                PartitionSchedule.findScheduleFile((TmfExperiment) trace));
+        fPartitionSummary = PartitionSummary.loadOrBuild(ss, file, stamp, cpuQuarks, diffQuarks, monitor);
+        return built;
+    }
+
+    /**
+     * @return The summary of the CurrentPartition/CPU* attributes, or null
+     *         until the analysis and its summary are complete.
+     */
+    public @Nullable PartitionSummary getPartitionSummary() {
+        return fPartitionSummary;
+    }
+
+    /**
+     * @return Whether the partition schedule file was found, without it the
+     *         budgets of the partitions and their windows are not checked.
+     */
+    public boolean hasSchedule() {
+        return fHasSchedule;
     }
 
     @Override
@@ -49,9 +117,23 @@ public class ContainerAnalysis extends TmfStateSystemAnalysisModule {
         return NonNullUtils.nullToEmptyString("Tracks the state of control groups and containers."); //$NON-NLS-1$
     }
 
+    /**
+     * The requirement only decides whether the analysis applies to a trace.
+     * TMF gives the analysis no hook to select the streams or event types it
+     * reads, so every event of the experiment is still decoded and passed to
+     * the state provider, which ignores the events it does not handle.
+     */
     @Override
     public Iterable<TmfAbstractAnalysisRequirement> getAnalysisRequirements() {
-        return Collections.emptySet();
+        return Collections.singleton(new TmfAnalysisEventRequirement(ContainerStateProvider.getHandledEventNames(), PriorityLevel.AT_LEAST_ONE));
+    }
+
+    /**
+     * @return The resolver of the cgroups of threads for the events of the
+     *         experiment.
+     */
+    CgroupResolver getCgroupResolver() {
+        return fCgroupResolver;
     }
 
     /**
@@ -90,4 +172,131 @@ public class ContainerAnalysis extends TmfStateSystemAnalysisModule {
 
         return (String)objCgroup;
     }
+
+    /**
+     * Get the cpu controller cgroups of many threads at once. The queries are
+     * answered with a single 2D query of the cgroup attributes of the threads
+     * over the time range of the queries, swept in time order.
+     *
+     * @param tids
+     *            The ID of the thread of each query.
+     * @param times
+     *            The time of each query in nanoseconds, in increasing order.
+     * @return The cgroup of each query.
+     * @throws IllegalArgumentException
+     *             If the arrays have different lengths or the times are not
+     *             sorted.
+     */
+    public CgroupLookupResult getCpuControllerCgroups(long[] tids, long[] times) {
+        return getCpuControllerCgroups(getStateSystem(), tids, times);
+    }
+
+    /**
+     * Get the cpu controller cgroups of many threads at once in the state
+     * system of a container analysis, see
+     * {@link #getCpuControllerCgroups(long[], long[])}.
+     *
+     * @param stateSystem
+     *            The state system of the analysis, or null if not available.
+     * @param tids
+     *            The ID of the thread of each query.
+     * @param times
+     *            The time of each query in nanoseconds, in increasing order.
+     * @return The cgroup of each query.
+     * @throws IllegalArgumentException
+     *             If the arrays have different lengths or the times are not
+     *             sorted.
+     */
+    public static CgroupLookupResult getCpuControllerCgroups(@Nullable ITmfStateSystem stateSystem, long[] tids, long[] times) {
+        if (tids.length != times.length) {
+            throw new IllegalArgumentException("There must be one time per thread"); //$NON-NLS-1$
+        }
+        for (int i = 1; i < times.length; i++) {
+            if (times[i] < times[i - 1]) {
+                throw new IllegalArgumentException("The query times must be sorted"); //$NON-NLS-1$
+            }
+        }
+
+        int[] indexes = new int[tids.length];
+        Arrays.fill(indexes, CgroupLookupResult.UNKNOWN);
+        if (stateSystem == null || tids.length == 0) {
+            return new CgroupLookupResult(indexes, new String[0]);
+        }
+        long start = Math.max(times[0], stateSystem.getStartTime());
+        long end = Math.min(times[times.length - 1], stateSystem.getCurrentEndTime());
+        if (start > end) {
+            return new CgroupLookupResult(indexes, new String[0]);
+        }
+
+        /* Cgroup attribute of each distinct thread */
+        Map<Long, Integer> slots = new HashMap<>();
+        Map<Integer, Integer> quarkSlots = new HashMap<>();
+        List<Integer> quarks = new ArrayList<>();
+        int[] querySlots = new int[tids.length];
+        for (int i = 0; i < tids.length; i++) {
+            Integer slot = slots.get(tids[i]);
+            if (slot == null) {
+                int quark = stateSystem.optQuarkAbsolute(ContainerAttributes.CGROUPS_PIDS, Long.toString(tids[i]),
+                        "cpu"); //$NON-NLS-1$
+                slot = (quark == ITmfStateSystem.INVALID_ATTRIBUTE) ? -1 : quarks.size();
+                if (quark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                    quarks.add(quark);
+                    quarkSlots.put(quark, slot);
+                }
+                slots.put(tids[i], slot);
+            }
+            querySlots[i] = slot;
+        }
+        if (quarks.isEmpty()) {
+            return new CgroupLookupResult(indexes, new String[0]);
+        }
+
+        /* Intervals of each attribute, sorted by time */
+        List<List<ITmfStateInterval>> intervals = new ArrayList<>();
+        for (int i = 0; i < quarks.size(); i++) {
+            intervals.add(new ArrayList<>());
+        }
+        try {
+            for (ITmfStateInterval interval : stateSystem.query2D(quarks, start, end)) {
+                intervals.get(quarkSlots.get(interval.getAttribute())).add(interval);
+            }
+        } catch (StateSystemDisposedException e) {
+            return new CgroupLookupResult(indexes, new String[0]);
+        }
+        for (List<ITmfStateInterval> list : intervals) {
+            list.sort(Comparator.comparingLong(ITmfStateInterval::getStartTime));
+        }
+
+        /* Sweep the queries, advancing in the intervals of each thread */
+        int[] positions = new int[quarks.size()];
+        Map<String, Integer> cgroupIndexes = new HashMap<>();
+        List<String> cgroups = new ArrayList<>();
+        for (int i = 0; i < tids.length; i++) {
+            int slot = querySlots[i];
+            long time = times[i];
+            if (slot < 0 || time < start || time > end) {
+                continue;
+            }
+            List<ITmfStateInterval> list = intervals.get(slot);
+            int position = positions[slot];
+            while (position < list.size() && list.get(position).getEndTime() < time) {
+                position++;
+            }
+            positions[slot] = position;
+            if (position == list.size() || !list.get(position).intersects(time)) {
+                continue;
+            }
+            Object value = list.get(position).getValue();
+            if (value instanceof String) {
+                Integer index = cgroupIndexes.get(value);
+                if (index == null) {
+                    index = cgroups.size();
+                    cgroups.add((String) value);
+                    cgroupIndexes.put((String) value, index);
+                }
+                indexes[i] = index;
+            }
+        }
+        return new CgroupLookupResult(indexes, cgroups.toArray(new String[cgroups.size()]));
+    }
 }
@@ -22,6 +22,9 @@ public final class ContainerAttributes {
     public static final String CGROUPS_SUBSYS = "Cgroups Subsystems";
     public static final String CGROUPS_PIDS = "Cgroups PIDs";
     public static final String CGROUPS_METRICS = "Cgroups Metrics";
+    public static final String CURRENT_PARTITION = "CurrentPartition";
+    public static final String PARTITION = "Partition";
+    public static final String SCHEDULE = "Schedule";
 
     /* Cgroups subsystems description */
     public static final String CGROUP_SUBSYS_ROOT_PATH = "Root path";
@@ -33,6 +36,16 @@ public final class ContainerAttributes {
     public static final String CGROUPS_HIERARCHIES_FILES = "FILES";
     public static final String CGROUPS_HIERARCHIES_CGROUP_IS_ACTIVE = "IsActive";
 
+    /* Current partition attributes */
+    public static final String CURRENT_PARTITION_DIFF = "diff";
+
+    /* Schedule compliance attributes */
+    public static final String SCHEDULE_STATUS = "status";
+    public static final String SCHEDULE_OVERRUN = "overrun";
+    public static final String SCHEDULE_UNDERRUN = "underrun";
+    public static final String SCHEDULE_LATE_START = "late start";
+    public static final String SCHEDULE_EARLY_PREEMPTION = "early preemption";
+
     /* Cgroups files attributes */
     public static final String CGROUPS_FILE_PAIR_VALUES_LINE_SEPARATOR = "\n";
     public static final String CGROUPS_FILE_PAIR_VALUES_KEY_SEPARATOR = " ";
@@ -57,9 +57,12 @@ final class ContainerEventNames {
 
     static final String SCHED_PROCESS_FORK = "sched_process_fork";
     static final String SCHED_PROCESS_EXIT = "sched_process_exit";
+    static final String SCHED_SWITCH = "sched_switch";
     static final String SCHED_TID_FIELD = "tid";
     static final String SCHED_PARENT_TID_FIELD = "parent_tid";
     static final String SCHED_CHILD_TID_FIELD = "child_tid";
+    static final String SCHED_PREV_TID_FIELD = "prev_tid";
+    static final String SCHED_NEXT_TID_FIELD = "next_tid";
 
     /* Control groups filenames */
     static final String CGRP_FILENAME_PROCS = "cgroup.procs";
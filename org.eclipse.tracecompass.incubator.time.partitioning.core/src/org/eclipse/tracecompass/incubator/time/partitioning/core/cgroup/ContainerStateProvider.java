@@ -11,13 +11,15 @@ package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
-import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.EventTypeDispatchTable;
 import org.eclipse.tracecompass.internal.analysis.os.linux.core.kernel.handlers.KernelEventHandlerUtils;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
@@ -27,6 +29,8 @@ import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 
+import com.google.common.collect.ImmutableMap;
+
 /**
  * State provider for the Container analysis.
  *
@@ -41,15 +45,109 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * Version number of this state provider. Please bump this if you modify the
      * contents of the generated state history in some way.
      */
-    private static final int VERSION = 0;
+    static final int VERSION = 4;
+
+    /* Mount point of the cpu controller, stripped to get the partition name */
+    private static final Pattern CPU_CGROUP_ROOT = Pattern.compile("/sys/fs/cgroup/cpu,cpuacct", Pattern.LITERAL); //$NON-NLS-1$
+
+    private static final String CPU_SUBSYS = "cpu"; //$NON-NLS-1$
+    private static final String CPU_PREFIX = "CPU"; //$NON-NLS-1$
+
+    /* Partition ID of threads outside of any partition (or in the root cgroup) */
+    private static final int NO_PARTITION = 0;
+
+    /* Event handlers, see eventHandle */
+    private static final int HANDLER_SUBSYS_ROOT = 0;
+    private static final int HANDLER_ATTACHED_PIDS = 1;
+    private static final int HANDLER_STATUS = 2;
+    private static final int HANDLER_FILE_UNIQUE_VALUE = 3;
+    private static final int HANDLER_FILE_NUMERIC_VALUE = 4;
+    private static final int HANDLER_FILE_PAIR_VALUES = 5;
+    private static final int HANDLER_FILE_EMPTY = 6;
+    private static final int HANDLER_PROCESS_EXIT = 7;
+    private static final int HANDLER_PROCESS_FORK = 8;
+    private static final int HANDLER_SCHED_SWITCH = 9;
+
+    private static final Map<String, Integer> HANDLERS = ImmutableMap.<String, Integer> builder()
+            .put(ContainerEventNames.CGRP_SUBSYS_ROOT, HANDLER_SUBSYS_ROOT)
+            .put(ContainerEventNames.CGRP_ATTACHED_PIDS, HANDLER_ATTACHED_PIDS)
+            .put(ContainerEventNames.CGRP_STATUS, HANDLER_STATUS)
+            .put(ContainerEventNames.CGRP_FILE_INT_VALUE, HANDLER_FILE_NUMERIC_VALUE)
+            .put(ContainerEventNames.CGRP_FILE_UINT_VALUE, HANDLER_FILE_NUMERIC_VALUE)
+            .put(ContainerEventNames.CGRP_FILE_STRING_VALUE, HANDLER_FILE_UNIQUE_VALUE)
+            .put(ContainerEventNames.CGRP_FILE_STRING_PAIR_VALUES, HANDLER_FILE_PAIR_VALUES)
+            .put(ContainerEventNames.CGRP_FILE_EMPTY, HANDLER_FILE_EMPTY)
+            .put(ContainerEventNames.SCHED_PROCESS_EXIT, HANDLER_PROCESS_EXIT)
+            .put(ContainerEventNames.SCHED_PROCESS_FORK, HANDLER_PROCESS_FORK)
+            .put(ContainerEventNames.SCHED_SWITCH, HANDLER_SCHED_SWITCH)
+            .build();
+
+    private static final int NO_QUARK = ITmfStateSystem.INVALID_ATTRIBUTE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * A partition, i.e. a non root cgroup of the cpu controller. Partitions
+     * are interned so that the sched_switch handler works on IDs only.
+     */
+    private static final class Partition {
+        private final String fName;
+        private final boolean fHasBudget;
+        private final long fBudget;
+        /* Number of threads of the partition running on a CPU */
+        private int fActiveThreads = 0;
+        /* Start time of the current execution window */
+        private long fStartTime = NO_TIME;
+        /* Quarks of Partition/<name>/CPU<n>, indexed by CPU */
+        private int[] fCpuQuarks = new int[0];
+
+        public Partition(String name, @Nullable Long budget) {
+            fName = name;
+            fHasBudget = (budget != null);
+            fBudget = (budget != null) ? budget : 0L;
+        }
+    }
+
+    /* Partition schedule, null if the trace has no schedule file */
+    private final @Nullable PartitionSchedule fSchedule;
+
+    /* Checks the execution windows of the schedule, if any */
+    private final @Nullable ScheduleComplianceChecker fComplianceChecker;
+
+    /* Time of the last event, where the windows of the schedule are flushed */
+    private long fLastTime = Long.MIN_VALUE;
+
+    /* Partition relative path to partition ID */
+    private final Map<String, Integer> fPartitionIds;
+
+    /* Partitions, indexed by partition ID. Index NO_PARTITION is unused. */
+    private Partition[] fPartitions;
 
-    /* Partition ID to start time map */
-    private Map<String, Long> fPartitionIntervals;
+    /* Partition ID of every thread in a cgroup of the cpu controller */
+    private final TidPartitionTable fTidPartitions;
 
-    /* Per partition schedule in _NANOSECONDS_ */
-    private Map<String, List<Long>> fSchedule;
+    /* Quarks of CurrentPartition and CurrentPartition/CPU<n>(/diff) */
+    private int fCurrentPartitionQuark = NO_QUARK;
+    private int[] fCpuQuarks = new int[0];
+    private int[] fCpuDiffQuarks = new int[0];
 
-    private Map<String, Long> fActivePartitions;
+    /* PIDs attached to each cgroup, by cgroup quark */
+    private final Map<Integer, PidSet> fCgroupMembers;
+
+    /* Pair values files, by file quark */
+    private final Map<Integer, PairValuesFile> fPairValuesFiles;
+
+    /*
+     * Quarks of the cgroup files holding numbers and text. The first value of
+     * a file sets the type of its attribute, which must never change.
+     */
+    private final Set<Integer> fNumericFileQuarks = new HashSet<>();
+    private final Set<Integer> fTextFileQuarks = new HashSet<>();
+
+    /* Cgroup path to quark index */
+    private final CgroupPathIndex fPathIndex;
+
+    /* Event type to handler */
+    private final EventTypeDispatchTable fDispatchTable;
 
     // ------------------------------------------------------------------------
     // Constructor
@@ -62,14 +160,29 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      *            The experiment that will be analyzed.
      */
     public ContainerStateProvider(TmfExperiment experiment) {
-        super(experiment, "Container State Provider"); //$NON-NLS-1$
-        fSchedule = new HashMap<>();
-
-        fSchedule.put("p1", Arrays.asList(100000000L));
-        fSchedule.put("p11", Arrays.asList(100000000L));
+        this(experiment, PartitionSchedule.load(experiment));
+    }
 
-        fPartitionIntervals = new HashMap<>();
-        fActivePartitions = new HashMap<>();
+    /**
+     * Instantiate a new state provider plugin.
+     *
+     * @param experiment
+     *            The experiment that will be analyzed.
+     * @param schedule
+     *            The partition schedule, or null if unknown.
+     */
+    ContainerStateProvider(TmfExperiment experiment, @Nullable PartitionSchedule schedule) {
+        super(experiment, "Container State Provider"); //$NON-NLS-1$
+        fSchedule = schedule;
+        fPartitionIds = new HashMap<>();
+        fPartitions = new Partition[1];
+        fTidPartitions = new TidPartitionTable(NO_PARTITION);
+        fPathIndex = new CgroupPathIndex();
+        fCgroupMembers = new HashMap<>();
+        fPairValuesFiles = new HashMap<>();
+        fDispatchTable = new EventTypeDispatchTable(HANDLERS);
+        fComplianceChecker = (schedule == null) ? null : new ScheduleComplianceChecker(schedule,
+                name -> getPartitionIdFromRelativePath('/' + name), NO_PARTITION);
     }
 
     // ------------------------------------------------------------------------
@@ -92,80 +205,24 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
 
     @Override
     public ContainerStateProvider getNewInstance() {
-        return new ContainerStateProvider(getTrace());
+        return new ContainerStateProvider(getTrace(), fSchedule);
     }
 
-    /**
-     * Get the quark for the root cgroup corresponding to a given cgroup path.
-     *
-     * @param ss
-     *            The state system.
-     * @param path
-     *            The path to the cgroup in the cgroup virtual filesystem.
-     * @return The quark for the root cgroup, or null if root is not found.
-     */
-    private static @Nullable Integer getCgroupRootQuark(ITmfStateSystemBuilder ss, @Nullable String path) {
-        if (path == null) {
-            return null;
-        }
-
-        int hierarchiesQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_HIERARCHIES);
-        File cgrpRoot = new File(path);
-
-        int q;
-        while (cgrpRoot != null) {
-            q = ss.optQuarkRelative(hierarchiesQuark, cgrpRoot.getPath());
-            if (q == ITmfStateSystem.INVALID_ATTRIBUTE) {
-                cgrpRoot = cgrpRoot.getParentFile();
-            } else {
-                return q;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Get the quark for the cgroup corresponding to a given cgroup path.
-     *
-     * @param ss
-     *            The state system.
-     * @param cgrpPath
-     *            The path to the cgroup in the cgroup virtual filesystem.
-     * @return The quark for the cgroup, or null if not found.
-     */
-    private static @Nullable Integer getCgroupQuark(ITmfStateSystemBuilder ss, @Nullable String cgrpPath) {
-        Integer rootQuark = getCgroupRootQuark(ss, cgrpPath);
-
-        if (rootQuark == null) {
-            return null;
+    @Override
+    public void done() {
+        ScheduleComplianceChecker checker = fComplianceChecker;
+        ITmfStateSystemBuilder ss = getStateSystemBuilder();
+        if (checker != null && ss != null && fLastTime != Long.MIN_VALUE) {
+            checker.flush(ss, fLastTime);
         }
-
-        return getCgroupQuarkFromRoot(ss, rootQuark, cgrpPath);
+        super.done();
     }
 
     /**
-     * Get the quark for the cgroup given the cgroup path and the root cgroup quark.
-     *
-     * @param ss
-     *            The state system.
-     * @param rootQuark
-     *            The quark corresponding to the root cgroup.
-     * @param cgrpPath
-     *            The path to the cgroup in the cgroup virtual filesystem.
-     * @return The quark for the cgroup, or null if not found.
+     * @return The names of the events handled by this state provider.
      */
-    private static @Nullable Integer getCgroupQuarkFromRoot(ITmfStateSystemBuilder ss, Integer rootQuark, @Nullable String cgrpPath) {
-        if (cgrpPath == null) {
-            return null;
-        }
-
-        String rootPath = ss.getAttributeName(rootQuark);
-        String[] pathArray = cgrpPath.substring(rootPath.length()).split("/"); //$NON-NLS-1$
-        Integer currQuark = rootQuark;
-        for (int i = 1; i < pathArray.length; i++) {
-            currQuark = ss.getQuarkRelativeAndAdd(currQuark, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, pathArray[i]);
-        }
-        return currQuark;
+    static Set<String> getHandledEventNames() {
+        return HANDLERS.keySet();
     }
 
     /**
@@ -208,8 +265,10 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param fileQuark
      *            The quark corresponding to the cgroup file.
      */
-    private static void cgroupFileCleanValues(ITmfStateSystemBuilder ss, ITmfEvent event, int fileQuark) {
-        ss.modifyAttribute(event.getTimestamp().toNanos(), ContainerAttributes.CGROUPS_FILE_EMPTY_VALUE, fileQuark);
+    private void cgroupFileCleanValues(ITmfStateSystemBuilder ss, ITmfEvent event, int fileQuark) {
+        // Only text files are emptied with an empty string, the others with a null value
+        Object emptyValue = fTextFileQuarks.contains(fileQuark) ? ContainerAttributes.CGROUPS_FILE_EMPTY_VALUE : null;
+        ss.modifyAttribute(event.getTimestamp().toNanos(), emptyValue, fileQuark);
         for (Integer q : ss.getSubAttributes(fileQuark, false)) {
             // Empty only the quarks having no child quark
             // Quarks having children are file keys
@@ -236,7 +295,7 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void newSubsysRootEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void newSubsysRootEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         String subsysName = eventContent.getField(ContainerEventNames.CGRP_SUBSYS_ROOT_SUBSYS_FIELD).getFormattedValue();
         String subsysPath = eventContent.getField(ContainerEventNames.CGRP_SUBSYS_ROOT_ROOT_FIELD).getFormattedValue();
@@ -247,69 +306,115 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
         ss.modifyAttribute(event.getTimestamp().toNanos(), subsysPath, quark);
 
         // Create empty hierarchy root
-        int rootQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_HIERARCHIES, subsysPath);
+        int rootQuark = fPathIndex.addRoot(ss, subsysPath);
         int subsysQuark = ss.getQuarkRelativeAndAdd(rootQuark, ContainerAttributes.CGROUPS_HIERARCHIES_SUBSYS, subsysName);
         ss.modifyAttribute(event.getTimestamp().toNanos(), ContainerAttributes.CGROUPS_ACTIVE_VALUE, subsysQuark);
     }
 
     /**
      * Event handler for cgroup PID list dump events.
-     * - Removes all PIDs from all the cgroups they
-     *   were attached to in the concerned subsystems.
+     * - Moves the PIDs that joined the cgroup from the cgroups
+     *   they were attached to in the concerned subsystems.
      * - Updates the PID list for the cgroup in the
      *   state system.
      *
+     * The list is compared to the previous list of the cgroup, so that only
+     * the PIDs that joined or left the cgroup are updated.
+     *
      * @param ss
      *            The state system.
      * @param event
      *            The trace event.
      */
-    private static void attachedPidsEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void attachedPidsEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
         String cgroupPath = getCgroupPath(eventContent);
         long[] pids = (long[]) eventContent.getField(ContainerEventNames.CGRP_ATTACHED_PIDS_PIDS_FIELD).getValue();
-        Integer cgroupRootQuark = getCgroupRootQuark(ss, cgroupPath);
-        if  (cgroupRootQuark == null) {
+        int cgroupRootQuark = fPathIndex.getRootQuark(ss, cgroupPath);
+        if (cgroupRootQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
             return;
         }
-        Integer cgroupQuark = getCgroupQuarkFromRoot(ss, cgroupRootQuark, cgroupPath);
-        if  (cgroupQuark == null) {
+        int cgroupQuark = fPathIndex.getCgroupQuark(ss, cgroupPath);
+        if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
             return;
         }
+        long ts = event.getTimestamp().toNanos();
 
-        // Update PIDs' cgroup list
+        PidSet members = new PidSet(pids.length);
+        for (long pid : pids) {
+            members.add(pid);
+        }
+        PidSet previousMembers = getCgroupMembers(cgroupQuark);
+
+        // Update the cgroup list of the PIDs that joined the cgroup
         int cgroupRootSubsysQuark = ss.getQuarkRelativeAndAdd(cgroupRootQuark, ContainerAttributes.CGROUPS_HIERARCHIES_SUBSYS);
         for (Integer q : ss.getSubAttributes(cgroupRootSubsysQuark, false)) {
             String subsysName = ss.getAttributeName(q);
             String state;
             state = (String) ss.queryOngoing(q);
             if (state == ContainerAttributes.CGROUPS_ACTIVE_VALUE) {
-                for (int i = 0; i < pids.length; i++) {
-                    int pidSubsysQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_PIDS,
-                               String.valueOf(pids[i]), subsysName);
+                int partitionId = CPU_SUBSYS.equals(subsysName) ? getPartitionId(cgroupPath) : NO_PARTITION;
+                members.forEach(pid -> {
+                    if (previousMembers.contains(pid)) {
+                        return;
+                    }
+                    String pidString = String.valueOf(pid);
+                    int pidSubsysQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_PIDS, pidString, subsysName);
                     String oldCgroupPath = (String) ss.queryOngoing(pidSubsysQuark);
-                    Integer oldCgroupQuark = getCgroupQuark(ss, oldCgroupPath);
-                    if (oldCgroupQuark != null) {
-                        int oldPidQuark = ss.getQuarkRelativeAndAdd(oldCgroupQuark,
-                                ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, String.valueOf(pids[i]));
-                        ss.removeAttribute(event.getTimestamp().toNanos(), oldPidQuark);
+                    int oldCgroupQuark = fPathIndex.getCgroupQuark(ss, oldCgroupPath);
+                    if (oldCgroupQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                        removeCgroupMember(ss, ts, oldCgroupQuark, pid);
                     }
-                    ss.modifyAttribute(event.getTimestamp().toNanos(), cgroupPath, pidSubsysQuark);
-                }
+                    ss.modifyAttribute(ts, cgroupPath, pidSubsysQuark);
+                    if (partitionId != NO_PARTITION) {
+                        fTidPartitions.put(pid, partitionId);
+                    } else if (CPU_SUBSYS.equals(subsysName)) {
+                        fTidPartitions.remove(pid);
+                    }
+                });
             }
         }
 
         // Update cgroup PIDs
         int cgroupPidsQuark = ss.getQuarkRelativeAndAdd(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_PIDS);
-        for (Integer q : ss.getSubAttributes(cgroupPidsQuark, false)) {
-            ss.removeAttribute(event.getTimestamp().toNanos(), q);
+        previousMembers.forEach(pid -> {
+            if (!members.contains(pid)) {
+                int q = ss.optQuarkRelative(cgroupPidsQuark, String.valueOf(pid));
+                if (q != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                    ss.removeAttribute(ts, q);
+                }
+            }
+        });
+        members.forEach(pid -> {
+            if (!previousMembers.contains(pid)) {
+                int q = ss.getQuarkRelativeAndAdd(cgroupPidsQuark, String.valueOf(pid));
+                ss.modifyAttribute(ts, ContainerAttributes.CGROUPS_ACTIVE_VALUE, q);
+            }
+        });
+        fCgroupMembers.put(cgroupQuark, members);
+    }
+
+    /**
+     * Get the PIDs attached to a cgroup, i.e. the active children of its PIDS
+     * attribute.
+     */
+    private PidSet getCgroupMembers(int cgroupQuark) {
+        return fCgroupMembers.computeIfAbsent(cgroupQuark, q -> new PidSet(0));
+    }
+
+    /**
+     * Detach a PID from a cgroup, if it is attached to it.
+     */
+    private void removeCgroupMember(ITmfStateSystemBuilder ss, long ts, int cgroupQuark, long pid) {
+        if (!getCgroupMembers(cgroupQuark).remove(pid)) {
+            return;
         }
-        for (int i = 0; i < pids.length; i++) {
-            int q = ss.getQuarkRelativeAndAdd(cgroupPidsQuark, String.valueOf(pids[i]));
-            ss.modifyAttribute(event.getTimestamp().toNanos(), ContainerAttributes.CGROUPS_ACTIVE_VALUE, q);
+        int pidQuark = ss.optQuarkRelative(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, String.valueOf(pid));
+        if (pidQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+            ss.removeAttribute(ts, pidQuark);
         }
     }
 
@@ -329,14 +434,14 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void cgroupStatusEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void cgroupStatusEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
         String cgrpPath = getCgroupPath(eventContent);
-        Integer cgroupQuark = getCgroupQuark(ss, cgrpPath);
-        if (cgroupQuark == null) {
+        int cgroupQuark = fPathIndex.getCgroupQuark(ss, cgrpPath);
+        if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
             return;
         }
 
@@ -354,6 +459,7 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
                     cgroupFileCleanValues(ss, event, fileQuark);
                 }
                 ss.removeAttribute(event.getTimestamp().toNanos(), cgroupActiveQuark);
+                fPathIndex.remove(cgrpPath);
                 break;
             default:
                 break;
@@ -361,7 +467,7 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
     }
 
     /**
-     * Event handler for cgroup file single value changes.
+     * Event handler for cgroup file string value changes.
      *
      * Updates the file value for the cgroup in the state system.
      *
@@ -370,20 +476,91 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void cgroupFileUniqueValueEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void cgroupFileUniqueValueEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
         String cgrpPath = getCgroupPath(eventContent);
-        Integer cgroupQuark = getCgroupQuark(ss, cgrpPath);
-        if (cgroupQuark == null) {
+        int cgroupQuark = fPathIndex.getCgroupQuark(ss, cgrpPath);
+        if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
             return;
         }
 
         int fileQuark = getCgroupFileQuark(ss, eventContent, cgroupQuark);
         String value = eventContent.getField(ContainerEventNames.CGRP_FILE_UNIQUE_VALUE_FIELD).getFormattedValue();
-        ss.modifyAttribute(event.getTimestamp().toNanos(), value, fileQuark);
+        setFileValue(ss, event.getTimestamp().toNanos(), fileQuark, null, value);
+    }
+
+    /**
+     * Event handler for cgroup file integer value changes.
+     *
+     * Updates the file value for the cgroup in the state system, as a long
+     * state value.
+     *
+     * @param ss
+     *            The state system.
+     * @param event
+     *            The trace event.
+     */
+    private void cgroupFileNumericValueEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+        ITmfEventField eventContent = event.getContent();
+        if (eventContent == null) {
+            return;
+        }
+        String cgrpPath = getCgroupPath(eventContent);
+        int cgroupQuark = fPathIndex.getCgroupQuark(ss, cgrpPath);
+        if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            return;
+        }
+
+        int fileQuark = getCgroupFileQuark(ss, eventContent, cgroupQuark);
+        ITmfEventField valueField = eventContent.getField(ContainerEventNames.CGRP_FILE_UNIQUE_VALUE_FIELD);
+        Object value = (valueField == null) ? null : valueField.getValue();
+        if (value instanceof Number) {
+            setFileValue(ss, event.getTimestamp().toNanos(), fileQuark, ((Number) value).longValue(), null);
+        } else if (valueField != null) {
+            setFileValue(ss, event.getTimestamp().toNanos(), fileQuark, null, valueField.getFormattedValue());
+        }
+    }
+
+    /**
+     * Set the value of a cgroup file, keeping the type of its attribute: a
+     * numeric file is only set to numbers or null, a text file to strings.
+     *
+     * @param ss
+     *            The state system.
+     * @param ts
+     *            The time of the change.
+     * @param fileQuark
+     *            The quark of the file.
+     * @param number
+     *            The numeric value, or null if the value is text.
+     * @param text
+     *            The text value, or null if the value is a number.
+     */
+    private void setFileValue(ITmfStateSystemBuilder ss, long ts, int fileQuark, @Nullable Long number, @Nullable String text) {
+        boolean numeric = fNumericFileQuarks.contains(fileQuark);
+        if (!numeric && !fTextFileQuarks.contains(fileQuark)) {
+            numeric = (number != null);
+            (numeric ? fNumericFileQuarks : fTextFileQuarks).add(fileQuark);
+        }
+        if (numeric) {
+            ss.modifyAttribute(ts, (number != null) ? number : parseLong(text), fileQuark);
+        } else {
+            ss.modifyAttribute(ts, (text != null) ? text : String.valueOf(number), fileQuark);
+        }
+    }
+
+    private static @Nullable Long parseLong(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     /**
@@ -397,45 +574,26 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void cgroupFilePairValuesEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void cgroupFilePairValuesEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
         String cgrpPath = getCgroupPath(eventContent);
-        Integer cgroupQuark = getCgroupQuark(ss, cgrpPath);
-        if (cgroupQuark == null) {
+        int cgroupQuark = fPathIndex.getCgroupQuark(ss, cgrpPath);
+        if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
             return;
         }
 
         int fileQuark = getCgroupFileQuark(ss, eventContent, cgroupQuark);
-        cgroupFileCleanValues(ss, event, fileQuark);
-
         String rawContent = eventContent.getField(ContainerEventNames.CGRP_FILE_PAIR_CONTENT_FIELD).getFormattedValue();
-        String[] lines = rawContent.split(ContainerAttributes.CGROUPS_FILE_PAIR_VALUES_LINE_SEPARATOR);
-        for (String line : lines) {
-            String[] lineSplit = line.split(ContainerAttributes.CGROUPS_FILE_PAIR_VALUES_KEY_SEPARATOR);
-            String key;
-            String value;
-            int valueQuark;
-            switch (lineSplit.length) {
-                case 2:
-                    key = lineSplit[0];
-                    value = lineSplit[1];
-                    valueQuark = ss.getQuarkRelativeAndAdd(fileQuark, key);
-                    ss.modifyAttribute(event.getTimestamp().toNanos(), value, valueQuark);
-                    break;
-                // Case specific to "devices" subsystem files
-                case 3:
-                    key = lineSplit[0] + ContainerAttributes.CGROUPS_FILE_PAIR_VALUES_KEY_SEPARATOR + lineSplit[1];
-                    value = lineSplit[2];
-                    valueQuark = ss.getQuarkRelativeAndAdd(fileQuark, key);
-                    ss.modifyAttribute(event.getTimestamp().toNanos(), value, valueQuark);
-                    break;
-               default:
-                   break;
-            }
+        if (fNumericFileQuarks.contains(fileQuark)) {
+            /* The pair values file empties its attribute with text */
+            return;
         }
+        fTextFileQuarks.add(fileQuark);
+        PairValuesFile file = fPairValuesFiles.computeIfAbsent(fileQuark, PairValuesFile::new);
+        file.update(ss, event.getTimestamp().toNanos(), rawContent);
     }
 
     /**
@@ -449,14 +607,14 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void cgroupFileEmptyEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void cgroupFileEmptyEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
         String cgrpPath = getCgroupPath(eventContent);
-        Integer cgroupQuark = getCgroupQuark(ss, cgrpPath);
-        if (cgroupQuark == null) {
+        int cgroupQuark = fPathIndex.getCgroupQuark(ss, cgrpPath);
+        if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
             return;
         }
 
@@ -475,127 +633,200 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void processExitEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void processExitEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
 
         long tid = (long) eventContent.getField(ContainerEventNames.SCHED_TID_FIELD).getValue();
+        long ts = event.getTimestamp().toNanos();
+        fTidPartitions.remove(tid);
         int pidQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_PIDS, String.valueOf(tid));
 
         for (Integer q : ss.getSubAttributes(pidQuark, false)) {
             String cgroupPath = (String) ss.queryOngoing(q);
-            Integer cgroupQuark = getCgroupRootQuark(ss, cgroupPath);
-            if (cgroupQuark == null) {
+            int cgroupQuark = fPathIndex.getRootQuark(ss, cgroupPath);
+            if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
                 continue;
             }
             int cgroupPidQuark = ss.getQuarkRelativeAndAdd(cgroupQuark,
                     ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, String.valueOf(tid));
-            ss.removeAttribute(event.getTimestamp().toNanos(), cgroupPidQuark);
-            ss.removeAttribute(event.getTimestamp().toNanos(), q);
+            ss.removeAttribute(ts, cgroupPidQuark);
+            getCgroupMembers(cgroupQuark).remove(tid);
+
+            // Detach the PID from its own cgroup too
+            int ownCgroupQuark = fPathIndex.getCgroupQuark(ss, cgroupPath);
+            if (ownCgroupQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                removeCgroupMember(ss, ts, ownCgroupQuark, tid);
+            }
+            ss.removeAttribute(ts, q);
         }
     }
 
     /**
-     * Event handler for sched switchs.
+     * Event handler for sched switchs. Tracks the partition running on each
+     * CPU and the deviation of every execution window from the schedule.
+     *
+     * The partition of the threads is taken from the TID table, so that this
+     * handler does not query the state system nor allocate, except when the
+     * running partition changes.
+     *
      * @param ss
+     *            The state system.
      * @param event
+     *            The trace event.
      */
     private void processSchedSwitchEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
         }
+        Integer cpuObj = KernelEventHandlerUtils.getCpu(event);
+        if (cpuObj == null) {
+            return;
+        }
+        int cpu = cpuObj;
 
-        long prevTid = (long) eventContent.getField("prev_tid").getValue(); //$NON-NLS-1$
-        long nextTid = (long) eventContent.getField("next_tid").getValue(); //$NON-NLS-1$
-
-        int prevTidQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_PIDS,
-                String.valueOf(prevTid), "cpu"); //$NON-NLS-1$
-        int nextTidQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CGROUPS_PIDS,
-                String.valueOf(nextTid), "cpu"); //$NON-NLS-1$
-
-        Object objPrevCgroup = ss.queryOngoing(prevTidQuark);
-        Object objNextCgroup = ss.queryOngoing(nextTidQuark);
+        long prevTid = (long) eventContent.getField(ContainerEventNames.SCHED_PREV_TID_FIELD).getValue();
+        long nextTid = (long) eventContent.getField(ContainerEventNames.SCHED_NEXT_TID_FIELD).getValue();
+        long ts = event.getTimestamp().toNanos();
 
-        String prevCgroup = (objPrevCgroup == null) ? null : (String)objPrevCgroup;
-        String nextCgroup = (objNextCgroup == null) ? null : (String)objNextCgroup;
+        int nextId = fTidPartitions.get(nextTid);
+        Partition prev = fPartitions[fTidPartitions.get(prevTid)];
+        Partition next = fPartitions[nextId];
 
         boolean hasUpdated = false;
-        if (nextCgroup != null) {
-            // prevCgroup = prevCgroup.replaceFirst("/sys/fs/cgroup/cpu,cpuacct", ""); //$NON-NLS-1$ //$NON-NLS-2$
-            nextCgroup = nextCgroup.replaceFirst("/sys/fs/cgroup/cpu,cpuacct", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        if (next != null) {
+            int curVal = next.fActiveThreads++;
+            if (curVal == 0) {
+                int pQuark = getCurrentPartitionQuark(ss);
+                ss.modifyAttribute(ts, next.fName, pQuark);
+                ss.modifyAttribute(ts, nextTid, getPartitionCpuQuark(ss, next, cpu));
+                ss.modifyAttribute(ts, next.fName, getCurrentPartitionCpuQuark(ss, cpu));
+                next.fStartTime = ts;
+                hasUpdated = true;
+            }
+        }
 
-            if (!nextCgroup.equals("")) { //$NON-NLS-1$]
+        if (prev != null) {
+            int curVal = prev.fActiveThreads;
+            if (curVal > 0) {
+                prev.fActiveThreads--;
+            }
 
-                fActivePartitions.putIfAbsent(nextCgroup, 0L);
-                Long curVal = fActivePartitions.get(nextCgroup);
-                if (curVal != null) {
-                    fActivePartitions.put(nextCgroup, curVal + 1);
+            if (curVal == 1) {
+                /*
+                 * The diff spans the same interval as the partition under
+                 * CurrentPartition/CPU<n>, it must be written before the CPU
+                 * attribute and its children are removed.
+                 */
+                if (prev.fHasBudget && prev.fStartTime != NO_TIME) {
+                    int diffQuark = getCurrentPartitionCpuDiffQuark(ss, cpu);
+                    long diff = (ts - prev.fStartTime) - prev.fBudget;
+                    ss.modifyAttribute(prev.fStartTime, diff, diffQuark);
+                    ss.removeAttribute(ts, diffQuark);
                 }
 
-                if (curVal != null && curVal == 0) {
-                    nextCgroup = nextCgroup.replaceFirst("/", ""); //$NON-NLS-1$ //$NON-NLS-2$
-                    int pQuark = ss.getQuarkAbsoluteAndAdd("CurrentPartition"); //$NON-NLS-1$
-                    ss.modifyAttribute(event.getTimestamp().toNanos(), nextCgroup, pQuark);
-
-                    Integer cpu = KernelEventHandlerUtils.getCpu(event);
-                    int cpuQuark = ss.getQuarkAbsoluteAndAdd("Partition", nextCgroup, "CPU" + String.valueOf(cpu)); //$NON-NLS-1$ //$NON-NLS-2$
-                    ss.modifyAttribute(event.getTimestamp().toNanos(), nextTid, cpuQuark);
-
-                    cpuQuark = ss.getQuarkRelativeAndAdd(pQuark, "CPU" + String.valueOf(cpu)); //$NON-NLS-1$
-                    ss.modifyAttribute(event.getTimestamp().toNanos(), nextCgroup, cpuQuark);
-
-                    fPartitionIntervals.put(nextCgroup, event.getTimestamp().toNanos());
-
-                    hasUpdated = true;
+                if (!hasUpdated) {
+                    /* Only this CPU stops, do not clear the other CPUs */
+                    ss.modifyAttribute(ts, (Object) null, getCurrentPartitionQuark(ss));
+                    ss.removeAttribute(ts, getCurrentPartitionCpuQuark(ss, cpu));
                 }
+                ss.removeAttribute(ts, getPartitionCpuQuark(ss, prev, cpu));
             }
         }
 
-        if (prevCgroup != null) {
-            prevCgroup = prevCgroup.replaceFirst("/sys/fs/cgroup/cpu,cpuacct", ""); //$NON-NLS-1$ //$NON-NLS-2$
-
-            fActivePartitions.putIfAbsent(prevCgroup, 0L);
-            Long curVal = fActivePartitions.get(prevCgroup);
+        ScheduleComplianceChecker checker = fComplianceChecker;
+        if (checker != null) {
+            checker.switchPartition(ss, cpu, ts, nextId);
+        }
+    }
 
-            if (curVal != null && curVal > 0) {
-                fActivePartitions.put(prevCgroup, curVal - 1);
-            }
+    /**
+     * Get the ID of the partition corresponding to a cgroup of the cpu
+     * controller, interning the partition if it was never seen.
+     *
+     * @param cgroupPath
+     *            The path to the cgroup in the cgroup virtual filesystem.
+     * @return The partition ID, or NO_PARTITION for the root cgroup.
+     */
+    private int getPartitionId(@Nullable String cgroupPath) {
+        if (cgroupPath == null) {
+            return NO_PARTITION;
+        }
+        return getPartitionIdFromRelativePath(CPU_CGROUP_ROOT.matcher(cgroupPath).replaceFirst("")); //$NON-NLS-1$
+    }
 
-            if (curVal != null && (curVal - 1) == 0) {
-                if (!prevCgroup.equals("") && !hasUpdated) { //$NON-NLS-1$
-                    prevCgroup = prevCgroup.replaceFirst("/", ""); //$NON-NLS-1$ //$NON-NLS-2$
-                    int pQuark = ss.getQuarkAbsoluteAndAdd("CurrentPartition"); //$NON-NLS-1$
-                    ss.removeAttribute(event.getTimestamp().toNanos(), pQuark);
+    private int getPartitionIdFromRelativePath(String relPath) {
+        if (relPath.isEmpty()) {
+            return NO_PARTITION;
+        }
+        Integer id = fPartitionIds.get(relPath);
+        if (id != null) {
+            return id;
+        }
 
-                    Integer cpu = KernelEventHandlerUtils.getCpu(event);
-                    int cpuQuark = ss.getQuarkRelativeAndAdd(pQuark, "CPU" + String.valueOf(cpu)); //$NON-NLS-1$ //$NON-NLS-2$
-                    ss.removeAttribute(event.getTimestamp().toNanos(), cpuQuark);
+        String name = relPath.replaceFirst("/", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        int newId = fPartitionIds.size() + 1;
+        if (newId >= fPartitions.length) {
+            fPartitions = Arrays.copyOf(fPartitions, fPartitions.length * 2);
+        }
+        PartitionSchedule schedule = fSchedule;
+        fPartitions[newId] = new Partition(name, (schedule == null) ? null : schedule.getBudget(name));
+        fPartitionIds.put(relPath, newId);
+        return newId;
+    }
 
-                    hasUpdated = true;
-                }
+    private int getCurrentPartitionQuark(ITmfStateSystemBuilder ss) {
+        if (fCurrentPartitionQuark == NO_QUARK) {
+            fCurrentPartitionQuark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.CURRENT_PARTITION);
+        }
+        return fCurrentPartitionQuark;
+    }
 
-                if (!prevCgroup.equals("")) { //$NON-NLS-1$
-                    prevCgroup = prevCgroup.replaceFirst("/", ""); //$NON-NLS-1$ //$NON-NLS-2$
-                    Integer cpu = KernelEventHandlerUtils.getCpu(event);
-                    int cpuQuark = ss.getQuarkAbsoluteAndAdd("Partition", prevCgroup, "CPU" + String.valueOf(cpu)); //$NON-NLS-1$ //$NON-NLS-2$
-                    ss.removeAttribute(event.getTimestamp().toNanos(), cpuQuark);
+    private int getCurrentPartitionCpuQuark(ITmfStateSystemBuilder ss, int cpu) {
+        fCpuQuarks = ensureCapacity(fCpuQuarks, cpu);
+        int quark = fCpuQuarks[cpu];
+        if (quark == NO_QUARK) {
+            quark = ss.getQuarkRelativeAndAdd(getCurrentPartitionQuark(ss), CPU_PREFIX + cpu);
+            fCpuQuarks[cpu] = quark;
+        }
+        return quark;
+    }
 
-                    int diffQuark = ss.getQuarkAbsoluteAndAdd("CurrentPartition", "CPU" + String.valueOf(cpu), "diff"); //$NON-NLS-1$ //$NON-NLS-2$
-                    Long startTime = fPartitionIntervals.get(prevCgroup);
+    private int getCurrentPartitionCpuDiffQuark(ITmfStateSystemBuilder ss, int cpu) {
+        fCpuDiffQuarks = ensureCapacity(fCpuDiffQuarks, cpu);
+        int quark = fCpuDiffQuarks[cpu];
+        if (quark == NO_QUARK) {
+            quark = ss.getQuarkRelativeAndAdd(getCurrentPartitionCpuQuark(ss, cpu), ContainerAttributes.CURRENT_PARTITION_DIFF);
+            fCpuDiffQuarks[cpu] = quark;
+        }
+        return quark;
+    }
 
-                    List<Long> sched = fSchedule.get(prevCgroup);
-                    if (sched != null && startTime != null) {
-                        Long diff = ((event.getTimestamp().toNanos()) - startTime) - sched.get(0);
-                        ss.modifyAttribute(startTime, diff, diffQuark);
-                        ss.removeAttribute(event.getTimestamp().toNanos(), diffQuark);
-                    }
-            }
-            }
+    private static int getPartitionCpuQuark(ITmfStateSystemBuilder ss, Partition partition, int cpu) {
+        partition.fCpuQuarks = ensureCapacity(partition.fCpuQuarks, cpu);
+        int quark = partition.fCpuQuarks[cpu];
+        if (quark == NO_QUARK) {
+            quark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.PARTITION, partition.fName, CPU_PREFIX + cpu);
+            partition.fCpuQuarks[cpu] = quark;
         }
+        return quark;
+    }
 
+    /**
+     * Grow a quark array so that it contains the given index, filling the new
+     * slots with NO_QUARK.
+     */
+    private static int[] ensureCapacity(int[] array, int index) {
+        if (index < array.length) {
+            return array;
+        }
+        int oldLength = array.length;
+        int[] newArray = Arrays.copyOf(array, Math.max(index + 1, oldLength * 2));
+        Arrays.fill(newArray, oldLength, newArray.length, NO_QUARK);
+        return newArray;
     }
 
     /**
@@ -606,7 +837,7 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
      * @param event
      *            The trace event.
      */
-    private static void processForkEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
+    private void processForkEventHandler(ITmfStateSystemBuilder ss, ITmfEvent event) {
         ITmfEventField eventContent = event.getContent();
         if (eventContent == null) {
             return;
@@ -620,17 +851,22 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
         for (Integer q : ss.getSubAttributes(parentPidQuark, false)) {
             // Add child to parent cgroup
             String parentCgroupPath = (String) ss.queryOngoing(q);
-            Integer parentCgroupQuark = getCgroupRootQuark(ss, parentCgroupPath);
-            if (parentCgroupQuark == null) {
+            int parentCgroupQuark = fPathIndex.getRootQuark(ss, parentCgroupPath);
+            if (parentCgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
                 continue;
             }
             int cgroupPidQuark = ss.getQuarkRelativeAndAdd(parentCgroupQuark,
                     ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, String.valueOf(childTid));
             ss.modifyAttribute(event.getTimestamp().toNanos(), ContainerAttributes.CGROUPS_ACTIVE_VALUE, cgroupPidQuark);
+            getCgroupMembers(parentCgroupQuark).add(childTid);
 
             // Add child cgroup to PID list
-            int childPidSubsysCgroupQuark = ss.getQuarkRelativeAndAdd(childPidQuark, ss.getAttributeName(q));
+            String subsysName = ss.getAttributeName(q);
+            int childPidSubsysCgroupQuark = ss.getQuarkRelativeAndAdd(childPidQuark, subsysName);
             ss.modifyAttribute(event.getTimestamp().toNanos(), parentCgroupPath, childPidSubsysCgroupQuark);
+            if (CPU_SUBSYS.equals(subsysName)) {
+                fTidPartitions.put(childTid, getPartitionId(parentCgroupPath));
+            }
         }
     }
 
@@ -639,41 +875,48 @@ public class ContainerStateProvider extends AbstractTmfStateProvider {
         if (event == null) {
             return;
         }
+        fLastTime = event.getTimestamp().toNanos();
+
+        int handler = fDispatchTable.getHandler(event);
+        if (handler == EventTypeDispatchTable.UNHANDLED) {
+            return;
+        }
 
         final ITmfStateSystemBuilder ss = checkNotNull(getStateSystemBuilder());
 
-        switch (event.getType().getName()) {
-            case ContainerEventNames.CGRP_SUBSYS_ROOT:
+        switch (handler) {
+            case HANDLER_SUBSYS_ROOT:
                 newSubsysRootEventHandler(ss, event);
                 break;
-            case ContainerEventNames.CGRP_ATTACHED_PIDS:
+            case HANDLER_ATTACHED_PIDS:
                 attachedPidsEventHandler(ss, event);
                 break;
-            case ContainerEventNames.CGRP_STATUS:
+            case HANDLER_STATUS:
                 cgroupStatusEventHandler(ss, event);
                 break;
-            case ContainerEventNames.CGRP_FILE_INT_VALUE:
-            case ContainerEventNames.CGRP_FILE_UINT_VALUE:
-            case ContainerEventNames.CGRP_FILE_STRING_VALUE:
+            case HANDLER_FILE_UNIQUE_VALUE:
                 cgroupFileUniqueValueEventHandler(ss, event);
                 break;
-            case ContainerEventNames.CGRP_FILE_STRING_PAIR_VALUES:
+            case HANDLER_FILE_NUMERIC_VALUE:
+                cgroupFileNumericValueEventHandler(ss, event);
+                break;
+            case HANDLER_FILE_PAIR_VALUES:
                 cgroupFilePairValuesEventHandler(ss, event);
                 break;
-            case ContainerEventNames.CGRP_FILE_EMPTY:
+            case HANDLER_FILE_EMPTY:
                 cgroupFileEmptyEventHandler(ss, event);
                 break;
-            case ContainerEventNames.SCHED_PROCESS_EXIT:
+            case HANDLER_PROCESS_EXIT:
                 processExitEventHandler(ss, event);
                 break;
-            case ContainerEventNames.SCHED_PROCESS_FORK:
+            case HANDLER_PROCESS_FORK:
                 processForkEventHandler(ss, event);
                 break;
-            case "sched_switch": //$NON-NLS-1$
+            case HANDLER_SCHED_SWITCH:
                 processSchedSwitchEventHandler(ss, event);
                 break;
             default:
                 break;
         }
     }
-}
\ No newline at end of file
+}
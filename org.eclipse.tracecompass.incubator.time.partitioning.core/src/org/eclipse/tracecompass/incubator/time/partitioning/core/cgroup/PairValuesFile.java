@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+
+/**
+ * A cgroup file made of (key, value) lines, like cpu.stat or devices.list.
+ *
+ * The content of the file is scanned in place, without splitting it, and the
+ * quarks of the keys are cached so that a key is only copied the first time it
+ * is seen. Each line is split on {@value ContainerAttributes#CGROUPS_FILE_PAIR_VALUES_KEY_SEPARATOR}
+ * the way {@link String#split} would:
+ * <ul>
+ * <li>two tokens are a key and its value,</li>
+ * <li>three tokens (devices files) are a two token key and its value,</li>
+ * <li>other lines are ignored.</li>
+ * </ul>
+ *
+ * This class is not thread safe, it is meant to be used only from the event
+ * handling thread of the state provider.
+ */
+public final class PairValuesFile {
+
+    private static final char LINE_SEPARATOR = ContainerAttributes.CGROUPS_FILE_PAIR_VALUES_LINE_SEPARATOR.charAt(0);
+    private static final char KEY_SEPARATOR = ContainerAttributes.CGROUPS_FILE_PAIR_VALUES_KEY_SEPARATOR.charAt(0);
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final int fFileQuark;
+
+    /* Open-addressing table of the keys, with their quark and last update */
+    private String[] fKeys = new String[INITIAL_CAPACITY];
+    private int[] fQuarks = new int[INITIAL_CAPACITY];
+    private int[] fUpdates = new int[INITIAL_CAPACITY];
+    private int fMask = INITIAL_CAPACITY - 1;
+    private int fSize = 0;
+
+    /* Number of updates of the file, to find the keys missing from a dump */
+    private int fUpdate = 0;
+
+    /**
+     * Constructor
+     *
+     * @param fileQuark
+     *            The quark of the file, the keys are its children.
+     */
+    public PairValuesFile(int fileQuark) {
+        fFileQuark = fileQuark;
+    }
+
+    /**
+     * Replace the values of the file. The keys of the previous content that
+     * are not in the new content are emptied.
+     *
+     * @param ss
+     *            The state system.
+     * @param ts
+     *            The time of the update.
+     * @param content
+     *            The content of the file.
+     */
+    public void update(ITmfStateSystemBuilder ss, long ts, String content) {
+        int update = ++fUpdate;
+        ss.modifyAttribute(ts, ContainerAttributes.CGROUPS_FILE_EMPTY_VALUE, fFileQuark);
+
+        int length = content.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = content.indexOf(LINE_SEPARATOR, lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            updateLine(ss, ts, content, lineStart, lineEnd, update);
+            lineStart = lineEnd + 1;
+        }
+
+        for (int slot = 0; slot < fKeys.length; slot++) {
+            if (fKeys[slot] != null && fUpdates[slot] != update) {
+                ss.modifyAttribute(ts, ContainerAttributes.CGROUPS_FILE_EMPTY_VALUE, fQuarks[slot]);
+            }
+        }
+    }
+
+    private void updateLine(ITmfStateSystemBuilder ss, long ts, String content, int start, int end, int update) {
+        /* Trailing separators do not count as tokens, like in String#split */
+        int lineEnd = end;
+        while (lineEnd > start && content.charAt(lineEnd - 1) == KEY_SEPARATOR) {
+            lineEnd--;
+        }
+        if (lineEnd == start) {
+            return;
+        }
+
+        int first = content.indexOf(KEY_SEPARATOR, start);
+        if (first < 0 || first >= lineEnd) {
+            return;
+        }
+        int second = content.indexOf(KEY_SEPARATOR, first + 1);
+        int keyEnd;
+        if (second < 0 || second >= lineEnd) {
+            keyEnd = first;
+        } else {
+            int third = content.indexOf(KEY_SEPARATOR, second + 1);
+            if (third >= 0 && third < lineEnd) {
+                return;
+            }
+            keyEnd = second;
+        }
+
+        int slot = getSlot(ss, content, start, keyEnd);
+        fUpdates[slot] = update;
+        ss.modifyAttribute(ts, content.substring(keyEnd + 1, lineEnd), fQuarks[slot]);
+    }
+
+    /**
+     * Get the slot of a key, adding the key and its attribute if needed.
+     */
+    private int getSlot(ITmfStateSystemBuilder ss, String content, int start, int end) {
+        int keyLength = end - start;
+        int hash = hash(content, start, end);
+        int slot = hash & fMask;
+        String key;
+        while ((key = fKeys[slot]) != null) {
+            if (key.length() == keyLength && content.regionMatches(start, key, 0, keyLength)) {
+                return slot;
+            }
+            slot = (slot + 1) & fMask;
+        }
+
+        key = content.substring(start, end);
+        fKeys[slot] = key;
+        fQuarks[slot] = ss.getQuarkRelativeAndAdd(fFileQuark, key);
+        fUpdates[slot] = 0;
+        fSize++;
+        /* Keep the load factor under 1/2 */
+        if (fSize * 2 > fKeys.length) {
+            rehash();
+            return getSlot(ss, content, start, end);
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        String[] oldKeys = fKeys;
+        int[] oldQuarks = fQuarks;
+        int[] oldUpdates = fUpdates;
+        int capacity = oldKeys.length * 2;
+        fKeys = new String[capacity];
+        fQuarks = new int[capacity];
+        fUpdates = new int[capacity];
+        fMask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            String key = oldKeys[i];
+            if (key != null) {
+                int slot = hash(key, 0, key.length()) & fMask;
+                while (fKeys[slot] != null) {
+                    slot = (slot + 1) & fMask;
+                }
+                fKeys[slot] = key;
+                fQuarks[slot] = oldQuarks[i];
+                fUpdates[slot] = oldUpdates[i];
+            }
+        }
+    }
+
+    private static int hash(String content, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + content.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,366 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.Activator;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * ARINC 653 partition schedule: a major frame repeated forever, made of
+ * execution windows assigned to a partition and a core.
+ *
+ * The schedule is read from a file named {@value #FILE_NAME}, in the trace
+ * directory or next to it. All times are in nanoseconds:
+ *
+ * <pre>
+ * &lt;schedule majorFrame="200000000" tolerance="0" origin="..."&gt;
+ *     &lt;window partition="p1" core="0" offset="0" duration="100000000"/&gt;
+ *     &lt;window partition="p11" core="0" offset="100000000" duration="100000000"/&gt;
+ * &lt;/schedule&gt;
+ * </pre>
+ *
+ * The origin, the time at which a major frame starts, is optional. When it is
+ * not set, the first major frame is aligned on the first execution of a
+ * scheduled partition.
+ *
+ * The budget of a partition is the duration of its first window in the file.
+ * Every window is checked by the {@link ScheduleComplianceChecker}, but the
+ * budget deviation of the running partitions (the diff attribute) assumes that
+ * all the windows of a partition have that same duration.
+ */
+public final class PartitionSchedule {
+
+    /** Name of the schedule file */
+    public static final String FILE_NAME = "arinc653_schedule.xml"; //$NON-NLS-1$
+
+    /** Origin of a schedule that is aligned on the trace */
+    public static final long NO_ORIGIN = Long.MIN_VALUE;
+
+    private static final String SCHEDULE_ELEMENT = "schedule"; //$NON-NLS-1$
+    private static final String WINDOW_ELEMENT = "window"; //$NON-NLS-1$
+    private static final String MAJOR_FRAME_ATTRIBUTE = "majorFrame"; //$NON-NLS-1$
+    private static final String TOLERANCE_ATTRIBUTE = "tolerance"; //$NON-NLS-1$
+    private static final String ORIGIN_ATTRIBUTE = "origin"; //$NON-NLS-1$
+    private static final String PARTITION_ATTRIBUTE = "partition"; //$NON-NLS-1$
+    private static final String CORE_ATTRIBUTE = "core"; //$NON-NLS-1$
+    private static final String OFFSET_ATTRIBUTE = "offset"; //$NON-NLS-1$
+    private static final String DURATION_ATTRIBUTE = "duration"; //$NON-NLS-1$
+
+    /**
+     * An execution window of a partition, relative to the start of the major
+     * frame.
+     */
+    public static final class Window {
+        private final String fPartition;
+        private final int fCore;
+        private final long fOffset;
+        private final long fDuration;
+
+        /**
+         * Constructor
+         *
+         * @param partition
+         *            The partition name.
+         * @param core
+         *            The core the partition runs on.
+         * @param offset
+         *            The start of the window from the start of the major
+         *            frame.
+         * @param duration
+         *            The duration of the window.
+         */
+        public Window(String partition, int core, long offset, long duration) {
+            fPartition = partition;
+            fCore = core;
+            fOffset = offset;
+            fDuration = duration;
+        }
+
+        /**
+         * @return The partition name.
+         */
+        public String getPartition() {
+            return fPartition;
+        }
+
+        /**
+         * @return The core the partition runs on.
+         */
+        public int getCore() {
+            return fCore;
+        }
+
+        /**
+         * @return The start of the window from the start of the major frame.
+         */
+        public long getOffset() {
+            return fOffset;
+        }
+
+        /**
+         * @return The duration of the window.
+         */
+        public long getDuration() {
+            return fDuration;
+        }
+    }
+
+    private final long fMajorFrame;
+    private final long fTolerance;
+    private final long fOrigin;
+    /* Windows of each core, sorted by offset */
+    private final Window[][] fWindows;
+    /* Duration of the first window of each partition */
+    private final Map<String, Long> fBudgets = new LinkedHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param majorFrame
+     *            The length of the major frame.
+     * @param tolerance
+     *            The deviation from the windows that is not reported.
+     * @param origin
+     *            The start of a major frame, or {@link #NO_ORIGIN}.
+     * @param windows
+     *            The execution windows.
+     * @throws IllegalArgumentException
+     *             If a window is outside of the major frame or overlaps another
+     *             window of the same core.
+     */
+    public PartitionSchedule(long majorFrame, long tolerance, long origin, List<Window> windows) {
+        if (majorFrame <= 0 || tolerance < 0) {
+            throw new IllegalArgumentException("Invalid major frame or tolerance"); //$NON-NLS-1$
+        }
+        fMajorFrame = majorFrame;
+        fTolerance = tolerance;
+        fOrigin = origin;
+
+        int nbCores = 0;
+        for (Window window : windows) {
+            if (window.fCore < 0 || window.fOffset < 0 || window.fDuration <= 0 || window.fOffset + window.fDuration > majorFrame) {
+                throw new IllegalArgumentException("Window of partition " + window.fPartition + " is outside of the major frame"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            nbCores = Math.max(nbCores, window.fCore + 1);
+            fBudgets.putIfAbsent(window.fPartition, window.fDuration);
+        }
+
+        fWindows = new Window[nbCores][];
+        for (int core = 0; core < nbCores; core++) {
+            List<Window> coreWindows = new ArrayList<>();
+            for (Window window : windows) {
+                if (window.fCore == core) {
+                    coreWindows.add(window);
+                }
+            }
+            coreWindows.sort(Comparator.comparingLong(Window::getOffset));
+            for (int i = 1; i < coreWindows.size(); i++) {
+                Window previous = coreWindows.get(i - 1);
+                if (previous.fOffset + previous.fDuration > coreWindows.get(i).fOffset) {
+                    throw new IllegalArgumentException("Windows overlap on core " + core); //$NON-NLS-1$
+                }
+            }
+            fWindows[core] = coreWindows.toArray(new Window[coreWindows.size()]);
+        }
+    }
+
+    /**
+     * @return The length of the major frame.
+     */
+    public long getMajorFrame() {
+        return fMajorFrame;
+    }
+
+    /**
+     * @return The deviation from the windows that is not reported.
+     */
+    public long getTolerance() {
+        return fTolerance;
+    }
+
+    /**
+     * @return The start time of a major frame, or {@link #NO_ORIGIN}.
+     */
+    public long getOrigin() {
+        return fOrigin;
+    }
+
+    /**
+     * @return The number of cores, i.e. the highest core with windows plus one.
+     */
+    public int getNbCores() {
+        return fWindows.length;
+    }
+
+    /**
+     * @param core
+     *            The core.
+     * @return The windows of the core, sorted by offset.
+     */
+    public Window[] getWindows(int core) {
+        return (core < fWindows.length) ? fWindows[core] : new Window[0];
+    }
+
+    /**
+     * @return The names of the scheduled partitions.
+     */
+    public Set<String> getPartitions() {
+        return fBudgets.keySet();
+    }
+
+    /**
+     * Get the budget of a partition, i.e. the duration of its first window.
+     *
+     * @param partition
+     *            The partition name.
+     * @return The budget, or null if the partition is not scheduled.
+     */
+    public @Nullable Long getBudget(String partition) {
+        return fBudgets.get(partition);
+    }
+
+    // ------------------------------------------------------------------------
+    // Loading
+    // ------------------------------------------------------------------------
+
+    /**
+     * Load the schedule file of the first trace of an experiment that has one.
+     *
+     * @param experiment
+     *            The experiment.
+     * @return The schedule, or null if no trace has a valid schedule file.
+     */
+    public static @Nullable PartitionSchedule load(TmfExperiment experiment) {
+        for (ITmfTrace trace : experiment.getChildren(ITmfTrace.class)) {
+            File file = findScheduleFile(trace.getPath());
+            if (file == null) {
+                continue;
+            }
+            try (InputStream in = new FileInputStream(file)) {
+                return parse(in);
+            } catch (IOException | IllegalArgumentException e) {
+                Activator.getInstance().logError("Invalid partition schedule " + file, e); //$NON-NLS-1$
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the schedule file of the first trace of an experiment that has one.
+     *
+     * @param experiment
+     *            The experiment.
+     * @return The schedule file, or null if no trace has one.
+     */
+    public static @Nullable File findScheduleFile(TmfExperiment experiment) {
+        for (ITmfTrace trace : experiment.getChildren(ITmfTrace.class)) {
+            File file = findScheduleFile(trace.getPath());
+            if (file != null) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse a schedule file.
+     *
+     * @param in
+     *            The content of the file.
+     * @return The schedule.
+     * @throws IOException
+     *             If the file cannot be read or is not a valid schedule.
+     */
+    public static PartitionSchedule parse(InputStream in) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); //$NON-NLS-1$
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            document = builder.parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(e);
+        }
+
+        Element root = document.getDocumentElement();
+        if (!SCHEDULE_ELEMENT.equals(root.getTagName())) {
+            throw new IOException("Expected a " + SCHEDULE_ELEMENT + " element"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        try {
+            long majorFrame = Long.parseLong(root.getAttribute(MAJOR_FRAME_ATTRIBUTE));
+            long tolerance = getLongAttribute(root, TOLERANCE_ATTRIBUTE, 0L);
+            long origin = getLongAttribute(root, ORIGIN_ATTRIBUTE, NO_ORIGIN);
+
+            List<Window> windows = new ArrayList<>();
+            NodeList nodes = root.getElementsByTagName(WINDOW_ELEMENT);
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Element element = (Element) nodes.item(i);
+                String partition = element.getAttribute(PARTITION_ATTRIBUTE);
+                if (partition.isEmpty()) {
+                    throw new IOException("Window without a partition"); //$NON-NLS-1$
+                }
+                windows.add(new Window(partition,
+                        (int) getLongAttribute(element, CORE_ATTRIBUTE, 0L),
+                        Long.parseLong(element.getAttribute(OFFSET_ATTRIBUTE)),
+                        Long.parseLong(element.getAttribute(DURATION_ATTRIBUTE))));
+            }
+            return new PartitionSchedule(majorFrame, tolerance, origin, windows);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static long getLongAttribute(Element element, String name, long defaultValue) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? defaultValue : Long.parseLong(value);
+    }
+
+    private static @Nullable File findScheduleFile(@Nullable String tracePath) {
+        if (tracePath == null) {
+            return null;
+        }
+        File trace = new File(tracePath);
+        if (trace.isDirectory()) {
+            File file = new File(trace, FILE_NAME);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        File parent = trace.getParentFile();
+        if (parent != null) {
+            File file = new File(parent, FILE_NAME);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of thread IDs, using a primitive array so that
+ * lookups and updates do not allocate.
+ *
+ * Collisions are resolved by linear probing and removals use backward shift
+ * deletion, like in {@link TidPartitionTable}.
+ */
+public final class PidSet {
+
+    private static final long EMPTY_KEY = -1L;
+    private static final int MIN_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] fKeys;
+    private int fMask;
+    private int fSize;
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize
+     *            The number of thread IDs the set should hold without growing.
+     */
+    public PidSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity *= 2;
+        }
+        fKeys = new long[capacity];
+        fMask = capacity - 1;
+        Arrays.fill(fKeys, EMPTY_KEY);
+    }
+
+    /**
+     * @param tid
+     *            The thread ID.
+     * @return Whether the thread is in the set.
+     */
+    public boolean contains(long tid) {
+        int slot = hash(tid) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            if (key == tid) {
+                return true;
+            }
+            slot = (slot + 1) & fMask;
+        }
+        return false;
+    }
+
+    /**
+     * Add a thread to the set.
+     *
+     * @param tid
+     *            The thread ID, must be positive or zero.
+     * @return Whether the thread was added, false if it was already in the set.
+     */
+    public boolean add(long tid) {
+        if (tid < 0) {
+            return false;
+        }
+        int slot = hash(tid) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            if (key == tid) {
+                return false;
+            }
+            slot = (slot + 1) & fMask;
+        }
+        fKeys[slot] = tid;
+        fSize++;
+        /* Keep the load factor under 1/2 */
+        if (fSize * 2 > fKeys.length) {
+            rehash(fKeys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a thread from the set.
+     *
+     * @param tid
+     *            The thread ID.
+     * @return Whether the thread was in the set.
+     */
+    public boolean remove(long tid) {
+        int slot = hash(tid) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            if (key == tid) {
+                shiftBack(slot);
+                fSize--;
+                return true;
+            }
+            slot = (slot + 1) & fMask;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of threads in the set.
+     */
+    public int size() {
+        return fSize;
+    }
+
+    /**
+     * Call a function for every thread of the set. The set must not be
+     * modified by the function.
+     *
+     * @param action
+     *            The function to call with each thread ID.
+     */
+    public void forEach(LongConsumer action) {
+        for (long key : fKeys) {
+            if (key != EMPTY_KEY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    private void shiftBack(int removedSlot) {
+        int hole = removedSlot;
+        int slot = (hole + 1) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            int ideal = hash(key) & fMask;
+            /* Move the entry into the hole if its ideal slot is not between the hole and its slot */
+            if (((slot - ideal) & fMask) >= ((slot - hole) & fMask)) {
+                fKeys[hole] = key;
+                hole = slot;
+            }
+            slot = (slot + 1) & fMask;
+        }
+        fKeys[hole] = EMPTY_KEY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = fKeys;
+        fKeys = new long[capacity];
+        fMask = capacity - 1;
+        Arrays.fill(fKeys, EMPTY_KEY);
+        for (long key : oldKeys) {
+            if (key != EMPTY_KEY) {
+                int slot = hash(key) & fMask;
+                while (fKeys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & fMask;
+                }
+                fKeys[slot] = key;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * GOLDEN_RATIO;
+        return (int) (h ^ (h >>> 32));
+    }
+}
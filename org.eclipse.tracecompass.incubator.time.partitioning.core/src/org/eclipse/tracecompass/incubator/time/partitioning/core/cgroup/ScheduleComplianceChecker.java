@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import java.util.function.ToIntFunction;
+
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+
+/**
+ * Checks the execution of the partitions against the windows of a
+ * {@link PartitionSchedule}, while the state system is built.
+ *
+ * Each core keeps the window it is currently in and the execution of the
+ * window partition in it, so every partition switch is checked in constant
+ * time (amortized over the windows elapsed since the previous switch). When a
+ * window ends, its verdict is written under Schedule/CPU&lt;n&gt;:
+ * <ul>
+ * <li>the attribute itself holds the scheduled partition name,</li>
+ * <li>{@value ContainerAttributes#SCHEDULE_STATUS} holds the violations as a
+ * bitmask of {@link #OVERRUN}, {@link #UNDERRUN}, {@link #LATE_START} and
+ * {@link #EARLY_PREEMPTION},</li>
+ * <li>one long attribute per violation holds its amount, in nanoseconds.</li>
+ * </ul>
+ * The amount of an overrun is only known when the partition stops, so it is
+ * written from the end of the window to the end of the execution.
+ * {@link #flush} writes the windows that are still open at the end of the
+ * trace.
+ *
+ * This class is not thread safe, it is meant to be used only from the event
+ * handling thread of the state provider.
+ */
+final class ScheduleComplianceChecker {
+
+    /** The partition executed as scheduled */
+    static final int COMPLIANT = 0;
+    /** The partition was still executing at the end of its window */
+    static final int OVERRUN = 1;
+    /** The partition executed less than the duration of its window */
+    static final int UNDERRUN = 2;
+    /** The partition started executing after the start of its window */
+    static final int LATE_START = 4;
+    /** Another partition replaced the partition before the end of its window */
+    static final int EARLY_PREEMPTION = 8;
+
+    private static final String CPU_PREFIX = "CPU"; //$NON-NLS-1$
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_QUARK = ITmfStateSystem.INVALID_ATTRIBUTE;
+
+    /**
+     * The windows of a core and the state of the current one.
+     */
+    private static final class Core {
+        private final int fCpu;
+        private final String[] fNames;
+        private final int[] fPartitions;
+        private final long[] fOffsets;
+        private final long[] fDurations;
+
+        /* Current window */
+        private boolean fStarted = false;
+        private int fIndex = 0;
+        private long fFrameStart = NO_TIME;
+        private long fStart = NO_TIME;
+        private long fEnd = NO_TIME;
+
+        /* Execution of the window partition in the current window */
+        private long fRunTime = 0;
+        private long fFirstStart = NO_TIME;
+        private long fLastStop = NO_TIME;
+        private boolean fPreempted = false;
+
+        /* Partition executing on the core */
+        private int fRunning;
+        private long fSegmentStart = NO_TIME;
+
+        /* Partition executing past the end of its window */
+        private int fOverrunPartition;
+        private long fOverrunStart = NO_TIME;
+
+        /* Quarks of Schedule/CPU<n> and its children */
+        private int fQuark = NO_QUARK;
+        private int fStatusQuark = NO_QUARK;
+        private int fOverrunQuark = NO_QUARK;
+        private int fUnderrunQuark = NO_QUARK;
+        private int fLateStartQuark = NO_QUARK;
+        private int fEarlyPreemptionQuark = NO_QUARK;
+
+        public Core(int cpu, PartitionSchedule.Window[] windows, ToIntFunction<String> partitionIds, int noPartition) {
+            fCpu = cpu;
+            fNames = new String[windows.length];
+            fPartitions = new int[windows.length];
+            fOffsets = new long[windows.length];
+            fDurations = new long[windows.length];
+            for (int i = 0; i < windows.length; i++) {
+                fNames[i] = windows[i].getPartition();
+                fPartitions[i] = partitionIds.applyAsInt(fNames[i]);
+                fOffsets[i] = windows[i].getOffset();
+                fDurations[i] = windows[i].getDuration();
+            }
+            fRunning = noPartition;
+            fOverrunPartition = noPartition;
+        }
+    }
+
+    private final long fMajorFrame;
+    private final long fTolerance;
+    private final int fNoPartition;
+    /* Cores indexed by CPU, null for the CPUs without windows */
+    private final Core[] fCores;
+    private long fOrigin;
+
+    /**
+     * Constructor
+     *
+     * @param schedule
+     *            The schedule to check.
+     * @param partitionIds
+     *            Function giving the ID of a partition from its name.
+     * @param noPartition
+     *            The ID of the threads that are not in a partition.
+     */
+    public ScheduleComplianceChecker(PartitionSchedule schedule, ToIntFunction<String> partitionIds, int noPartition) {
+        fMajorFrame = schedule.getMajorFrame();
+        fTolerance = schedule.getTolerance();
+        fOrigin = schedule.getOrigin();
+        fNoPartition = noPartition;
+        fCores = new Core[schedule.getNbCores()];
+        for (int cpu = 0; cpu < fCores.length; cpu++) {
+            PartitionSchedule.Window[] windows = schedule.getWindows(cpu);
+            if (windows.length > 0) {
+                fCores[cpu] = new Core(cpu, windows, partitionIds, noPartition);
+            }
+        }
+    }
+
+    /**
+     * Handle a context switch that may change the partition executing on a
+     * CPU.
+     *
+     * @param ss
+     *            The state system.
+     * @param cpu
+     *            The CPU.
+     * @param ts
+     *            The time of the switch.
+     * @param partition
+     *            The ID of the partition of the next thread.
+     */
+    public void switchPartition(ITmfStateSystemBuilder ss, int cpu, long ts, int partition) {
+        if (cpu < 0 || cpu >= fCores.length) {
+            return;
+        }
+        Core core = fCores[cpu];
+        if (core == null || core.fRunning == partition) {
+            return;
+        }
+
+        if (fOrigin == PartitionSchedule.NO_ORIGIN) {
+            /* Align the major frame on the first scheduled execution */
+            long offset = getFirstOffset(core, partition);
+            if (offset == NO_TIME) {
+                core.fRunning = partition;
+                core.fSegmentStart = ts;
+                return;
+            }
+            fOrigin = ts - offset;
+        }
+
+        advance(ss, core, ts);
+        stop(ss, core, ts, partition);
+        core.fRunning = partition;
+        core.fSegmentStart = ts;
+    }
+
+    /**
+     * Write the verdicts of the windows that ended before the end of the
+     * trace. The window cut by the end of the trace is not checked, its
+     * partition could have executed after it.
+     *
+     * @param ss
+     *            The state system.
+     * @param end
+     *            The end time of the trace.
+     */
+    public void flush(ITmfStateSystemBuilder ss, long end) {
+        for (Core core : fCores) {
+            if (core == null || !core.fStarted) {
+                continue;
+            }
+            advance(ss, core, end);
+
+            /* The partition is still executing past its window */
+            if (core.fOverrunStart != NO_TIME && core.fOverrunPartition == core.fRunning) {
+                writeOverrun(ss, core, end);
+            }
+        }
+    }
+
+    private static long getFirstOffset(Core core, int partition) {
+        for (int i = 0; i < core.fPartitions.length; i++) {
+            if (core.fPartitions[i] == partition) {
+                return core.fOffsets[i];
+            }
+        }
+        return NO_TIME;
+    }
+
+    /**
+     * Close the windows of a core that ended before a given time.
+     */
+    private void advance(ITmfStateSystemBuilder ss, Core core, long ts) {
+        if (!core.fStarted) {
+            /* The windows before the first switch are not checked */
+            long frame = Math.floorDiv(ts - fOrigin, fMajorFrame);
+            core.fStarted = true;
+            core.fFrameStart = fOrigin + frame * fMajorFrame;
+            core.fIndex = 0;
+            openWindow(core);
+            while (core.fEnd <= ts) {
+                nextWindow(ss, core);
+            }
+            return;
+        }
+        while (core.fEnd <= ts) {
+            closeWindow(ss, core);
+            nextWindow(ss, core);
+        }
+    }
+
+    private void nextWindow(ITmfStateSystemBuilder ss, Core core) {
+        core.fIndex++;
+        if (core.fIndex == core.fPartitions.length) {
+            core.fIndex = 0;
+            core.fFrameStart += fMajorFrame;
+        }
+        openWindow(core);
+
+        /* The overrunning partition reached its next window */
+        if (core.fOverrunStart != NO_TIME && core.fOverrunPartition == core.fPartitions[core.fIndex]) {
+            writeOverrun(ss, core, core.fStart);
+        }
+    }
+
+    private static void openWindow(Core core) {
+        core.fStart = core.fFrameStart + core.fOffsets[core.fIndex];
+        core.fEnd = core.fStart + core.fDurations[core.fIndex];
+        core.fRunTime = 0;
+        core.fFirstStart = NO_TIME;
+        core.fLastStop = NO_TIME;
+        core.fPreempted = false;
+    }
+
+    /**
+     * Account the execution of the window partition up to a given time, which
+     * must be in the current window or after its end.
+     */
+    private static void account(Core core, long end) {
+        long start = Math.max(core.fSegmentStart, core.fStart);
+        if (end > start) {
+            core.fRunTime += end - start;
+            if (core.fFirstStart == NO_TIME) {
+                core.fFirstStart = start;
+            }
+        }
+    }
+
+    private void stop(ITmfStateSystemBuilder ss, Core core, long ts, int next) {
+        int partition = core.fRunning;
+        if (partition == fNoPartition) {
+            return;
+        }
+        if (partition == core.fPartitions[core.fIndex] && ts > core.fStart) {
+            account(core, ts);
+            core.fLastStop = ts;
+            core.fPreempted = (next != fNoPartition);
+        }
+        if (core.fOverrunStart != NO_TIME && core.fOverrunPartition == partition) {
+            writeOverrun(ss, core, ts);
+        }
+    }
+
+    private void closeWindow(ITmfStateSystemBuilder ss, Core core) {
+        int index = core.fIndex;
+        long start = core.fStart;
+        long end = core.fEnd;
+        boolean running = (core.fRunning == core.fPartitions[index]);
+        if (running) {
+            account(core, end);
+        }
+
+        int status = COMPLIANT;
+        long lateStart = (core.fFirstStart == NO_TIME) ? 0 : core.fFirstStart - start;
+        if (lateStart > fTolerance) {
+            status |= LATE_START;
+        }
+        long underrun = (end - start) - core.fRunTime;
+        if (underrun > fTolerance) {
+            status |= UNDERRUN;
+        }
+        long earlyPreemption = 0;
+        if (!running && core.fPreempted) {
+            earlyPreemption = end - core.fLastStop;
+            if (earlyPreemption > fTolerance) {
+                status |= EARLY_PREEMPTION;
+            }
+        }
+        if (running && !continuesInNextWindow(core)) {
+            status |= OVERRUN;
+            if (core.fOverrunStart == NO_TIME) {
+                core.fOverrunPartition = core.fRunning;
+                core.fOverrunStart = end;
+            }
+        }
+
+        initQuarks(ss, core);
+        ss.modifyAttribute(start, core.fNames[index], core.fQuark);
+        ss.modifyAttribute(start, status, core.fStatusQuark);
+        if ((status & LATE_START) != 0) {
+            writeAmount(ss, core.fLateStartQuark, start, end, lateStart);
+        }
+        if ((status & UNDERRUN) != 0) {
+            writeAmount(ss, core.fUnderrunQuark, start, end, underrun);
+        }
+        if ((status & EARLY_PREEMPTION) != 0) {
+            writeAmount(ss, core.fEarlyPreemptionQuark, start, end, earlyPreemption);
+        }
+        ss.modifyAttribute(end, (Object) null, core.fStatusQuark);
+        ss.modifyAttribute(end, (Object) null, core.fQuark);
+    }
+
+    /**
+     * Whether the next window of the core is a window of the same partition
+     * that starts right at the end of the current one.
+     */
+    private boolean continuesInNextWindow(Core core) {
+        int next = core.fIndex + 1;
+        long nextFrameStart = core.fFrameStart;
+        if (next == core.fPartitions.length) {
+            next = 0;
+            nextFrameStart += fMajorFrame;
+        }
+        return core.fPartitions[next] == core.fPartitions[core.fIndex] && nextFrameStart + core.fOffsets[next] == core.fEnd;
+    }
+
+    private static void writeOverrun(ITmfStateSystemBuilder ss, Core core, long end) {
+        long start = core.fOverrunStart;
+        core.fOverrunStart = NO_TIME;
+        if (end > start) {
+            initQuarks(ss, core);
+            writeAmount(ss, core.fOverrunQuark, start, end, end - start);
+        }
+    }
+
+    private static void writeAmount(ITmfStateSystemBuilder ss, int quark, long start, long end, long amount) {
+        ss.modifyAttribute(start, amount, quark);
+        ss.modifyAttribute(end, (Object) null, quark);
+    }
+
+    private static void initQuarks(ITmfStateSystemBuilder ss, Core core) {
+        if (core.fQuark == NO_QUARK) {
+            int quark = ss.getQuarkAbsoluteAndAdd(ContainerAttributes.SCHEDULE, CPU_PREFIX + core.fCpu);
+            core.fStatusQuark = ss.getQuarkRelativeAndAdd(quark, ContainerAttributes.SCHEDULE_STATUS);
+            core.fOverrunQuark = ss.getQuarkRelativeAndAdd(quark, ContainerAttributes.SCHEDULE_OVERRUN);
+            core.fUnderrunQuark = ss.getQuarkRelativeAndAdd(quark, ContainerAttributes.SCHEDULE_UNDERRUN);
+            core.fLateStartQuark = ss.getQuarkRelativeAndAdd(quark, ContainerAttributes.SCHEDULE_LATE_START);
+            core.fEarlyPreemptionQuark = ss.getQuarkRelativeAndAdd(quark, ContainerAttributes.SCHEDULE_EARLY_PREEMPTION);
+            core.fQuark = quark;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table mapping thread IDs to partition IDs, using
+ * primitive arrays so that lookups and updates do not allocate.
+ *
+ * Collisions are resolved by linear probing and removals use backward shift
+ * deletion, so the table never contains tombstones.
+ */
+public final class TidPartitionTable {
+
+    private static final long EMPTY_KEY = -1L;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final int fDefaultValue;
+    private long[] fKeys;
+    private int[] fValues;
+    private int fMask;
+    private int fSize;
+
+    /**
+     * Constructor
+     *
+     * @param defaultValue
+     *            The value returned for thread IDs that are not in the table.
+     */
+    public TidPartitionTable(int defaultValue) {
+        fDefaultValue = defaultValue;
+        fKeys = new long[INITIAL_CAPACITY];
+        fValues = new int[INITIAL_CAPACITY];
+        fMask = INITIAL_CAPACITY - 1;
+        Arrays.fill(fKeys, EMPTY_KEY);
+    }
+
+    /**
+     * Get the partition of a thread.
+     *
+     * @param tid
+     *            The thread ID, must be positive or zero.
+     * @return The partition ID, or the default value if the thread is unknown.
+     */
+    public int get(long tid) {
+        int slot = hash(tid) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            if (key == tid) {
+                return fValues[slot];
+            }
+            slot = (slot + 1) & fMask;
+        }
+        return fDefaultValue;
+    }
+
+    /**
+     * Set the partition of a thread.
+     *
+     * @param tid
+     *            The thread ID, must be positive or zero.
+     * @param partition
+     *            The partition ID.
+     */
+    public void put(long tid, int partition) {
+        if (tid < 0) {
+            return;
+        }
+        int slot = hash(tid) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            if (key == tid) {
+                fValues[slot] = partition;
+                return;
+            }
+            slot = (slot + 1) & fMask;
+        }
+        fKeys[slot] = tid;
+        fValues[slot] = partition;
+        fSize++;
+        /* Keep the load factor under 1/2 */
+        if (fSize * 2 > fKeys.length) {
+            rehash(fKeys.length * 2);
+        }
+    }
+
+    /**
+     * Remove a thread from the table.
+     *
+     * @param tid
+     *            The thread ID.
+     */
+    public void remove(long tid) {
+        int slot = hash(tid) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            if (key == tid) {
+                shiftBack(slot);
+                fSize--;
+                return;
+            }
+            slot = (slot + 1) & fMask;
+        }
+    }
+
+    /**
+     * @return The number of threads in the table.
+     */
+    public int size() {
+        return fSize;
+    }
+
+    private void shiftBack(int removedSlot) {
+        int hole = removedSlot;
+        int slot = (hole + 1) & fMask;
+        long key;
+        while ((key = fKeys[slot]) != EMPTY_KEY) {
+            int ideal = hash(key) & fMask;
+            /* Move the entry into the hole if its ideal slot is not between the hole and its slot */
+            if (((slot - ideal) & fMask) >= ((slot - hole) & fMask)) {
+                fKeys[hole] = key;
+                fValues[hole] = fValues[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & fMask;
+        }
+        fKeys[hole] = EMPTY_KEY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = fKeys;
+        int[] oldValues = fValues;
+        fKeys = new long[capacity];
+        fValues = new int[capacity];
+        fMask = capacity - 1;
+        Arrays.fill(fKeys, EMPTY_KEY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY_KEY) {
+                int slot = hash(key) & fMask;
+                while (fKeys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & fMask;
+                }
+                fKeys[slot] = key;
+                fValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * GOLDEN_RATIO;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -15,13 +15,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -49,6 +47,7 @@ import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.tracecompass.analysis.os.linux.core.kernel.KernelTidAspect;
 import org.eclipse.tracecompass.analysis.os.linux.core.signals.TmfThreadSelectedSignal;
@@ -65,9 +64,14 @@ import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.
 import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.PackageMessages;
 import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.filters.ActiveThreadsFilter;
 import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.filters.DynamicFilterDialog;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IStreamingRowModelProvider;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.ParallelFetcher;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.TimeGraphRowApplier;
+import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.TimeGraphStateQueryFilter;
 import org.eclipse.tracecompass.statesystem.core.StateSystemUtils;
 import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderManager;
+import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.model.filters.SelectionTimeQueryFilter;
 import org.eclipse.tracecompass.tmf.core.model.filters.TimeQueryFilter;
@@ -75,6 +79,8 @@ import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphDataProvider;
 import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphRowModel;
 import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
 import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphEntryModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphModel;
+import org.eclipse.tracecompass.tmf.core.response.CommonStatusMessage;
 import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
 import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
 import org.eclipse.tracecompass.tmf.core.signal.TmfSelectionRangeUpdatedSignal;
@@ -85,6 +91,7 @@ import org.eclipse.tracecompass.tmf.core.signal.TmfTraceSelectedSignal;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 import org.eclipse.tracecompass.tmf.ui.views.FormatTimeUtils;
@@ -102,11 +109,12 @@ import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.widgets.Utils;
 import org.eclipse.ui.IWorkbenchActionConstants;
 import org.eclipse.ui.PlatformUI;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
 
 /**
  * A test class to extend the control flow view
@@ -242,6 +250,8 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
 
     private final ActiveThreadsFilterAction fActiveThreadsRapidToggle = new ActiveThreadsFilterAction();
 
+    private final TimeGraphRowApplier fRowApplier = new TimeGraphRowApplier(fEntries, this::createTimeEvents, this::applyResults);
+
     class ActiveThreadsFilterAction extends Action {
         public ActiveThreadsFilterAction() {
             super(PackageMessages.ControlFlowView_DynamicFiltersActiveThreadToggleLabel, IAction.AS_CHECK_BOX);
@@ -709,6 +719,10 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
         synchronized (fFlatTraces) {
             fFlatTraces.remove(parentTrace);
         }
+        Collection<ITmfTrace> traces = TmfTraceManager.getTraceSet(parentTrace);
+        synchronized (fEntries) {
+            fCgroupEntries.rowKeySet().removeIf(traceEntry -> traces.contains(traceEntry.getTrace()));
+        }
     }
 
     @TmfSignalHandler
@@ -846,13 +860,15 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
     }
 
     // ------------------------------------------------------------------------
-    // Static fields
+    // Fields
     // ------------------------------------------------------------------------
 
     /**
-     * Maps containing new entry for the cgroups.
+     * Entries created for the cgroups, by trace entry and cgroup entry ID. The
+     * IDs are quarks, only unique within the tree of a trace. Guarded by
+     * fEntries.
      */
-    private static Map<CgroupEntryModel, TimeGraphEntry> createdCgroupMap = new HashMap<>();
+    private final Table<TraceEntry, Long, TimeGraphEntry> fCgroupEntries = HashBasedTable.create();
 
     /**
      * Atomic index to add entires for the Cgroup.
@@ -898,62 +914,6 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
     }
 
 
-    private void zoomEntries(Map<Long, TimeGraphEntry> map, List<ITimeGraphRowModel> model, boolean completed, Sampling sampling) {
-        boolean isZoomThread = Thread.currentThread() instanceof ZoomThread;
-        for (ITimeGraphRowModel rowModel : model) {
-            TimeGraphEntry entry;
-            synchronized (fEntries) {
-                entry = map.get(rowModel.getEntryID());
-            }
-
-            if (entry != null) {
-                List<ITimeEvent> events = createTimeEvents(entry, rowModel.getStates());
-                if (isZoomThread) {
-                    applyResults(() -> {
-                        entry.setZoomedEventList(events);
-                        if (completed) {
-                            entry.setSampling(sampling);
-                        }
-                    });
-                } else {
-                    entry.setEventList(events);
-                }
-            }
-        }
-    }
-
-    /**
-     * Filter the entries to return only the Non Null {@link TimeGraphEntry} which
-     * intersect the time range.
-     *
-     * @param visible
-     *            the input list of visible entries
-     * @param zoomStartTime
-     *            the leftmost time bound of the view
-     * @param zoomEndTime
-     *            the rightmost time bound of the view
-     * @return A Multimap of data providers to their visible entries' model IDs.
-     */
-    private static Multimap<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Long> filterGroupEntries(Iterable<TimeGraphEntry> visible,
-            long zoomStartTime, long zoomEndTime) {
-        Multimap<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Long> providersToModelIds = HashMultimap.create();
-        for (TimeGraphEntry entry : visible) {
-            if (zoomStartTime <= entry.getEndTime() && zoomEndTime >= entry.getStartTime() && entry.hasTimeEvents()) {
-                ITimeGraphDataProvider<? extends TimeGraphEntryModel> provider = getProvider(entry);
-                if (provider != null) {
-                    providersToModelIds.put(provider, entry.getModel().getId());
-                }
-            }
-            if (entry instanceof RunningPartitionEntry) {
-                ITimeGraphDataProvider<? extends TimeGraphEntryModel> provider = getProvider(entry);
-                if (provider != null) {
-                    providersToModelIds.put(provider, entry.getModel().getId());
-                }
-            }
-        }
-        return providersToModelIds;
-    }
-
     @Override
     protected void zoomEntries(@NonNull Iterable<@NonNull TimeGraphEntry> entries, long zoomStartTime, long zoomEndTime, long resolution, @NonNull IProgressMonitor monitor) {
         if (resolution < 0) {
@@ -965,20 +925,36 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
         long end = Long.max(zoomStartTime, zoomEndTime);
         List<@NonNull Long> times = StateSystemUtils.getTimes(start, end, resolution);
         Sampling sampling = new Sampling(start, end, resolution);
-        Multimap<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Long> providersToModelIds = filterGroupEntries(entries, zoomStartTime, zoomEndTime);
+        Multimap<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Long> providersToModelIds = TimeGraphRowApplier.filterGroupEntries(entries, zoomStartTime, zoomEndTime,
+                CgroupControlViewFilter::getProvider, RunningPartitionEntry.class::isInstance);
         SubMonitor subMonitor = SubMonitor.convert(monitor, getClass().getSimpleName() + "#zoomEntries", providersToModelIds.size()); //$NON-NLS-1$
 
-        for (Entry<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Collection<Long>> entry : providersToModelIds.asMap().entrySet()) {
-            ITimeGraphDataProvider<? extends TimeGraphEntryModel> dataProvider = entry.getKey();
-            TimeGraphStateQueryFilter filter = new TimeGraphStateQueryFilter(times, entry.getValue(), getRegexes());
-            TmfModelResponse<List<ITimeGraphRowModel>> response = dataProvider.fetchRowModel(filter, monitor);
-
+        /* The providers are queried concurrently, each result is applied here as it arrives */
+        Map<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Collection<Long>> providerIds = providersToModelIds.asMap();
+        Multimap<@NonNull Integer, @NonNull String> regexes = getRegexes();
+        boolean isZoomThread = Thread.currentThread() instanceof ZoomThread;
+        ParallelFetcher.fetch(providerIds.keySet(), dataProvider -> {
+            TimeGraphStateQueryFilter filter = new TimeGraphStateQueryFilter(times, providerIds.get(dataProvider), regexes);
+            if (!isZoomThread || !(dataProvider instanceof IStreamingRowModelProvider)) {
+                return dataProvider.fetchRowModel(filter, monitor);
+            }
+            /* Show the rows of the first chunks while the next ones are fetched */
+            Map<@NonNull String, @NonNull Object> parameters = FetchParametersUtils.selectionTimeQueryToMap(filter);
+            if (!regexes.isEmpty()) {
+                parameters.put(DataProviderParameterUtils.REGEX_MAP_FILTERS_KEY, regexes.asMap());
+            }
+            Map<Long, TimeGraphEntry> entryMap = fEntries.row(dataProvider);
+            TmfModelResponse<@NonNull TimeGraphModel> response = ((IStreamingRowModelProvider) dataProvider).fetchRowModel(parameters, monitor,
+                    partial -> fRowApplier.applyPartialRows(entryMap, partial.getRows(), monitor));
+            TimeGraphModel model = response.getModel();
+            return new TmfModelResponse<>(model == null ? null : model.getRows(), response.getStatus(), response.getStatusMessage());
+        }, (dataProvider, response) -> {
             List<ITimeGraphRowModel> model = response.getModel();
             if (model != null) {
-                zoomEntries(fEntries.row(dataProvider), model, response.getStatus() == ITmfResponse.Status.COMPLETED, sampling);
+                fRowApplier.applyRows(fEntries.row(dataProvider), model, isZoomThread, response.getStatus() == ITmfResponse.Status.COMPLETED, sampling);
             }
             subMonitor.worked(1);
-        }
+        }, monitor);
     }
 
     @Override
@@ -999,10 +975,10 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
             return;
         }
 
-        createdCgroupMap.clear();
-
         boolean complete = false;
         TraceEntry traceEntry = null;
+        CgroupEntryModel rootCgroup = null;
+        long cgroupGeneration = -1;
         while (!complete && !monitor.isCanceled()) {
             TmfModelResponse<List<ThreadEntryModel>> response = dataProvider.fetchTree(new TimeQueryFilter(0, Long.MAX_VALUE, 2), monitor);
             if (response.getStatus() == ITmfResponse.Status.FAILED) {
@@ -1013,11 +989,25 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
             }
             complete = response.getStatus() == ITmfResponse.Status.COMPLETED;
 
-            TmfModelResponse<List<CgroupEntryModel>> cgroupResponse = cgroupDataProvider.fetchTree(new TimeQueryFilter(0, Long.MAX_VALUE, 2), monitor);
+            /* Only the cgroup entries added or changed since the last update */
+            TmfModelResponse<CgroupTreeDelta> cgroupResponse = cgroupDataProvider.fetchTreeDelta(cgroupGeneration, monitor);
+            /* The cgroup tree is refined until its analysis completes too */
+            complete &= cgroupResponse.getStatus() != ITmfResponse.Status.RUNNING;
+            if (cgroupResponse.getStatus() == ITmfResponse.Status.COMPLETED && parentTrace.equals(getTrace())) {
+                /* e.g. the partition schedule file is missing */
+                String message = cgroupResponse.getStatusMessage();
+                showStatusMessage(CommonStatusMessage.COMPLETED.equals(message) ? null : message);
+            }
 
             List<ThreadEntryModel> model = response.getModel();
-            List<CgroupEntryModel> cgroupModel = cgroupResponse.getModel();
-            if (model != null && cgroupModel != null) {
+            CgroupTreeDelta cgroupDelta = cgroupResponse.getModel();
+            if (model != null && cgroupDelta != null) {
+                cgroupGeneration = cgroupDelta.getGeneration();
+                for (CgroupEntryModel cgroup : cgroupDelta.getEntries()) {
+                    if (!(cgroup instanceof RunningCgroupEntryModel) && cgroup.getParentId() == -1) {
+                        rootCgroup = cgroup;
+                    }
+                }
                 synchronized (fEntries) {
                     for (ThreadEntryModel entry : model) {
                         if (entry.getThreadId() != Integer.MIN_VALUE) {
@@ -1044,7 +1034,7 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
                     }
 
                     // TODO: We got to the the add the new hierachy based on cgroups
-                    addEntriesInCgroupHierarchicalTree(cgroupModel, traceEntry);
+                    addEntriesInCgroupHierarchicalTree(rootCgroup, cgroupDelta.getEntries(), traceEntry);
                 }
 
                 Objects.requireNonNull(traceEntry, "ControlFlow tree model should have a trace entry with PID=Integer.MIN_VALUE"); //$NON-NLS-1$
@@ -1072,11 +1062,30 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
         }
     }
 
+    /**
+     * Show a message of the data providers in the status line of the view.
+     *
+     * @param message
+     *            The message, or null to clear it.
+     */
+    private void showStatusMessage(@Nullable String message) {
+        Display.getDefault().asyncExec(() -> {
+            if (!getTimeGraphViewer().getControl().isDisposed()) {
+                getViewSite().getActionBars().getStatusLineManager().setMessage(message);
+            }
+        });
+    }
+
     /**
      * Add entries to the trace's child list in a hierarchical fashion where processes are grouped in the cgroup
      * they belong to.
+     *
+     * @param rootCgroup
+     *            The root cgroup of the tree, null if not known yet.
+     * @param changedCgroups
+     *            The cgroup entries added or changed since the last update.
      */
-    private void addEntriesInCgroupHierarchicalTree(List<CgroupEntryModel> cgroups, TraceEntry traceEntry) {
+    private void addEntriesInCgroupHierarchicalTree(CgroupEntryModel rootCgroup, List<CgroupEntryModel> changedCgroups, TraceEntry traceEntry) {
         Collection<TimeGraphEntry> entries = fEntries.row(getProvider(traceEntry)).values();
         Map<Long, TimeGraphEntry> map = Maps.uniqueIndex(entries, entry -> entry.getModel().getId());
         Boolean rootIsAdded = false;
@@ -1095,7 +1104,7 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
                  * In this case, we are a top level process that needs to be put under the correct cgroup
                  */
                 ControlFlowEntry cfEntry = (ControlFlowEntry)e;
-                TimeGraphEntry root = walkCgroupTreeAndCreateEntries(cgroups.get(0), cfEntry, traceEntry, newEntries);
+                TimeGraphEntry root = walkCgroupTreeAndCreateEntries(rootCgroup, cfEntry, traceEntry, newEntries);
                 if (!rootIsAdded && root != null) {
                     rootIsAdded = true;
                     traceEntry.addChild(root);
@@ -1105,29 +1114,29 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
             }
         }
 
-        int i = -1;
-        RunningPartitionEntry parentRunning = null;
-        for (CgroupEntryModel e : cgroups) {
+        /* The entries have stable IDs, parents come before their children */
+        for (CgroupEntryModel e : changedCgroups) {
             if ((e instanceof RunningCgroupEntryModel)) {
-                RunningPartitionEntry test = new RunningPartitionEntry(e.getName(), fCgroupProvider, 0, 100000);
-                if (e.getName().equals("RUNNING PARTITION")) {
-                    parentRunning = test;
-                    traceEntry.addChild(parentRunning);
+                TimeGraphEntry existing = fEntries.get(fCgroupProvider, e.getId());
+                if (existing != null) {
+                    existing.updateModel(e);
+                    continue;
                 }
-                if (test != parentRunning && parentRunning != null) {
-                    parentRunning.addChild(test);
+                RunningPartitionEntry running = new RunningPartitionEntry(e, fCgroupProvider);
+                TimeGraphEntry parentRunning = fEntries.get(fCgroupProvider, e.getParentId());
+                if (parentRunning != null) {
+                    parentRunning.addChild(running);
+                } else {
+                    traceEntry.addChild(running);
                 }
-                fEntries.put(fCgroupProvider, 0xDEADBEEFL + i, test);
-                i++;
+                fEntries.put(fCgroupProvider, e.getId(), running);
             }
         }
         for (TimeGraphEntry e : newEntries) {
             if (e != null) {
                 if (e.getName() != "Running Partition") {
                     fEntries.put(traceEntry.getProvider(), fAtomic.getAndIncrement(), e);
-                } /*else {
-                    fEntries.put(fCgroupProvider, 0xDEADBEEFL, e);
-                }*/
+                }
             }
         }
     }
@@ -1149,15 +1158,20 @@ public class CgroupControlViewFilter extends BaseDataProviderTimeGraphView {
             return null;
         }
 
-        TimeGraphEntry currentCgroupEntry = createdCgroupMap.get(cgroup);
+        /* Cgroup entries carry the lifetime of their cgroup, to hide them out of it */
+        TimeGraphEntry currentCgroupEntry = fCgroupEntries.get(traceEntry, cgroup.getId());
         if (currentCgroupEntry == null) {
             if (cgroup instanceof RunningCgroupEntryModel) {
                 currentCgroupEntry = new RunningPartitionEntry("Running Partition", fCgroupProvider, 0, 100000);
             } else {
-                currentCgroupEntry = new TimeGraphEntry(cgroup.getName(), 0, 100000);
+                currentCgroupEntry = new TimeGraphEntry(cgroup.getName(), cgroup.getStartTime(), cgroup.getEndTime());
             }
-            createdCgroupMap.put(cgroup, currentCgroupEntry);
+            fCgroupEntries.put(traceEntry, cgroup.getId(), currentCgroupEntry);
             list.add(currentCgroupEntry);
+        } else if (!(cgroup instanceof RunningCgroupEntryModel) && (currentCgroupEntry.getStartTime() != cgroup.getStartTime()
+                || currentCgroupEntry.getEndTime() != cgroup.getEndTime())) {
+            currentCgroupEntry.updateModel(new TimeGraphEntryModel(currentCgroupEntry.getModel().getId(),
+                    currentCgroupEntry.getModel().getParentId(), cgroup.getName(), cgroup.getStartTime(), cgroup.getEndTime()));
         }
 
         for (CgroupEntryModel p : cgroup.getProcessChilds()) {
@@ -9,22 +9,31 @@
 
 package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IStreamingRowModelProvider;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.PartitionSummary;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.ResponseCache;
 import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAnalysis;
 import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
 import org.eclipse.tracecompass.internal.tmf.core.model.AbstractTmfTraceDataProvider;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
-import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
@@ -43,6 +52,7 @@ import org.eclipse.tracecompass.tmf.core.response.ITmfResponse;
 import org.eclipse.tracecompass.tmf.core.response.TmfModelResponse;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 
 /**
@@ -51,7 +61,7 @@ import com.google.common.collect.Multimap;
  * @author Guillaume Champagne
  */
 @SuppressWarnings("restriction")
-public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements ITimeGraphDataProvider<@NonNull CgroupEntryModel>  {
+public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements ITimeGraphDataProvider<@NonNull CgroupEntryModel>, IStreamingRowModelProvider  {
 
     // ------------------------------------------------------------------------
     // Static fields
@@ -68,14 +78,35 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
     // ------------------------------------------------------------------------
 
     /**
-     * Atomic Long so that every {@link CgroupEntryModel} has a unique ID.
+     * WILDCARD character in the state system.
      */
-    private static final AtomicLong fAtomicLong = new AtomicLong();
+    private static final String WILDCARD = "*"; //$NON-NLS-1$
 
     /**
-     * WILDCARD character in the state system.
+     * Number of row models kept in the cache.
      */
-    private static final String WILDCARD = "*"; //$NON-NLS-1$
+    private static final int RESPONSE_CACHE_SIZE = 32;
+
+    /**
+     * Number of requested times queried at once by the streamed fetches.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Width in pixels under which the deviation of a window from the budget of
+     * its partition is not put in the label, since it could not be read.
+     */
+    private static final int MIN_LABEL_PIXELS = 100;
+
+    /**
+     * Name of the parent entry of the running partition of each CPU.
+     */
+    private static final @NonNull String RUNNING_PARTITION = "RUNNING PARTITION"; //$NON-NLS-1$
+
+    private static final @NonNull String TOOLTIP_PARTITION = "Partition"; //$NON-NLS-1$
+    private static final @NonNull String TOOLTIP_DEVIATION = "Budget deviation"; //$NON-NLS-1$
+    private static final @NonNull String TOOLTIP_CGROUP = "Cgroup"; //$NON-NLS-1$
+    private static final @NonNull String NO_SCHEDULE = "No schedule file (arinc653_schedule.xml), the partition budgets are not checked"; //$NON-NLS-1$
 
     /**
      * Current subsystem to query.
@@ -88,7 +119,26 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
     private ContainerAnalysis fModule;
 
     /* Quark to entry ID map */
-    private Map<Integer, Long> fRunningPartPerCpuEntries;
+    private final Map<Integer, Long> fRunningPartPerCpuEntries = new ConcurrentHashMap<>();
+
+    /* Entry models by ID, reused while the entries do not change */
+    private final Map<Long, CgroupEntryModel> fEntryModels = new HashMap<>();
+
+    /* Generation of the tree at which each entry was added or changed */
+    private final Map<Long, Long> fEntryGenerations = new HashMap<>();
+
+    /* Current generation of the tree, incremented when entries change */
+    private long fGeneration = 0;
+
+    /* Lifetimes of the cgroups and their members, once the analysis is complete */
+    private volatile @Nullable CgroupMembershipIndex fMembershipIndex = null;
+    private @Nullable ITmfStateSystem fIndexedStateSystem = null;
+
+    /* Values and labels of the partitions of the analysis */
+    private final PartitionLabels fLabels = new PartitionLabels();
+
+    /* Row models of the completed analysis, for the navigation back and forth */
+    private final ResponseCache<TimeGraphModel> fResponses = new ResponseCache<>(RESPONSE_CACHE_SIZE);
 
     // ------------------------------------------------------------------------
     // Constructor
@@ -106,7 +156,6 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
 
         fSubSystem = "cpu"; //$NON-NLS-1$
         fModule = module;
-        fRunningPartPerCpuEntries = new HashMap<>();
     }
 
     // ------------------------------------------------------------------------
@@ -117,37 +166,46 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
     @Override
     /**
      * DEV NOTES:
-     * - Threads/processes can move cgroups during execution, we should handle this.
+     * - Threads/processes can move cgroups during execution. Once the analysis
+     *   is complete, a thread has an entry in each of its cgroups with the
+     *   lifetime of its membership, see CgroupMembershipIndex.
      */
     public TmfModelResponse<List<CgroupEntryModel>> fetchTree(TimeQueryFilter filter, @Nullable IProgressMonitor monitor) {
-
-        // TODO: This very temporary...
-        fModule.waitForCompletion();
-
-        ITmfStateSystem ss = fModule.getStateSystem();
-        if (ss == null) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
-        }
-
-        Integer subSysQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
-        try {
-            subSysQuark = ss.getQuarkAbsolute(ContainerAttributes.CGROUPS_SUBSYS, fSubSystem);
-        } catch (AttributeNotFoundException e) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
+        synchronized (fEntryModels) {
+            TmfModelResponse<List<CgroupEntryModel>> response = buildTree();
+            List<CgroupEntryModel> entries = response.getModel();
+            return (entries == null) ? response : new TmfModelResponse<>(new ArrayList<>(entries), response.getStatus(), response.getStatusMessage());
         }
+    }
 
-        Integer rootCgroupQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
-        try {
-            String subSysMount = ss.querySingleState(ss.getCurrentEndTime(), subSysQuark).getValueString();
-            rootCgroupQuark = ss.getQuarkAbsolute(ContainerAttributes.CGROUPS_HIERARCHIES, subSysMount);
-        } catch (Exception e) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
+    /**
+     * Fetch the entries of the tree that were added or changed since a
+     * previous generation of the tree, so that clients polling the tree while
+     * the analysis runs only update what changed.
+     *
+     * @param generation
+     *            The generation of the last delta received, or -1 for the
+     *            whole tree.
+     * @param monitor
+     *            The progress monitor.
+     * @return The delta with the new generation of the tree.
+     */
+    public TmfModelResponse<CgroupTreeDelta> fetchTreeDelta(long generation, @Nullable IProgressMonitor monitor) {
+        synchronized (fEntryModels) {
+            TmfModelResponse<List<CgroupEntryModel>> response = buildTree();
+            List<CgroupEntryModel> entries = response.getModel();
+            if (entries == null) {
+                return new TmfModelResponse<>(null, response.getStatus(), response.getStatusMessage());
+            }
+            List<@NonNull CgroupEntryModel> changed = new ArrayList<>();
+            for (CgroupEntryModel entry : entries) {
+                Long entryGeneration = fEntryGenerations.get(entry.getId());
+                if (entryGeneration != null && entryGeneration > generation) {
+                    changed.add(entry);
+                }
+            }
+            return new TmfModelResponse<>(new CgroupTreeDelta(fGeneration, changed), response.getStatus(), response.getStatusMessage());
         }
-
-        List<CgroupEntryModel> list = new ArrayList<>();
-        createEntriesForCgroup(ss, rootCgroupQuark, null, -1, list);
-
-        return new TmfModelResponse<>(list, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
     }
 
     @Override
@@ -173,64 +231,119 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
     // ------------------------------------------------------------------------
 
     /**
+     * Build the entries of the tree, reusing the models of the entries that
+     * did not change. Must be called with the lock on the entry models.
+     *
+     * The tree is built from the attributes of the state system at its
+     * current end time, it is RUNNING until the analysis completes and is
+     * refined by the following requests.
+     */
+    private TmfModelResponse<List<CgroupEntryModel>> buildTree() {
+        if (!fModule.waitForInitialization()) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
+        }
+
+        ITmfStateSystem ss = fModule.getStateSystem();
+        if (ss == null) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
+        }
+
+        /* Read the completion before the attributes, not to miss the last ones */
+        boolean complete = ss.waitUntilBuilt(0);
+        ITmfResponse.Status status = complete ? ITmfResponse.Status.COMPLETED : ITmfResponse.Status.RUNNING;
+        String statusMessage = complete ? getCompletedMessage() : CommonStatusMessage.RUNNING;
+
+        int rootCgroupQuark = ITmfStateSystem.INVALID_ATTRIBUTE;
+        int subSysQuark = ss.optQuarkAbsolute(ContainerAttributes.CGROUPS_SUBSYS, fSubSystem);
+        if (subSysQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+            try {
+                Object subSysMount = ss.querySingleState(ss.getCurrentEndTime(), subSysQuark).getValue();
+                if (subSysMount instanceof String) {
+                    rootCgroupQuark = ss.optQuarkAbsolute(ContainerAttributes.CGROUPS_HIERARCHIES, (String) subSysMount);
+                }
+            } catch (StateSystemDisposedException e) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+            }
+        }
+
+        if (rootCgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            /* The hierarchy may not have been read yet */
+            if (complete) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
+            }
+            return new TmfModelResponse<>(new ArrayList<>(), status, statusMessage);
+        }
+
+        /* The lifetimes of the entries are known once the analysis is complete */
+        CgroupMembershipIndex index = fMembershipIndex;
+        if (complete && (index == null || index.getRootQuark() != rootCgroupQuark || fIndexedStateSystem != ss)) {
+            try {
+                index = CgroupMembershipIndex.build(ss, rootCgroupQuark);
+            } catch (StateSystemDisposedException e) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+            }
+            fMembershipIndex = index;
+            fIndexedStateSystem = ss;
+        } else if (!complete) {
+            index = null;
+        }
+
+        List<CgroupEntryModel> list = new ArrayList<>();
+        long generation = fGeneration + 1;
+        if (createEntriesForCgroup(ss, index, rootCgroupQuark, null, -1, generation, list)) {
+            fGeneration = generation;
+        }
+
+        return new TmfModelResponse<>(list, status, statusMessage);
+    }
+
+    /**
+     * Create the entries of a cgroup and its descendants. The ID of an entry
+     * is the quark of its attribute, so it does not depend on the order in
+     * which the entries are created nor on the time of the request.
      *
      * @param ss
      *          The state system used by this data provider.
+     * @param index
+     *          The index of the lifetimes of the cgroups and of their
+     *          members, or null while the analysis runs.
      * @param cgroupQuark
      *          The quarks of the cgroup to create entries for in the hierarchy.
      * @param parentEntry
      *          The parent entry to build the hierarchy from.
+     * @param generation
+     *          The generation of the entries created.
      * @param list
      *          The list in which the results are accumulated.
+     * @return Whether entries were added or changed.
      */
-    private void createEntriesForCgroup(ITmfStateSystem ss, Integer cgroupQuark, CgroupEntryModel parentEntry, long parentID, List<CgroupEntryModel> list) {
+    private boolean createEntriesForCgroup(ITmfStateSystem ss, @Nullable CgroupMembershipIndex index, int cgroupQuark, @Nullable CgroupEntryModel parentEntry, long parentID, long generation, List<CgroupEntryModel> list) {
         if (cgroupQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
-            return;
+            return false;
         }
 
         String name = ss.getAttributeName(cgroupQuark);
+        long cgroupEntryID = cgroupQuark;
+        boolean changed = false;
 
         // Create Entry Model for this group
-        long cgroupEntryID = fAtomicLong.getAndIncrement();
-
-        CgroupEntryModel cgroupEntry;
-        if (parentEntry == null) {
-            // fRunningPartPerCpuEntries.add(0xDEADBEEFL);
-
-
+        long start = (index != null) ? index.getCgroupStart(cgroupQuark) : ss.getStartTime();
+        long end = (index != null) ? index.getCgroupEnd(cgroupQuark) : ss.getCurrentEndTime();
+        CgroupEntryModel cgroupEntry = getEntry(cgroupEntryID, parentID, name, index != null, start, end);
+        if (cgroupEntry == null) {
             cgroupEntry = new CgroupEntryModel(cgroupEntryID, parentID, name,
-                    CgroupEntryModel.CGROUP_PID, parentEntry, 0 ,ss.getCurrentEndTime());
-
-            list.add(cgroupEntry);
-
-            CgroupEntryModel other = new RunningCgroupEntryModel(0xDEADBEEFL, parentID, "RUNNING PARTITION",
-                    CgroupEntryModel.CGROUP_PID, parentEntry, 0 ,ss.getCurrentEndTime());
-
-            list.add(other );
-
-
-            /* Create entries for CurrentPartition/CPUX */
-            int i = 0;
-            List<Integer> quarks = ss.getQuarks("CurrentPartition", WILDCARD);
-            for (Integer q : quarks) {
-                String cpuName = ss.getAttributeName(q);
-                fRunningPartPerCpuEntries.put(q ,0xDEADBEEFL + i);
-                list.add(new RunningCgroupEntryModel(0xDEADBEEFL + i, 0xDEADBEEFL, cpuName,
-                        CgroupEntryModel.CGROUP_PID, parentEntry, 0 ,ss.getCurrentEndTime()));
-                i++;
+                    CgroupEntryModel.CGROUP_PID, parentEntry, start, end);
+            putEntry(cgroupEntry, generation);
+            if (parentEntry != null) {
+                parentEntry.addCgroupChild(cgroupEntry);
             }
-
-        } else {
-            cgroupEntry = new CgroupEntryModel(cgroupEntryID, parentID, name,
-                    CgroupEntryModel.CGROUP_PID, parentEntry, 0, ss.getCurrentEndTime());
-            list.add(cgroupEntry);
-        }
-
-        if (parentEntry != null) {
-            parentEntry.addCgroupChild(cgroupEntry);
+            changed = true;
         }
+        list.add(cgroupEntry);
 
-        if (parentEntry != null) {
+        if (parentEntry == null) {
+            changed |= createRunningPartitionEntries(ss, parentID, generation, list);
+        } else {
             // Add all the process entries for this cgroup
             for (Integer quark : ss.getQuarks(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, WILDCARD)) {
                 name = ss.getAttributeName(quark);
@@ -242,89 +355,360 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
                     continue;
                 }
 
-                CgroupEntryModel c = new CgroupEntryModel(fAtomicLong.getAndIncrement(), cgroupEntryID, name, pid, cgroupEntry, 0, ss.getCurrentEndTime());
+                long memberStart = (index != null) ? index.getMemberStart(quark) : ss.getStartTime();
+                long memberEnd = (index != null) ? index.getMemberEnd(quark) : ss.getCurrentEndTime();
+                CgroupEntryModel c = getEntry(quark, cgroupEntryID, name, index != null, memberStart, memberEnd);
+                if (c == null) {
+                    c = new CgroupEntryModel(quark, cgroupEntryID, name, pid, cgroupEntry, memberStart, memberEnd);
+                    putEntry(c, generation);
+                    cgroupEntry.addProcessChild(c);
+                    changed = true;
+                }
                 list.add(c);
-                cgroupEntry.addProcessChild(c);
             }
         }
 
         // Visit the children cgroups
         for (Integer quark : ss.getQuarks(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, WILDCARD)) {
-            createEntriesForCgroup(ss, quark, cgroupEntry, cgroupEntryID, list);
+            changed |= createEntriesForCgroup(ss, index, quark, cgroupEntry, cgroupEntryID, generation, list);
         }
+        return changed;
+    }
+
+    /**
+     * Create the running partition entry, whose ID is the quark of
+     * CurrentPartition, and its children for CurrentPartition/CPUX.
+     *
+     * @return Whether entries were added or changed.
+     */
+    private boolean createRunningPartitionEntries(ITmfStateSystem ss, long parentID, long generation, List<CgroupEntryModel> list) {
+        int currentPartitionQuark = ss.optQuarkAbsolute(ContainerAttributes.CURRENT_PARTITION);
+        if (currentPartitionQuark == ITmfStateSystem.INVALID_ATTRIBUTE) {
+            return false;
+        }
+
+        boolean changed = false;
+        CgroupEntryModel running = getEntry(currentPartitionQuark, parentID, RUNNING_PARTITION, false, 0, 0);
+        if (running == null) {
+            running = new RunningCgroupEntryModel(currentPartitionQuark, parentID, RUNNING_PARTITION,
+                    CgroupEntryModel.CGROUP_PID, null, 0, ss.getCurrentEndTime());
+            putEntry(running, generation);
+            changed = true;
+        }
+        list.add(running);
+
+        for (Integer q : ss.getQuarks(ContainerAttributes.CURRENT_PARTITION, WILDCARD)) {
+            String cpuName = ss.getAttributeName(q);
+            CgroupEntryModel cpuEntry = getEntry(q, currentPartitionQuark, cpuName, false, 0, 0);
+            if (cpuEntry == null) {
+                cpuEntry = new RunningCgroupEntryModel(q, currentPartitionQuark, cpuName,
+                        CgroupEntryModel.CGROUP_PID, null, 0, ss.getCurrentEndTime());
+                putEntry(cpuEntry, generation);
+                changed = true;
+            }
+            fRunningPartPerCpuEntries.put(q, cpuEntry.getId());
+            list.add(cpuEntry);
+        }
+        return changed;
+    }
+
+    /**
+     * Get the model of an entry from a previous tree, if it did not change.
+     * The times are only compared when they are the real lifetime of the
+     * entry, not the current range of the analysis.
+     */
+    private @Nullable CgroupEntryModel getEntry(long id, long parentId, String name, boolean compareTimes, long start, long end) {
+        CgroupEntryModel entry = fEntryModels.get(id);
+        if (entry != null && entry.getParentId() == parentId && entry.getName().equals(name)
+                && (!compareTimes || (entry.getStartTime() == start && entry.getEndTime() == end))) {
+            return entry;
+        }
+        return null;
+    }
+
+    private void putEntry(CgroupEntryModel entry, long generation) {
+        /* Replace a changed entry in the children of its parent */
+        CgroupEntryModel previous = fEntryModels.put(entry.getId(), entry);
+        CgroupEntryModel previousParent = (previous != null) ? previous.getParent() : null;
+        if (previousParent != null) {
+            previousParent.removeChild(previous);
+        }
+        if (previous != null) {
+            /* The children that did not change are kept under the new model */
+            for (CgroupEntryModel child : previous.getCgroupChilds()) {
+                child.setParent(entry);
+                entry.addCgroupChild(child);
+            }
+            for (CgroupEntryModel child : previous.getProcessChilds()) {
+                child.setParent(entry);
+                entry.addProcessChild(child);
+            }
+        }
+        fEntryGenerations.put(entry.getId(), generation);
     }
 
-    @SuppressWarnings("null")
     @Override
     public @NonNull TmfModelResponse<@NonNull TimeGraphModel> fetchRowModel(@NonNull Map<@NonNull String, @NonNull Object> fetchParameters, @Nullable IProgressMonitor monitor) {
+        return fetchRows(fetchParameters, monitor, null);
+    }
+
+    @Override
+    public @NonNull TmfModelResponse<@NonNull TimeGraphModel> fetchRowModel(@NonNull Map<@NonNull String, @NonNull Object> fetchParameters, @Nullable IProgressMonitor monitor,
+            @NonNull Consumer<@NonNull TimeGraphModel> partialModels) {
+        return fetchRows(fetchParameters, monitor, partialModels);
+    }
+
+    @SuppressWarnings("null")
+    private @NonNull TmfModelResponse<@NonNull TimeGraphModel> fetchRows(@NonNull Map<@NonNull String, @NonNull Object> fetchParameters, @Nullable IProgressMonitor monitor,
+            @Nullable Consumer<@NonNull TimeGraphModel> partialModels) {
         ITmfStateSystem ss = fModule.getStateSystem();
 
         if (ss == null) {
             return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.STATE_SYSTEM_FAILED);
         }
 
-        List<Integer> partCpuQuark;
-        partCpuQuark = ss.getQuarks("CurrentPartition", WILDCARD); //$NON-NLS-1$
-
-        List<Integer> quarks = new ArrayList<>();
-        quarks.addAll(partCpuQuark);
-        Iterable<ITmfStateInterval> states;
         SelectionTimeQueryFilter filter = FetchParametersUtils.createSelectionTimeQuery(fetchParameters);
-
         if (filter == null) {
             return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.STATE_SYSTEM_FAILED);
         }
+        Multimap<@NonNull Integer, @NonNull String> regexesMap = DataProviderParameterUtils.extractRegexFilter(fetchParameters);
 
-        try {
-            states = ss.query2D(quarks, filter.getStart(), filter.getEnd());
-        } catch (IndexOutOfBoundsException | TimeRangeException | StateSystemDisposedException e) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+        /* The states of a completed analysis do not change anymore */
+        ResponseCache.Key key = null;
+        if (ss.waitUntilBuilt(0)) {
+            key = new ResponseCache.Key(filter.getSelectedItems(), filter.getTimesRequested(), regexesMap);
+            TimeGraphModel cached = fResponses.get(ss, key);
+            if (cached != null) {
+                return new TmfModelResponse<>(cached, ITmfResponse.Status.COMPLETED, getCompletedMessage());
+            }
+        }
+
+        /*
+         * Query the CurrentPartition/CPU* attributes of the selected entries
+         * and their diff in the same 2D query.
+         */
+        Map<Integer, List<ITimeGraphState>> eventLists = new LinkedHashMap<>();
+        Map<Integer, Integer> diffCpuQuarks = new HashMap<>();
+        Collection<Long> selectedItems = filter.getSelectedItems();
+        for (Integer cpuQuark : ss.getQuarks(ContainerAttributes.CURRENT_PARTITION, WILDCARD)) {
+            Long entryId = fRunningPartPerCpuEntries.get(cpuQuark);
+            if (entryId == null || !selectedItems.contains(entryId)) {
+                continue;
+            }
+            eventLists.put(cpuQuark, new ArrayList<>());
+            int diffQuark = ss.optQuarkRelative(cpuQuark, ContainerAttributes.CURRENT_PARTITION_DIFF);
+            if (diffQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                diffCpuQuarks.put(diffQuark, cpuQuark);
+            }
+        }
+        if (eventLists.isEmpty()) {
+            return new TmfModelResponse<>(new TimeGraphModel(new ArrayList<>()), ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
         }
 
+        /* Only the states at the requested times, one per pixel at most */
+        List<Long> times = new ArrayList<>();
+        for (long time : filter.getTimesRequested()) {
+            if (time >= ss.getStartTime() && time <= ss.getCurrentEndTime()) {
+                times.add(time);
+            }
+        }
+        if (times.isEmpty()) {
+            return new TmfModelResponse<>(new TimeGraphModel(new ArrayList<>()), ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
+        }
+        Collections.sort(times);
+
+        List<Integer> quarks = new ArrayList<>(eventLists.keySet());
+        quarks.addAll(diffCpuQuarks.keySet());
+
         Map<@NonNull Integer, @NonNull Predicate<@NonNull Multimap<@NonNull String, @NonNull Object>>> predicates = new HashMap<>();
-        Multimap<@NonNull Integer, @NonNull String> regexesMap = DataProviderParameterUtils.extractRegexFilter(fetchParameters);
         if (regexesMap != null) {
             predicates.putAll(computeRegexPredicate(regexesMap));
         }
 
-        List<ITimeGraphRowModel> rows = new ArrayList<>();
-        List<ITimeGraphState> eventList = new ArrayList<>();
-        for (Integer key : fRunningPartPerCpuEntries.keySet()) {
-            eventList.clear();
-            states.forEach(i -> {
-                int attributeQuark = i.getAttribute();
-                Long diff = null;
-                if (attributeQuark == key) {
-                    try {
-                        int diffQuark = ss.getQuarkRelative(attributeQuark, "diff");
-                        ITmfStateInterval val = ss.querySingleState(i.getStartTime(), diffQuark);
-                        diff = val.getValueLong();
-                    } catch (Exception e) {
+        long[] requestedTimes = filter.getTimesRequested();
+        long resolution = 0;
+        if (requestedTimes.length > 1) {
+            resolution = (requestedTimes[requestedTimes.length - 1] - requestedTimes[0]) / (requestedTimes.length - 1);
+        }
+        long minLabelDuration = resolution * MIN_LABEL_PIXELS;
+
+        /* Zoomed out, the rows of a completed analysis come from its summary */
+        PartitionSummary summary = fModule.getPartitionSummary();
+        if (key != null && summary != null && resolution > 0
+                && addSummaryStates(ss, summary, eventLists, times.get(0), times.get(times.size() - 1), resolution, minLabelDuration, predicates, monitor)) {
+            TimeGraphModel model = new TimeGraphModel(getRows(eventLists, false));
+            if (monitor == null || !monitor.isCanceled()) {
+                fResponses.put(ss, key, model);
+            }
+            return new TmfModelResponse<>(model, ITmfResponse.Status.COMPLETED, getCompletedMessage());
+        }
+
+        /*
+         * Query the times in chunks, in time order. An interval spanning many
+         * chunks is returned by each of them, it is only added by the first.
+         */
+        Map<Integer, Long> lastEnds = new HashMap<>();
+        List<List<Long>> chunks = Lists.partition(times, CHUNK_SIZE);
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            if (monitor != null && monitor.isCanceled()) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
+            }
+
+            /* Bucket the intervals by CPU in a single pass */
+            Map<Integer, List<ITmfStateInterval>> partitionIntervals = new HashMap<>();
+            Map<Integer, Map<Long, Long>> diffs = new HashMap<>();
+            try {
+                for (ITmfStateInterval interval : ss.query2D(quarks, chunks.get(chunk))) {
+                    int quark = interval.getAttribute();
+                    if (eventLists.containsKey(quark)) {
+                        if (interval.getStartTime() > lastEnds.getOrDefault(quark, Long.MIN_VALUE)) {
+                            partitionIntervals.computeIfAbsent(quark, q -> new ArrayList<>()).add(interval);
+                        }
+                        continue;
+                    }
+                    /* The diff of a partition starts with its interval */
+                    Object diff = interval.getValue();
+                    Integer cpuQuark = diffCpuQuarks.get(quark);
+                    if (cpuQuark != null && diff instanceof Long) {
+                        diffs.computeIfAbsent(cpuQuark, q -> new HashMap<>()).put(interval.getStartTime(), (Long) diff);
+                    }
+                }
+            } catch (IndexOutOfBoundsException | TimeRangeException | StateSystemDisposedException e) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+            }
 
+            for (Map.Entry<Integer, List<ITmfStateInterval>> bucket : partitionIntervals.entrySet()) {
+                int cpuQuark = bucket.getKey();
+                Long entryId = fRunningPartPerCpuEntries.get(cpuQuark);
+                if (entryId == null) {
+                    continue;
+                }
+                Map<Long, Long> cpuDiffs = diffs.getOrDefault(cpuQuark, Collections.emptyMap());
+                List<ITmfStateInterval> intervals = bucket.getValue();
+                intervals.sort(Comparator.comparingLong(ITmfStateInterval::getStartTime));
+
+                List<ITimeGraphState> eventList = eventLists.get(cpuQuark);
+                for (ITmfStateInterval interval : intervals) {
+                    long duration = interval.getEndTime() - interval.getStartTime();
+                    Object value = interval.getValue();
+                    int val = 0x0;
+                    String fullName = null;
+                    if (value instanceof String) {
+                        PartitionLabels.Label label = fLabels.get((String) value);
+                        val = label.getValue();
+                        fullName = label.getName();
+                        /* The deviation is only formatted if it can be displayed */
+                        Long diff = (duration >= minLabelDuration) ? cpuDiffs.get(interval.getStartTime()) : null;
+                        if (diff != null) {
+                            fullName = label.getPrettyName(diff);
+                        }
                     }
-                    Long parentKey = fRunningPartPerCpuEntries.get(attributeQuark);
-                    String name = i.getValueString();
-                    int val = (name != null) ? Integer.parseInt(name.substring(1)) : 0x0;
-                    // int val = (name == null || name.equals("")) ? 0x65500 : 0x65501; //$NON-NLS-1$
-                    String fullName = (diff != null && name != null) ? getPrettyName(name ,diff) : name;
-                    applyFilterAndAddState(eventList, new TimeGraphState(i.getStartTime(), i.getEndTime() - i.getStartTime(), val, fullName), parentKey, predicates, monitor);
+                    applyFilterAndAddState(eventList, new TimeGraphState(interval.getStartTime(), duration, val, fullName), entryId, predicates, monitor);
                 }
-            });
+                lastEnds.put(cpuQuark, intervals.get(intervals.size() - 1).getEndTime());
+            }
 
-            Long entryId = fRunningPartPerCpuEntries.get(key);
-            if (entryId != null) {
-                rows.add(new TimeGraphRowModel(entryId, new ArrayList<>(eventList)));
+            if (partialModels != null && chunk < chunks.size() - 1) {
+                /* The lists keep growing, the partial rows get a copy */
+                partialModels.accept(new TimeGraphModel(getRows(eventLists, true)));
+            }
+        }
+
+        TimeGraphModel model = new TimeGraphModel(getRows(eventLists, false));
+        if (key != null && (monitor == null || !monitor.isCanceled())) {
+            fResponses.put(ss, key, model);
+        }
+        if (key == null) {
+            /* The rows may still change as the analysis advances */
+            return new TmfModelResponse<>(model, ITmfResponse.Status.RUNNING, CommonStatusMessage.RUNNING);
+        }
+        return new TmfModelResponse<>(model, ITmfResponse.Status.COMPLETED, getCompletedMessage());
+    }
+
+    /**
+     * Status message of a completed response, telling when the partition
+     * budgets could not be checked, rather than showing rows without
+     * deviations.
+     */
+    private String getCompletedMessage() {
+        return fModule.hasSchedule() ? CommonStatusMessage.COMPLETED : NO_SCHEDULE;
+    }
+
+    /**
+     * Add the states of the running partition rows from the level of the
+     * summary matching the resolution, merging the buckets with the same
+     * dominant partition.
+     *
+     * @return false if the summary is not fine enough for the resolution, no
+     *         state is added then.
+     */
+    private boolean addSummaryStates(ITmfStateSystem ss, PartitionSummary summary, Map<Integer, List<ITimeGraphState>> eventLists, long start, long end,
+            long resolution, long minLabelDuration, Map<@NonNull Integer, @NonNull Predicate<@NonNull Multimap<@NonNull String, @NonNull Object>>> predicates,
+            @Nullable IProgressMonitor monitor) {
+        Map<Integer, PartitionSummary.Level> levels = new HashMap<>();
+        for (Integer cpuQuark : eventLists.keySet()) {
+            PartitionSummary.Level level = summary.getLevel(ss.getAttributeName(cpuQuark), resolution);
+            if (level == null) {
+                return false;
             }
+            levels.put(cpuQuark, level);
         }
 
-        return new TmfModelResponse<>(new TimeGraphModel(rows), ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
+        for (Map.Entry<Integer, PartitionSummary.Level> entry : levels.entrySet()) {
+            Long entryId = fRunningPartPerCpuEntries.get(entry.getKey());
+            PartitionSummary.Level level = entry.getValue();
+            int first = level.indexOf(start);
+            int last = level.indexOf(end);
+            if (entryId == null || first < 0 || last < 0) {
+                continue;
+            }
+            List<ITimeGraphState> eventList = eventLists.get(entry.getKey());
+            int index = first;
+            while (index <= last) {
+                int runEnd = level.getRunEnd(index, last);
+                long runStart = level.getBucketStart(index);
+                long duration = level.getBucketEnd(runEnd) - runStart;
+                int val = 0x0;
+                String fullName = null;
+                String name = summary.getName(level.getDominant(index));
+                if (name != null) {
+                    PartitionLabels.Label label = fLabels.get(name);
+                    val = label.getValue();
+                    fullName = label.getName();
+                    /* Show the largest deviation of the merged buckets */
+                    if (duration >= minLabelDuration) {
+                        Long diff = null;
+                        for (int i = index; i <= runEnd; i++) {
+                            if (level.hasDeviation(i)) {
+                                long min = level.getMinDeviation(i);
+                                long max = level.getMaxDeviation(i);
+                                long largest = (Math.abs(min) > Math.abs(max)) ? min : max;
+                                if (diff == null || Math.abs(largest) > Math.abs(diff)) {
+                                    diff = largest;
+                                }
+                            }
+                        }
+                        if (diff != null) {
+                            fullName = label.getPrettyName(diff);
+                        }
+                    }
+                }
+                applyFilterAndAddState(eventList, new TimeGraphState(runStart, duration, val, fullName), entryId, predicates, monitor);
+                index = runEnd + 1;
+            }
+        }
+        return true;
     }
 
-    private static String getPrettyName(String name, Long diff) {
-        Double timeInms = diff / 1000000.0;
-        String symbol = timeInms > 0.0 ? "+" : "-";
-        timeInms = Math.abs(timeInms);
-        return String.format("%s (%s%7.4f ms)", name, symbol, timeInms);
+    private @NonNull List<@NonNull ITimeGraphRowModel> getRows(Map<Integer, List<ITimeGraphState>> eventLists, boolean copy) {
+        List<@NonNull ITimeGraphRowModel> rows = new ArrayList<>();
+        for (Map.Entry<Integer, List<ITimeGraphState>> eventList : eventLists.entrySet()) {
+            Long entryId = fRunningPartPerCpuEntries.get(eventList.getKey());
+            if (entryId != null) {
+                rows.add(new TimeGraphRowModel(entryId, copy ? new ArrayList<>(eventList.getValue()) : eventList.getValue()));
+            }
+        }
+        return rows;
     }
 
     @Deprecated
@@ -337,8 +721,87 @@ public class CgroupDataProvider extends AbstractTmfTraceDataProvider implements
     @Deprecated
     @Override
     public TmfModelResponse<@NonNull Map<@NonNull String, @NonNull String>> fetchTooltip(SelectionTimeQueryFilter filter, @Nullable IProgressMonitor monitor) {
-        // TODO Auto-generated method stub
-        return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
+        ITmfStateSystem ss = fModule.getStateSystem();
+        if (ss == null) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+        }
+        long time = filter.getStart();
+        if (time < ss.getStartTime() || time > ss.getCurrentEndTime()) {
+            return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
+        }
+
+        Map<@NonNull String, @NonNull String> tooltip = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : fRunningPartPerCpuEntries.entrySet()) {
+            if (!filter.getSelectedItems().contains(entry.getValue())) {
+                continue;
+            }
+            int cpuQuark = entry.getKey();
+            try {
+                Object value = ss.querySingleState(time, cpuQuark).getValue();
+                if (!(value instanceof String)) {
+                    continue;
+                }
+                PartitionLabels.Label label = fLabels.get((String) value);
+                tooltip.put(TOOLTIP_PARTITION, label.getName());
+                int diffQuark = ss.optQuarkRelative(cpuQuark, ContainerAttributes.CURRENT_PARTITION_DIFF);
+                Object diff = (diffQuark == ITmfStateSystem.INVALID_ATTRIBUTE) ? null : ss.querySingleState(time, diffQuark).getValue();
+                if (diff instanceof Long) {
+                    tooltip.put(TOOLTIP_DEVIATION, label.getPrettyName((Long) diff));
+                }
+            } catch (StateSystemDisposedException e) {
+                return new TmfModelResponse<>(null, ITmfResponse.Status.COMPLETED, CommonStatusMessage.STATE_SYSTEM_FAILED);
+            }
+        }
+
+        /*
+         * A thread has an entry in each of its cgroups, show the one it was in
+         * at that time
+         */
+        CgroupMembershipIndex index = fMembershipIndex;
+        if (index != null && fIndexedStateSystem == ss) {
+            for (Long item : filter.getSelectedItems()) {
+                int cgroupQuark = getCgroupOfMember(ss, index, item, time);
+                if (cgroupQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                    tooltip.put(TOOLTIP_CGROUP, getCgroupPath(ss, index, cgroupQuark));
+                }
+            }
+        }
+        return new TmfModelResponse<>(tooltip, ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
+    }
+
+    /**
+     * @return The cgroup of the thread of a PIDS/&lt;tid&gt; entry at a time,
+     *         or {@link ITmfStateSystem#INVALID_ATTRIBUTE} if the entry is
+     *         not a thread.
+     */
+    private static int getCgroupOfMember(ITmfStateSystem ss, CgroupMembershipIndex index, long entryId, long time) {
+        if (entryId < 0 || entryId >= ss.getNbAttributes()) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        int quark = (int) entryId;
+        int parentQuark = ss.getParentAttributeQuark(quark);
+        if (parentQuark == ITmfStateSystem.ROOT_ATTRIBUTE || !ContainerAttributes.CGROUPS_HIERARCHIES_PIDS.equals(ss.getAttributeName(parentQuark))) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+        try {
+            return index.getCgroupAt(Long.parseLong(ss.getAttributeName(quark)), time);
+        } catch (NumberFormatException e) {
+            return ITmfStateSystem.INVALID_ATTRIBUTE;
+        }
+    }
+
+    /**
+     * @return The path of a cgroup from the root of its hierarchy.
+     */
+    private static String getCgroupPath(ITmfStateSystem ss, CgroupMembershipIndex index, int cgroupQuark) {
+        Deque<String> names = new ArrayDeque<>();
+        int quark = cgroupQuark;
+        while (quark != index.getRootQuark() && quark != ITmfStateSystem.ROOT_ATTRIBUTE) {
+            names.push(ss.getAttributeName(quark));
+            /* Skip the CHILDREN attribute of the parent */
+            quark = ss.getParentAttributeQuark(ss.getParentAttributeQuark(quark));
+        }
+        return "/" + String.join("/", names); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
     @Deprecated
@@ -141,6 +141,15 @@ public class CgroupEntryModel extends TimeGraphEntryModel {
         fCgroupChildrens.add(child);
     }
 
+    /**
+     * @param child
+     *          The child process or cgroup entry to remove.
+     */
+    public void removeChild(CgroupEntryModel child) {
+        fProcessChildrens.remove(child);
+        fCgroupChildrens.remove(child);
+    }
+
     /**
      * @return The list of childs cgroups of this entry.
      */
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAnalysis;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
+import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
+import org.eclipse.tracecompass.internal.tmf.core.model.xy.AbstractTreeCommonXDataProvider;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.tmf.core.model.YModel;
+import org.eclipse.tracecompass.tmf.core.model.filters.SelectionTimeQueryFilter;
+import org.eclipse.tracecompass.tmf.core.model.tree.TmfTreeDataModel;
+import org.eclipse.tracecompass.tmf.core.model.tree.TmfTreeModel;
+import org.eclipse.tracecompass.tmf.core.model.xy.IYModel;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * XY data provider over the numeric cgroup files (cpu.shares,
+ * cpu.rt_runtime_us, memory.usage_in_bytes...), i.e. the files whose values
+ * are stored as long state values.
+ *
+ * The tree has one entry per hierarchy, cgroup and numeric file. A file is
+ * numeric if its last value is a long.
+ */
+@SuppressWarnings("restriction")
+public class CgroupFileXYDataProvider extends AbstractTreeCommonXDataProvider<@NonNull ContainerAnalysis, @NonNull TmfTreeDataModel> {
+
+    /**
+     * Extension point ID.
+     */
+    public static final @NonNull String ID = "org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider.CgroupFileXYDataProvider"; //$NON-NLS-1$
+
+    private static final String TITLE = "Cgroup file values"; //$NON-NLS-1$
+    private static final String WILDCARD = "*"; //$NON-NLS-1$
+
+    /* Entry ID to quark of the numeric files of the last tree */
+    private final Map<Long, Integer> fFileQuarks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            The trace on which the data provider applies.
+     * @param module
+     *            The {@link ContainerAnalysis} to access the underlying
+     *            {@link ITmfStateSystem}
+     */
+    public CgroupFileXYDataProvider(ITmfTrace trace, ContainerAnalysis module) {
+        super(trace, module);
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    protected String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    protected boolean isCacheable() {
+        return false;
+    }
+
+    @Override
+    protected TmfTreeModel<@NonNull TmfTreeDataModel> getTree(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        List<@NonNull TmfTreeDataModel> entries = new ArrayList<>();
+        long rootId = getId(ITmfStateSystem.ROOT_ATTRIBUTE);
+        entries.add(new TmfTreeDataModel(rootId, -1, getTrace().getName()));
+
+        for (Integer hierarchyQuark : ss.getQuarks(ContainerAttributes.CGROUPS_HIERARCHIES, WILDCARD)) {
+            addCgroupEntries(ss, hierarchyQuark, rootId, entries);
+        }
+        return new TmfTreeModel<>(Arrays.asList(TITLE), entries);
+    }
+
+    /**
+     * Add the entries of a cgroup and its descendants, skipping the cgroups
+     * without numeric files.
+     *
+     * @return Whether entries were added.
+     */
+    private boolean addCgroupEntries(ITmfStateSystem ss, int cgroupQuark, long parentId, List<@NonNull TmfTreeDataModel> entries) throws StateSystemDisposedException {
+        long id = getId(cgroupQuark);
+        List<@NonNull TmfTreeDataModel> children = new ArrayList<>();
+        for (Integer fileQuark : ss.getQuarks(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_FILES, WILDCARD)) {
+            if (isNumeric(ss, fileQuark)) {
+                long fileId = getId(fileQuark);
+                fFileQuarks.put(fileId, fileQuark);
+                children.add(new TmfTreeDataModel(fileId, id, ss.getAttributeName(fileQuark)));
+            }
+        }
+
+        boolean hasDescendants = false;
+        for (Integer childQuark : ss.getQuarks(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, WILDCARD)) {
+            hasDescendants |= addCgroupEntries(ss, childQuark, id, children);
+        }
+        if (children.isEmpty() && !hasDescendants) {
+            return false;
+        }
+        entries.add(new TmfTreeDataModel(id, parentId, ss.getAttributeName(cgroupQuark)));
+        entries.addAll(children);
+        return true;
+    }
+
+    /**
+     * A file is numeric if its last value is a long. Files emptied at the end
+     * (e.g. destroyed cgroups) are checked with the value before.
+     */
+    private static boolean isNumeric(ITmfStateSystem ss, int fileQuark) throws StateSystemDisposedException {
+        if (!ss.getSubAttributes(fileQuark, false).isEmpty()) {
+            return false;
+        }
+        ITmfStateInterval interval = ss.querySingleState(ss.getCurrentEndTime(), fileQuark);
+        if (interval.getValue() == null && interval.getStartTime() > ss.getStartTime()) {
+            interval = ss.querySingleState(interval.getStartTime() - 1, fileQuark);
+        }
+        return interval.getValue() instanceof Long;
+    }
+
+    @Override
+    protected @Nullable Map<String, IYModel> getYModels(ITmfStateSystem ss, Map<String, Object> fetchParameters, @Nullable IProgressMonitor monitor) throws StateSystemDisposedException {
+        SelectionTimeQueryFilter filter = FetchParametersUtils.createSelectionTimeQuery(fetchParameters);
+        if (filter == null) {
+            return null;
+        }
+        long[] times = filter.getTimesRequested();
+
+        Map<Integer, double[]> values = new HashMap<>();
+        Map<Integer, Long> ids = new HashMap<>();
+        for (Long id : filter.getSelectedItems()) {
+            Integer quark = fFileQuarks.get(id);
+            if (quark != null) {
+                values.put(quark, new double[times.length]);
+                ids.put(quark, id);
+            }
+        }
+        if (values.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Collection<Long> queryTimes = new ArrayList<>();
+        for (long time : times) {
+            if (time >= ss.getStartTime() && time <= ss.getCurrentEndTime()) {
+                queryTimes.add(time);
+            }
+        }
+        Iterable<ITmfStateInterval> intervals = queryTimes.isEmpty() ? new ArrayList<>() : ss.query2D(values.keySet(), queryTimes);
+        for (ITmfStateInterval interval : intervals) {
+            if (monitor != null && monitor.isCanceled()) {
+                return null;
+            }
+            Object value = interval.getValue();
+            if (!(value instanceof Long)) {
+                continue;
+            }
+            double[] yValues = values.get(interval.getAttribute());
+            if (yValues == null) {
+                continue;
+            }
+            /* Fill the requested times covered by this interval */
+            int from = Arrays.binarySearch(times, interval.getStartTime());
+            from = (from >= 0) ? from : -from - 1;
+            for (int i = from; i < times.length && times[i] <= interval.getEndTime(); i++) {
+                yValues[i] = (Long) value;
+            }
+        }
+
+        Map<String, IYModel> models = new HashMap<>();
+        for (Map.Entry<Integer, double[]> entry : values.entrySet()) {
+            String name = getTrace().getName() + '/' + ss.getFullAttributePath(entry.getKey());
+            models.put(name, new YModel(ids.get(entry.getKey()), name, entry.getValue()));
+        }
+        return models;
+    }
+}
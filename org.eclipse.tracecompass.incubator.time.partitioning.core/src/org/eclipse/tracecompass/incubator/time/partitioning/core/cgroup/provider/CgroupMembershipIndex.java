@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IntervalArrays;
+import org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.ContainerAttributes;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+
+/**
+ * Time index of a cgroup hierarchy of the container analysis: when each cgroup
+ * was active and in which cgroup each thread was. It is built once, from a
+ * single query over the whole history of the IsActive and PIDS/* attributes of
+ * the cgroups, and then answers the queries at a given time in O(log n).
+ *
+ * The cgroups that were never marked active, e.g. the ones that existed
+ * before the trace started, live over the whole trace.
+ */
+@SuppressWarnings("restriction")
+public final class CgroupMembershipIndex {
+
+    private static final String WILDCARD = "*"; //$NON-NLS-1$
+
+    private final int fRootQuark;
+    private final long fStart;
+    private final long fEnd;
+
+    /* Active intervals of each cgroup that was ever marked active */
+    private final Map<Integer, IntervalArrays> fCgroupLifetimes;
+
+    /* Memberships of each thread, valued with the cgroup quark, without overlaps */
+    private final Map<Long, IntervalArrays> fTidMemberships;
+
+    /* First and last time of each PIDS/<tid> attribute */
+    private final Map<Integer, long[]> fMemberLifetimes;
+
+    private CgroupMembershipIndex(int rootQuark, long start, long end, Map<Integer, IntervalArrays> cgroupLifetimes,
+            Map<Long, IntervalArrays> tidMemberships, Map<Integer, long[]> memberLifetimes) {
+        fRootQuark = rootQuark;
+        fStart = start;
+        fEnd = end;
+        fCgroupLifetimes = cgroupLifetimes;
+        fTidMemberships = tidMemberships;
+        fMemberLifetimes = memberLifetimes;
+    }
+
+    /**
+     * Build the index of a hierarchy.
+     *
+     * @param ss
+     *            The state system of the container analysis, which should be
+     *            completely built.
+     * @param rootQuark
+     *            The quark of the root cgroup of the hierarchy.
+     * @return The index.
+     * @throws StateSystemDisposedException
+     *             If the state system is disposed during the query.
+     */
+    public static CgroupMembershipIndex build(ITmfStateSystem ss, int rootQuark) throws StateSystemDisposedException {
+        Map<Integer, Integer> depths = new HashMap<>();
+        Map<Integer, Integer> activeQuarks = new HashMap<>();
+        Map<Integer, Integer> memberCgroups = new HashMap<>();
+        Map<Integer, Long> memberTids = new HashMap<>();
+        List<Integer> quarks = new ArrayList<>();
+
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        toVisit.push(rootQuark);
+        depths.put(rootQuark, 0);
+        while (!toVisit.isEmpty()) {
+            int cgroupQuark = toVisit.pop();
+            int depth = depths.get(cgroupQuark);
+            int activeQuark = ss.optQuarkRelative(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_CGROUP_IS_ACTIVE);
+            if (activeQuark != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                activeQuarks.put(activeQuark, cgroupQuark);
+                quarks.add(activeQuark);
+            }
+            for (Integer memberQuark : ss.getQuarks(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_PIDS, WILDCARD)) {
+                try {
+                    memberTids.put(memberQuark, Long.parseLong(ss.getAttributeName(memberQuark)));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                memberCgroups.put(memberQuark, cgroupQuark);
+                quarks.add(memberQuark);
+            }
+            List<Integer> children = ss.getQuarks(cgroupQuark, ContainerAttributes.CGROUPS_HIERARCHIES_CHILDREN, WILDCARD);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                toVisit.push(children.get(i));
+                depths.put(children.get(i), depth + 1);
+            }
+        }
+
+        Map<Integer, IntervalArrays> cgroupLifetimes = new HashMap<>();
+        Map<Long, IntervalArrays> tidMemberships = new HashMap<>();
+        Map<Integer, long[]> memberLifetimes = new HashMap<>();
+        long start = ss.getStartTime();
+        long end = ss.getCurrentEndTime();
+        if (!quarks.isEmpty()) {
+            for (ITmfStateInterval interval : ss.query2D(quarks, start, end)) {
+                if (interval.getValue() == null) {
+                    continue;
+                }
+                int quark = interval.getAttribute();
+                Integer cgroupQuark = activeQuarks.get(quark);
+                if (cgroupQuark != null) {
+                    cgroupLifetimes.computeIfAbsent(cgroupQuark, q -> new IntervalArrays()).add(interval.getStartTime(), interval.getEndTime(), 0);
+                    continue;
+                }
+                Long tid = memberTids.get(quark);
+                cgroupQuark = memberCgroups.get(quark);
+                if (tid == null || cgroupQuark == null) {
+                    continue;
+                }
+                tidMemberships.computeIfAbsent(tid, t -> new IntervalArrays()).add(interval.getStartTime(), interval.getEndTime(), cgroupQuark);
+                long[] lifetime = memberLifetimes.get(quark);
+                if (lifetime == null) {
+                    memberLifetimes.put(quark, new long[] { interval.getStartTime(), interval.getEndTime() });
+                } else {
+                    lifetime[0] = Math.min(lifetime[0], interval.getStartTime());
+                    lifetime[1] = Math.max(lifetime[1], interval.getEndTime());
+                }
+            }
+        }
+        for (IntervalArrays intervals : cgroupLifetimes.values()) {
+            intervals.sort();
+        }
+        for (Map.Entry<Long, IntervalArrays> entry : tidMemberships.entrySet()) {
+            entry.setValue(resolveOverlaps(entry.getValue(), depths));
+        }
+        return new CgroupMembershipIndex(rootQuark, start, end, cgroupLifetimes, tidMemberships, memberLifetimes);
+    }
+
+    /**
+     * A forked thread is added to the root cgroup of the hierarchy and then
+     * attached to its own cgroup, so its memberships may overlap. Where they
+     * do, the thread is in the deepest of the cgroups, or in the one it joined
+     * last if they are as deep.
+     *
+     * @param memberships
+     *            The memberships of a thread, valued with the cgroup quark.
+     * @param depths
+     *            The depth of each cgroup in the hierarchy, 0 for the root.
+     * @return The memberships without overlaps, sorted by start time.
+     */
+    private static IntervalArrays resolveOverlaps(IntervalArrays memberships, Map<Integer, Integer> depths) {
+        memberships.sort();
+        int size = memberships.size();
+        boolean overlaps = false;
+        for (int i = 1; i < size && !overlaps; i++) {
+            overlaps = memberships.getStart(i) <= memberships.getEnd(i - 1);
+        }
+        if (!overlaps) {
+            return memberships;
+        }
+
+        /* Times at which the set of cgroups of the thread changes */
+        long[] bounds = new long[2 * size];
+        for (int i = 0; i < size; i++) {
+            bounds[2 * i] = memberships.getStart(i);
+            bounds[2 * i + 1] = memberships.getEnd(i) + 1;
+        }
+        Arrays.sort(bounds);
+
+        IntervalArrays resolved = new IntervalArrays();
+        List<Integer> current = new ArrayList<>();
+        int next = 0;
+        long pendingStart = 0;
+        long pendingEnd = 0;
+        int pendingCgroup = ITmfStateSystem.INVALID_ATTRIBUTE;
+        for (int b = 0; b < bounds.length - 1; b++) {
+            long time = bounds[b];
+            if (time == bounds[b + 1]) {
+                continue;
+            }
+            while (next < size && memberships.getStart(next) <= time) {
+                current.add(next++);
+            }
+            current.removeIf(i -> memberships.getEnd(i) < time);
+            int deepest = -1;
+            for (int i : current) {
+                if (deepest < 0 || depths.getOrDefault(memberships.getValue(i), 0) >= depths.getOrDefault(memberships.getValue(deepest), 0)) {
+                    deepest = i;
+                }
+            }
+            if (deepest < 0) {
+                continue;
+            }
+            int cgroup = memberships.getValue(deepest);
+            if (cgroup == pendingCgroup && pendingEnd == time - 1) {
+                pendingEnd = bounds[b + 1] - 1;
+                continue;
+            }
+            if (pendingCgroup != ITmfStateSystem.INVALID_ATTRIBUTE) {
+                resolved.add(pendingStart, pendingEnd, pendingCgroup);
+            }
+            pendingStart = time;
+            pendingEnd = bounds[b + 1] - 1;
+            pendingCgroup = cgroup;
+        }
+        if (pendingCgroup != ITmfStateSystem.INVALID_ATTRIBUTE) {
+            resolved.add(pendingStart, pendingEnd, pendingCgroup);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return The quark of the root cgroup of the indexed hierarchy.
+     */
+    public int getRootQuark() {
+        return fRootQuark;
+    }
+
+    /**
+     * @param cgroupQuark
+     *            The quark of a cgroup.
+     * @return The first time the cgroup was active.
+     */
+    public long getCgroupStart(int cgroupQuark) {
+        IntervalArrays lifetime = fCgroupLifetimes.get(cgroupQuark);
+        return (lifetime == null) ? fStart : lifetime.getStart(0);
+    }
+
+    /**
+     * @param cgroupQuark
+     *            The quark of a cgroup.
+     * @return The last time the cgroup was active.
+     */
+    public long getCgroupEnd(int cgroupQuark) {
+        IntervalArrays lifetime = fCgroupLifetimes.get(cgroupQuark);
+        return (lifetime == null) ? fEnd : lifetime.getEnd(lifetime.size() - 1);
+    }
+
+    /**
+     * @param cgroupQuark
+     *            The quark of a cgroup.
+     * @param time
+     *            The time.
+     * @return Whether the cgroup was active at that time.
+     */
+    public boolean isCgroupAlive(int cgroupQuark, long time) {
+        if (time < fStart || time > fEnd) {
+            return false;
+        }
+        IntervalArrays lifetime = fCgroupLifetimes.get(cgroupQuark);
+        return lifetime == null || lifetime.indexOf(time) >= 0;
+    }
+
+    /**
+     * @param memberQuark
+     *            The quark of the PIDS/&lt;tid&gt; attribute of a cgroup.
+     * @return The first time the thread was in the cgroup.
+     */
+    public long getMemberStart(int memberQuark) {
+        long[] lifetime = fMemberLifetimes.get(memberQuark);
+        return (lifetime == null) ? fStart : lifetime[0];
+    }
+
+    /**
+     * @param memberQuark
+     *            The quark of the PIDS/&lt;tid&gt; attribute of a cgroup.
+     * @return The last time the thread was in the cgroup.
+     */
+    public long getMemberEnd(int memberQuark) {
+        long[] lifetime = fMemberLifetimes.get(memberQuark);
+        return (lifetime == null) ? fEnd : lifetime[1];
+    }
+
+    /**
+     * @param tid
+     *            The thread ID.
+     * @param time
+     *            The time.
+     * @return The quark of the deepest cgroup of the thread at that time, or
+     *         {@link ITmfStateSystem#INVALID_ATTRIBUTE}.
+     */
+    public int getCgroupAt(long tid, long time) {
+        IntervalArrays memberships = fTidMemberships.get(tid);
+        int index = (memberships == null) ? -1 : memberships.indexOf(time);
+        return (index < 0) ? ITmfStateSystem.INVALID_ATTRIBUTE : memberships.getValue(index);
+    }
+}
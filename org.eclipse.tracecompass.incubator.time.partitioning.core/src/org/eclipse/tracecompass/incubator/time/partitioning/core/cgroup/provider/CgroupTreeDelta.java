@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * Entries of the {@link CgroupDataProvider} tree that were added or changed
+ * since a given generation of the tree, see
+ * {@link CgroupDataProvider#fetchTreeDelta(long, org.eclipse.core.runtime.IProgressMonitor)}.
+ *
+ * Entries are identified by the quark of their attribute, so an entry is never
+ * reported again unless its parent or name changes. The models of unchanged
+ * entries are the same instances as before, their children lists are updated
+ * in place.
+ */
+public class CgroupTreeDelta {
+
+    private final long fGeneration;
+    private final @NonNull List<@NonNull CgroupEntryModel> fEntries;
+
+    /**
+     * Constructor
+     *
+     * @param generation
+     *            The generation of the tree.
+     * @param entries
+     *            The added or changed entries, parents first.
+     */
+    public CgroupTreeDelta(long generation, @NonNull List<@NonNull CgroupEntryModel> entries) {
+        fGeneration = generation;
+        fEntries = entries;
+    }
+
+    /**
+     * @return The generation of the tree, to pass to the next request.
+     */
+    public long getGeneration() {
+        return fGeneration;
+    }
+
+    /**
+     * @return The entries added or changed since the requested generation,
+     *         parents first.
+     */
+    public @NonNull List<@NonNull CgroupEntryModel> getEntries() {
+        return fEntries;
+    }
+}
@@ -33,6 +33,15 @@ import com.google.common.collect.ImmutableMap;
 public class CgroupViewPresentationProvider extends TimeGraphPresentationProvider {
 
     private static final int NUM_COLORS = 10;
+
+    /* Labels of the partition colors, not to format them for every state */
+    private static final String[] COLOR_LABELS = new String[NUM_COLORS];
+    static {
+        for (int i = 0; i < NUM_COLORS; i++) {
+            COLOR_LABELS[i] = String.valueOf(i);
+        }
+    }
+
     private static final float BRIGHTNESS = 0.9f;
     private static final float SATURATION = 0.6f;
     private static final List<RGBAColor> PALETTE =  new RotatingPaletteProvider.Builder()
@@ -139,6 +148,19 @@ public class CgroupViewPresentationProvider extends TimeGraphPresentationProvide
             retMap = new LinkedHashMap<>(1);
         }
 
+        if (event instanceof TimeEvent && ((TimeEvent) event).hasValue() &&
+                event.getEntry() instanceof RunningPartitionEntry) {
+            /* The deviation from the budget is only formatted when hovered */
+            RunningPartitionEntry entry = (RunningPartitionEntry) event.getEntry();
+            TmfModelResponse<@NonNull Map<@NonNull String, @NonNull String>> response = entry.getProvider().fetchTooltip(
+                    new SelectionTimeQueryFilter(hoverTime, hoverTime, 1, Collections.singletonList(entry.getModel().getId())), null);
+            Map<@NonNull String, @NonNull String> tooltipModel = response.getModel();
+            if (tooltipModel != null) {
+                retMap.putAll(tooltipModel);
+            }
+            return retMap;
+        }
+
         if (!(event instanceof TimeEvent) || !((TimeEvent) event).hasValue() ||
                 !(event.getEntry() instanceof ControlFlowEntry)) {
             return retMap;
@@ -171,7 +193,7 @@ public class CgroupViewPresentationProvider extends TimeGraphPresentationProvide
                 RGBAColor color = PALETTE.get(threadEventValue);
                 RGBAColor newColor = new RGBAColor(color.getRed(), color.getGreen(), color.getBlue(), alpha);
                 map.put(ITimeEventStyleStrings.fillColor(), newColor.toInt());
-                map.put(ITimeEventStyleStrings.label(), String.valueOf(threadEventValue));
+                map.put(ITimeEventStyleStrings.label(), COLOR_LABELS[threadEventValue]);
                 map.put(ITimeEventStyleStrings.heightFactor(), 1.0f);
             }
         }
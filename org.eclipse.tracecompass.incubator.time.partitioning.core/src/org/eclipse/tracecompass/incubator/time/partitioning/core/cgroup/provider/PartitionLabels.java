@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.time.partitioning.core.cgroup.provider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the partitions shown in the running partition rows. Each
+ * partition name is mapped once to a stable value, used for its color, and to
+ * an interned label, so building the states does not parse nor allocate per
+ * interval.
+ */
+final class PartitionLabels {
+
+    /* Names are interned once, there are only a few partitions */
+    private static final int MAX_PARTITIONS = 4096;
+
+    /**
+     * The value and label of a partition.
+     */
+    static final class Label {
+        private final int fValue;
+        private final String fName;
+
+        private Label(int value, String name) {
+            fValue = value;
+            fName = name;
+        }
+
+        /**
+         * @return The state value of the partition.
+         */
+        public int getValue() {
+            return fValue;
+        }
+
+        /**
+         * @return The interned partition name.
+         */
+        public String getName() {
+            return fName;
+        }
+
+        /**
+         * Get the label with the deviation of an execution window from the
+         * budget of the partition. It is formatted on each call, so it should
+         * only be used for the states that are large enough to show it or that
+         * are hovered.
+         *
+         * @param diff
+         *            The deviation in nanoseconds.
+         * @return The label.
+         */
+        public String getPrettyName(long diff) {
+            double timeInms = diff / 1000000.0;
+            String symbol = timeInms > 0.0 ? "+" : "-"; //$NON-NLS-1$ //$NON-NLS-2$
+            return String.format("%s (%s%7.4f ms)", fName, symbol, Math.abs(timeInms)); //$NON-NLS-1$
+        }
+    }
+
+    private final Map<String, Label> fLabels = new ConcurrentHashMap<>();
+
+    /**
+     * Get the label of a partition.
+     *
+     * @param name
+     *            The partition name, the value of the CurrentPartition/CPU*
+     *            attributes.
+     * @return The label of the partition.
+     */
+    public Label get(String name) {
+        Label label = fLabels.get(name);
+        if (label == null) {
+            label = new Label(getValue(name), name);
+            if (fLabels.size() < MAX_PARTITIONS) {
+                fLabels.put(name, label);
+            }
+        }
+        return label;
+    }
+
+    /**
+     * The value of partitions named with a number (p1, p2...) is that number,
+     * as before, and a hash of the name for the other partitions.
+     */
+    private static int getValue(String name) {
+        if (name.length() < 2) {
+            return name.isEmpty() ? 0 : name.hashCode() & Integer.MAX_VALUE;
+        }
+        int value = 0;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - 9) / 10) {
+                return name.hashCode() & Integer.MAX_VALUE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -13,6 +13,20 @@ public class RunningPartitionEntry extends TimeGraphEntry {
         fProvider = provider;
     }
 
+    /**
+     * Constructor for the entries of the running partition rows, so that the
+     * rows are requested with the ID of their model.
+     *
+     * @param model
+     *            The entry model from the data provider.
+     * @param provider
+     *            The data provider.
+     */
+    public RunningPartitionEntry(TimeGraphEntryModel model, CgroupDataProvider provider) {
+        super(model);
+        fProvider = provider;
+    }
+
     public ITimeGraphDataProvider<? extends TimeGraphEntryModel> getProvider() {
         return fProvider;
     }
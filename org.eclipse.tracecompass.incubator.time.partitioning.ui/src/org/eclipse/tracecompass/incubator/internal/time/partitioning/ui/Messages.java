@@ -54,6 +54,12 @@ public class Messages extends NLS {
     public static String ResourcesView_previousResourceActionNameText;
     public static String ResourcesView_previousResourceActionToolTipText;
 
+    public static String SynchronizeXenDomains_Title;
+    public static String SynchronizeXenDomains_JobName;
+    public static String SynchronizeXenDomains_NotOpened;
+    public static String SynchronizeXenDomains_NoDomain;
+    public static String SynchronizeXenDomains_Evicted;
+
     static {
         // initialize resource bundle
         NLS.initializeMessages(BUNDLE_NAME, Messages.class);
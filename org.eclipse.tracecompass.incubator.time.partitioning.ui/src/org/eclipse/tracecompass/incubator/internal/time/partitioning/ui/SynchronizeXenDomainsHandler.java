@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2019 École Polytechnique de Montréal
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.incubator.internal.time.partitioning.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenSyncFormula;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.XenSynchronizationAnalysis;
+import org.eclipse.tracecompass.tmf.core.timestamp.TimestampTransformFactory;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
+import org.eclipse.tracecompass.tmf.ui.project.model.TmfExperimentElement;
+import org.eclipse.tracecompass.tmf.ui.project.model.TmfOpenTraceHelper;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+/**
+ * Synchronizes the Xen domains of the selected experiment with their
+ * hypervisor. The formulas of {@link XenSynchronizationAnalysis} are saved as
+ * the timestamp transforms of the trace resources and the experiment is opened
+ * again, like the synchronization of TMF, so no analysis sees the transforms
+ * change while it reads the traces.
+ */
+public class SynchronizeXenDomainsHandler extends AbstractHandler {
+
+    @Override
+    public @Nullable Object execute(@Nullable ExecutionEvent event) {
+        ISelection selection = HandlerUtil.getCurrentSelection(event);
+        if (!(selection instanceof IStructuredSelection)) {
+            return null;
+        }
+        Object element = ((IStructuredSelection) selection).getFirstElement();
+        if (!(element instanceof TmfExperimentElement)) {
+            return null;
+        }
+        TmfExperimentElement experimentElement = (TmfExperimentElement) element;
+        Shell shell = HandlerUtil.getActiveShell(event);
+
+        ITmfTrace experiment = getOpenedTrace(experimentElement.getResource());
+        if (experiment == null) {
+            MessageDialog.openInformation(shell, Messages.SynchronizeXenDomains_Title, Messages.SynchronizeXenDomains_NotOpened);
+            return null;
+        }
+        XenSynchronizationAnalysis module = TmfTraceUtils.getAnalysisModuleOfClass(experiment, XenSynchronizationAnalysis.class, XenSynchronizationAnalysis.ID);
+        if (module == null) {
+            return null;
+        }
+
+        Job job = new Job(Messages.SynchronizeXenDomains_JobName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                module.schedule();
+                if (!module.waitForCompletion(monitor)) {
+                    return Status.CANCEL_STATUS;
+                }
+                XenSyncFormula formula = module.getFormula();
+                if (formula == null || formula.getDomains().isEmpty()) {
+                    Display.getDefault().asyncExec(() -> MessageDialog.openInformation(shell, Messages.SynchronizeXenDomains_Title, Messages.SynchronizeXenDomains_NoDomain));
+                    return Status.OK_STATUS;
+                }
+
+                /*
+                 * The formulas relate the timestamps as they are read, so they
+                 * apply after the current transforms
+                 */
+                for (ITmfTrace trace : TmfTraceManager.getTraceSet(experiment)) {
+                    XenSyncFormula.Domain domain = formula.getDomain(trace.getHostId());
+                    IResource resource = trace.getResource();
+                    if (domain != null && resource != null) {
+                        TimestampTransformFactory.setTimestampTransform(resource, domain.getTransform().composeWith(trace.getTimestampTransform()));
+                    }
+                }
+
+                /* The counterparts were not read within the window of the matching */
+                List<String> evicted = new ArrayList<>();
+                for (XenSyncFormula.Domain domain : formula.getDomains().values()) {
+                    if (domain.getEvicted() > domain.getMatches()) {
+                        evicted.add(domain.getHost());
+                    }
+                }
+
+                Display.getDefault().asyncExec(() -> {
+                    experimentElement.closeEditors();
+                    TmfOpenTraceHelper.openTraceFromElement(experimentElement);
+                    if (!evicted.isEmpty()) {
+                        MessageDialog.openWarning(shell, Messages.SynchronizeXenDomains_Title,
+                                NLS.bind(Messages.SynchronizeXenDomains_Evicted, String.join(", ", evicted))); //$NON-NLS-1$
+                    }
+                });
+                return Status.OK_STATUS;
+            }
+        };
+        job.setUser(true);
+        job.schedule();
+        return null;
+    }
+
+    private static @Nullable ITmfTrace getOpenedTrace(IResource resource) {
+        for (ITmfTrace trace : TmfTraceManager.getInstance().getOpenedTraces()) {
+            if (resource.equals(trace.getResource())) {
+                return trace;
+            }
+        }
+        return null;
+    }
+}
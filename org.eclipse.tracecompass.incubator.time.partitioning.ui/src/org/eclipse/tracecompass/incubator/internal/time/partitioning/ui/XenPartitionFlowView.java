@@ -32,6 +32,7 @@ import java.util.function.Predicate;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.annotation.NonNull;
@@ -49,6 +50,9 @@ import org.eclipse.jface.window.Window;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.tracecompass.analysis.os.linux.core.kernel.KernelTidAspect;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.IStreamingRowModelProvider;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.ParallelFetcher;
+import org.eclipse.tracecompass.incubator.internal.time.partitioning.core.TimeGraphRowApplier;
 import org.eclipse.tracecompass.incubator.internal.time.partitioning.xen.core.PartitionStatusDataProvider;
 import org.eclipse.tracecompass.internal.analysis.os.linux.core.threadstatus.ThreadEntryModel;
 import org.eclipse.tracecompass.internal.analysis.os.linux.core.threadstatus.ThreadStatusDataProvider;
@@ -60,10 +64,13 @@ import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.
 import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.filters.ActiveThreadsFilter;
 import org.eclipse.tracecompass.internal.analysis.os.linux.ui.views.controlflow.filters.DynamicFilterDialog;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
+import org.eclipse.tracecompass.statesystem.core.StateSystemUtils;
 import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderManager;
+import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.model.filters.SelectionTimeQueryFilter;
 import org.eclipse.tracecompass.tmf.core.model.filters.TimeQueryFilter;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphDataProvider;
 import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphRowModel;
 import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
 import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphEntryModel;
@@ -88,6 +95,7 @@ import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.ILinkEvent;
 import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.ITimeEvent;
 import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.ITimeGraphEntry;
 import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.TimeGraphEntry;
+import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.model.TimeGraphEntry.Sampling;
 import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.widgets.TimeGraphControl;
 import org.eclipse.tracecompass.tmf.ui.widgets.timegraph.widgets.Utils;
 import org.eclipse.ui.IWorkbenchActionConstants;
@@ -96,6 +104,7 @@ import org.eclipse.ui.PlatformUI;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 
 /**
  * Based on The Control Flow view main object
@@ -178,6 +187,8 @@ public class XenPartitionFlowView extends BaseDataProviderTimeGraphView {
 
     private final ActiveThreadsFilterAction fActiveThreadsRapidToggle = new ActiveThreadsFilterAction();
 
+    private final TimeGraphRowApplier fRowApplier = new TimeGraphRowApplier(fEntries, this::createTimeEvents, this::applyResults);
+
     class ActiveThreadsFilterAction extends Action {
         public ActiveThreadsFilterAction() {
             super(PackageMessages.ControlFlowView_DynamicFiltersActiveThreadToggleLabel, IAction.AS_CHECK_BOX);
@@ -851,7 +862,43 @@ public class XenPartitionFlowView extends BaseDataProviderTimeGraphView {
 
     @Override
     protected void zoomEntries(@NonNull Iterable<@NonNull TimeGraphEntry> entries, long zoomStartTime, long zoomEndTime, long resolution, @NonNull IProgressMonitor monitor) {
-        super.zoomEntries(entries, zoomStartTime, zoomEndTime, resolution, monitor);
+        if (resolution < 0) {
+            // StateSystemUtils.getTimes would throw an illegal argument exception.
+            return;
+        }
+
+        long start = Long.min(zoomStartTime, zoomEndTime);
+        long end = Long.max(zoomStartTime, zoomEndTime);
+        List<@NonNull Long> times = StateSystemUtils.getTimes(start, end, resolution);
+        Sampling sampling = new Sampling(start, end, resolution);
+        Map<ITimeGraphDataProvider<? extends TimeGraphEntryModel>, Collection<Long>> providersToModelIds = TimeGraphRowApplier.filterGroupEntries(entries, zoomStartTime, zoomEndTime,
+                XenPartitionFlowView::getProvider, entry -> false).asMap();
+        SubMonitor subMonitor = SubMonitor.convert(monitor, getClass().getSimpleName() + "#zoomEntries", providersToModelIds.size()); //$NON-NLS-1$
+        Multimap<Integer, String> regexes = getRegexes();
+
+        /* The thread and partition providers are queried concurrently */
+        boolean isZoomThread = Thread.currentThread() instanceof ZoomThread;
+        ParallelFetcher.fetch(providersToModelIds.keySet(), dataProvider -> {
+            SelectionTimeQueryFilter filter = new SelectionTimeQueryFilter(times, providersToModelIds.get(dataProvider));
+            Map<String, Object> parameters = FetchParametersUtils.selectionTimeQueryToMap(filter);
+            if (!regexes.isEmpty()) {
+                parameters.put(DataProviderParameterUtils.REGEX_MAP_FILTERS_KEY, regexes.asMap());
+            }
+            if (isZoomThread && dataProvider instanceof IStreamingRowModelProvider) {
+                /* Show the rows of the first chunks while the next ones are fetched */
+                Map<Long, TimeGraphEntry> entryMap = fEntries.row(dataProvider);
+                return ((IStreamingRowModelProvider) dataProvider).fetchRowModel(parameters, monitor,
+                        partial -> fRowApplier.applyPartialRows(entryMap, partial.getRows(), monitor));
+            }
+            return dataProvider.fetchRowModel(parameters, monitor);
+        }, (dataProvider, response) -> {
+            TimeGraphModel model = response.getModel();
+            if (model != null) {
+                fRowApplier.applyRows(fEntries.row(dataProvider), model.getRows(), isZoomThread, response.getStatus() == ITmfResponse.Status.COMPLETED, sampling);
+            }
+            subMonitor.worked(1);
+        }, monitor);
+
         if (monitor.isCanceled()) {
             return;
         }